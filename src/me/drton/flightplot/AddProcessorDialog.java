@@ -10,6 +10,7 @@ public class AddProcessorDialog extends JDialog {
     private JButton buttonOK;
     private JButton buttonCancel;
     private JTextField titleField;
+    private JTextField subplotField;
     private JComboBox processorTypeComboBox;
     private String[] processorsTypes;
 
@@ -51,6 +52,10 @@ public class AddProcessorDialog extends JDialog {
         return titleField.getText();
     }
 
+    public String getProcessorSubplot() {
+        return subplotField.getText().trim();
+    }
+
     public PlotProcessor getOrigProcessor() {
         return origProcessor;
     }
@@ -64,10 +69,12 @@ public class AddProcessorDialog extends JDialog {
         if (processor != null) {
             origProcessor = processor;
             titleField.setText(processor.getTitle());
+            subplotField.setText(processor.getSubplot());
             processorTypeComboBox.setSelectedItem(processor.getProcessorType());
         } else {
             origProcessor = null;
             titleField.setText("");
+            subplotField.setText("");
         }
         titleField.requestFocus();
         this.setVisible(true);
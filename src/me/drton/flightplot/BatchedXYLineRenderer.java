@@ -0,0 +1,86 @@
+package me.drton.flightplot;
+
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.plot.CrosshairState;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.PlotRenderingInfo;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYItemRendererState;
+import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.data.xy.XYDataset;
+import org.jfree.ui.RectangleEdge;
+
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Line renderer that draws each series as single path built in screen space.
+ * Points falling into the same pixel column are merged into vertical min/max stroke, so drawing cost depends on
+ * plot width rather than on number of points. Item entities and shapes are not supported.
+ */
+public class BatchedXYLineRenderer extends XYLineAndShapeRenderer {
+
+    public BatchedXYLineRenderer() {
+        super(true, false);
+    }
+
+    @Override
+    public int getPassCount() {
+        return 1;
+    }
+
+    @Override
+    public void drawItem(Graphics2D g2, XYItemRendererState state, Rectangle2D dataArea, PlotRenderingInfo info,
+                         XYPlot plot, ValueAxis domainAxis, ValueAxis rangeAxis, XYDataset dataset, int series,
+                         int item, CrosshairState crosshairState, int pass) {
+        // Whole series is drawn on its first item, other items are already on the path
+        if (item != state.getFirstItemIndex() || !isSeriesVisible(series)) {
+            return;
+        }
+        Path2D path = new Path2D.Double();
+        boolean dense = buildSeriesPath(path, dataset, series, state.getFirstItemIndex(), state.getLastItemIndex(),
+                dataArea, plot, domainAxis, rangeAxis);
+        g2.setPaint(getItemPaint(series, item));
+        g2.setStroke(getItemStroke(series, item));
+        drawPath(g2, path, dense);
+    }
+
+    /**
+     * Draw path, dense paths consist mostly of vertical strokes and are drawn without antialiasing, which is much
+     * faster and looks the same.
+     */
+    public static void drawPath(Graphics2D g2, Path2D path, boolean dense) {
+        Object antialiasing = g2.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        if (dense) {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        }
+        g2.draw(path);
+        if (dense) {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    antialiasing != null ? antialiasing : RenderingHints.VALUE_ANTIALIAS_DEFAULT);
+        }
+    }
+
+    /**
+     * Build decimated screen space path for items range of the series.
+     *
+     * @return true if the path is dense
+     */
+    public static boolean buildSeriesPath(Path2D path, XYDataset dataset, int series, int firstItem, int lastItem,
+                                          Rectangle2D dataArea, XYPlot plot, ValueAxis domainAxis,
+                                          ValueAxis rangeAxis) {
+        RectangleEdge xAxisLocation = plot.getDomainAxisEdge();
+        RectangleEdge yAxisLocation = plot.getRangeAxisEdge();
+        boolean horizontal = plot.getOrientation() == PlotOrientation.HORIZONTAL;
+        PixelColumnDecimator decimator = PixelColumnDecimator.forPath(path, horizontal);
+        for (int i = firstItem; i <= lastItem; i++) {
+            double x = dataset.getXValue(series, i);
+            double y = dataset.getYValue(series, i);
+            decimator.add(domainAxis.valueToJava2D(x, dataArea, xAxisLocation),
+                    rangeAxis.valueToJava2D(y, dataArea, yAxisLocation));
+        }
+        decimator.flush();
+        return decimator.isDense();
+    }
+}
@@ -0,0 +1,408 @@
+package me.drton.flightplot;
+
+import me.drton.flightplot.processors.PlotProcessor;
+import me.drton.flightplot.processors.tools.DerivedQuantities;
+import me.drton.jmavlib.log.FormatErrorException;
+import me.drton.jmavlib.log.LogReader;
+import org.jfree.chart.ChartRenderingInfo;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.plot.CombinedDomainXYPlot;
+import org.jfree.chart.plot.DrawingSupplier;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.data.Range;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+import org.jfree.ui.RectangleEdge;
+
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Renders chart of processors output off-screen to PNG or SVG image of arbitrary size.
+ * Log is processed at full resolution and output points are streamed through pixel column decimators directly to
+ * the image, so memory usage doesn't depend on log size. PNG is rendered and encoded in horizontal bands from
+ * decimated paths, so memory usage depends on image width only, not on its height.
+ */
+public class ChartImageExporter {
+    // Segments of series path drawn at once
+    private static final int PATH_CHUNK = 4096;
+    // Rows of PNG image rendered at once
+    private static final int BAND_HEIGHT = 256;
+
+    public enum Format {
+        PNG,
+        SVG;
+
+        public static Format fromFileName(String fileName) {
+            return fileName.toLowerCase().endsWith(".svg") ? SVG : PNG;
+        }
+    }
+
+    private final List<PlotProcessor> processors = new ArrayList<PlotProcessor>();
+    private final List<String> processorsSubplots = new ArrayList<String>();
+    private ValueAxis domainAxis = new NumberAxis("T");
+    private double timeScale = 1.0;
+    private long timeOffset = 0;
+    private final Map<String, Range> subplotRanges = new HashMap<String, Range>();
+    private final Map<String, Paint> seriesPaints = new HashMap<String, Paint>();
+    private DrawingSupplier drawingSupplier = null;
+    private int width = 1920;
+    private int height = 1080;
+    private double scale = 1.0;
+
+    /**
+     * Add processor, processor must not be used for anything else during export.
+     *
+     * @param subplot name of subplot to show processor output in
+     */
+    public void addProcessor(PlotProcessor processor, String subplot) {
+        processors.add(processor);
+        processorsSubplots.add(subplot);
+    }
+
+    /**
+     * Set domain axis, its range defines exported time range. Axis is copied.
+     */
+    public void setDomainAxis(ValueAxis domainAxis) throws CloneNotSupportedException {
+        this.domainAxis = (ValueAxis) domainAxis.clone();
+    }
+
+    /**
+     * Set conversion of log time to domain axis units: (log time in us + timeOffset) * 1e-6 * timeScale
+     */
+    public void setTime(long timeOffset, double timeScale) {
+        this.timeOffset = timeOffset;
+        this.timeScale = timeScale;
+    }
+
+    /**
+     * Set fixed range axis range for the subplot, range of subplots without fixed range is calculated from data.
+     */
+    public void setSubplotRange(String subplot, Range range) {
+        subplotRanges.put(subplot, range);
+    }
+
+    /**
+     * Set paint for the series, paint of other series is taken from drawing supplier.
+     */
+    public void setSeriesPaint(String seriesKey, Paint paint) {
+        seriesPaints.put(seriesKey, paint);
+    }
+
+    public void setDrawingSupplier(DrawingSupplier drawingSupplier) {
+        this.drawingSupplier = drawingSupplier;
+    }
+
+    /**
+     * Set image size in pixels, chart elements are scaled by scale factor (for PNG only).
+     */
+    public void setSize(int width, int height, double scale) {
+        this.width = width;
+        this.height = height;
+        this.scale = scale;
+    }
+
+    /**
+     * Output of one series: maps points to screen space and draws them through pixel column decimator.
+     * If graphics is not specified, decimated path is kept to be drawn later by draw().
+     */
+    private class SeriesOutput implements PixelColumnDecimator.PathSink {
+        private final Graphics2D g2;
+        private final Rectangle2D area;
+        private final ValueAxis rangeAxis;
+        private final PixelColumnDecimator decimator;
+        private final double outScale;
+        private final Paint paint;
+        private final Stroke stroke;
+        private Path2D path = new Path2D.Double();
+        private int segments = 0;
+        private double lastX;
+        private double lastY;
+
+        private SeriesOutput(Graphics2D g2, Rectangle2D area, ValueAxis rangeAxis, double outScale, Paint paint,
+                             Stroke stroke) {
+            this.area = area;
+            this.rangeAxis = rangeAxis;
+            this.outScale = outScale;
+            this.paint = paint;
+            this.stroke = stroke;
+            this.decimator = new PixelColumnDecimator(this);
+            this.g2 = g2 == null ? null : createGraphics(g2);
+        }
+
+        private Graphics2D createGraphics(Graphics2D g) {
+            Graphics2D sg = (Graphics2D) g.create();
+            sg.clip(area);
+            sg.setPaint(paint);
+            sg.setStroke(stroke);
+            return sg;
+        }
+
+        private void add(double time, double value) {
+            // Decimate in device pixels
+            double x = domainAxis.valueToJava2D(time, area, RectangleEdge.BOTTOM) * outScale;
+            double y = rangeAxis.valueToJava2D(value, area, RectangleEdge.LEFT) * outScale;
+            decimator.add(x, Double.isNaN(value) ? Double.NaN : y);
+        }
+
+        @Override
+        public void moveTo(double x, double y) {
+            lastX = x / outScale;
+            lastY = y / outScale;
+            path.moveTo(lastX, lastY);
+        }
+
+        @Override
+        public void lineTo(double x, double y) {
+            lastX = x / outScale;
+            lastY = y / outScale;
+            path.lineTo(lastX, lastY);
+            if (++segments >= PATH_CHUNK && g2 != null) {
+                // Draw finished part, continue from the last point
+                g2.draw(path);
+                path = new Path2D.Double();
+                path.moveTo(lastX, lastY);
+                segments = 0;
+            }
+        }
+
+        private void finish() {
+            decimator.flush();
+            if (g2 != null) {
+                if (segments > 0) {
+                    g2.draw(path);
+                }
+                g2.dispose();
+            }
+        }
+
+        /**
+         * Draw kept path.
+         */
+        private void draw(Graphics2D g) {
+            Graphics2D sg = createGraphics(g);
+            sg.draw(path);
+            sg.dispose();
+        }
+    }
+
+    /**
+     * Export chart to file.
+     *
+     * @param reader log reader, should not be used by anything else during export
+     */
+    public void export(LogReader reader, File file, Format format) throws IOException, FormatErrorException {
+        // Layout: subplots in order of processors, series titles are known after init
+        initProcessors();
+        final Map<String, XYPlot> subplots = new LinkedHashMap<String, XYPlot>();
+        CombinedDomainXYPlot combinedPlot = new CombinedDomainXYPlot(domainAxis);
+        combinedPlot.setGap(10.0);
+        combinedPlot.setOrientation(PlotOrientation.VERTICAL);
+        if (drawingSupplier != null) {
+            combinedPlot.setDrawingSupplier(drawingSupplier);
+        }
+        for (int i = 0; i < processors.size(); i++) {
+            String name = processorsSubplots.get(i);
+            XYPlot subplot = subplots.get(name);
+            if (subplot == null) {
+                NumberAxis rangeAxis = new NumberAxis(name);
+                rangeAxis.setAutoRangeIncludesZero(false);
+                subplot = new XYPlot(new XYSeriesCollection(), null, rangeAxis,
+                        new XYLineAndShapeRenderer(true, false));
+                subplot.setBackgroundPaint(Color.WHITE);
+                subplot.setDomainGridlinePaint(Color.LIGHT_GRAY);
+                subplot.setRangeGridlinePaint(Color.LIGHT_GRAY);
+                subplots.put(name, subplot);
+                combinedPlot.add(subplot);
+            }
+            XYSeriesCollection dataset = (XYSeriesCollection) subplot.getDataset();
+            for (Object series : processors.get(i).getSeriesCollection().getSeries()) {
+                // Empty series, only for legend
+                Comparable key = ((XYSeries) series).getKey();
+                int idx = dataset.getSeriesCount();
+                dataset.addSeries(new XYSeries(key, false));
+                Paint paint = seriesPaints.get(key.toString());
+                if (paint != null) {
+                    subplot.getRenderer().setSeriesPaint(idx, paint);
+                }
+            }
+        }
+
+        // Range axes
+        final Map<String, double[]> minMax = new HashMap<String, double[]>();
+        for (String name : subplots.keySet()) {
+            if (!subplotRanges.containsKey(name)) {
+                minMax.put(name, new double[]{Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY});
+            }
+        }
+        if (!minMax.isEmpty()) {
+            // Extra pass to find ranges of subplots without fixed range
+            initProcessors();
+            final Range domainRange = domainAxis.getRange();
+            for (int i = 0; i < processors.size(); i++) {
+                final double[] mm = minMax.get(processorsSubplots.get(i));
+                if (mm == null) {
+                    continue;
+                }
+                processors.get(i).setPointSink(new PlotProcessor.PointSink() {
+                    @Override
+                    public void addPoint(int seriesIdx, double time, double value) {
+                        if (domainRange.contains(time) && !Double.isNaN(value) && !Double.isInfinite(value)) {
+                            mm[0] = Math.min(mm[0], value);
+                            mm[1] = Math.max(mm[1], value);
+                        }
+                    }
+                });
+            }
+            processLog(reader);
+        }
+        for (Map.Entry<String, XYPlot> entry : subplots.entrySet()) {
+            Range range = subplotRanges.get(entry.getKey());
+            if (range == null) {
+                double[] mm = minMax.get(entry.getKey());
+                if (mm[0] > mm[1]) {
+                    range = new Range(0.0, 1.0);
+                } else {
+                    double margin = mm[1] > mm[0] ? (mm[1] - mm[0]) * 0.05 : 1.0;
+                    range = new Range(mm[0] - margin, mm[1] + margin);
+                }
+            }
+            entry.getValue().getRangeAxis().setRange(range);
+        }
+
+        // Draw chart without data
+        JFreeChart chart = new JFreeChart("", JFreeChart.DEFAULT_TITLE_FONT, combinedPlot, true);
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            ChartRenderingInfo info = new ChartRenderingInfo();
+            if (format == Format.SVG) {
+                SvgGraphics2D svg = new SvgGraphics2D(new OutputStreamWriter(out, Charset.forName("UTF-8")), width,
+                        height);
+                chart.draw(svg, new Rectangle2D.Double(0, 0, width, height), info);
+                for (SeriesOutput output : streamData(reader, subplots, info, svg, 1.0)) {
+                    output.finish();
+                }
+                svg.finish();
+            } else {
+                // Decimated paths are kept, then chart and paths are drawn to each band
+                Rectangle2D chartArea = new Rectangle2D.Double(0, 0, width / scale, height / scale);
+                BufferedImage band = new BufferedImage(width, Math.min(height, BAND_HEIGHT),
+                        BufferedImage.TYPE_INT_RGB);
+                Graphics2D g2 = createBandGraphics(band, 0);
+                chart.draw(g2, chartArea, info);
+                g2.dispose();
+                List<SeriesOutput> outputs = streamData(reader, subplots, info, null, scale);
+                for (SeriesOutput output : outputs) {
+                    output.finish();
+                }
+                PngWriter png = new PngWriter(out, width, height);
+                for (int y = 0; y < height; y += band.getHeight()) {
+                    g2 = createBandGraphics(band, y);
+                    chart.draw(g2, chartArea);
+                    for (SeriesOutput output : outputs) {
+                        output.draw(g2);
+                    }
+                    g2.dispose();
+                    png.writeRows(band, Math.min(band.getHeight(), height - y));
+                }
+                png.finish();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * @return graphics to draw band of image starting at specified row
+     */
+    private Graphics2D createBandGraphics(BufferedImage band, int y) {
+        Graphics2D g2 = band.createGraphics();
+        g2.setPaint(Color.WHITE);
+        g2.fillRect(0, 0, band.getWidth(), band.getHeight());
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.translate(0, -y);
+        g2.scale(scale, scale);
+        return g2;
+    }
+
+    /**
+     * Process log and pass output of processors to outputs of series.
+     *
+     * @param g2 graphics to draw series to, or null to keep decimated paths
+     */
+    private List<SeriesOutput> streamData(LogReader reader, Map<String, XYPlot> subplots, ChartRenderingInfo info,
+                                          Graphics2D g2, double outScale) throws IOException, FormatErrorException {
+        initProcessors();
+        List<SeriesOutput> outputs = new ArrayList<SeriesOutput>();
+        List<String> subplotNames = new ArrayList<String>(subplots.keySet());
+        int[] seriesOffsets = new int[subplots.size()];
+        for (int i = 0; i < processors.size(); i++) {
+            int subplotIdx = subplotNames.indexOf(processorsSubplots.get(i));
+            XYPlot subplot = subplots.get(processorsSubplots.get(i));
+            Rectangle2D area = info.getPlotInfo().getSubplotInfo(subplotIdx).getDataArea();
+            final SeriesOutput[] processorOutputs = new SeriesOutput[processors.get(i).getSeriesCollection()
+                    .getSeriesCount()];
+            for (int s = 0; s < processorOutputs.length; s++) {
+                int seriesIdx = seriesOffsets[subplotIdx]++;
+                processorOutputs[s] = new SeriesOutput(g2, area, subplot.getRangeAxis(), outScale,
+                        subplot.getRenderer().getItemPaint(seriesIdx, 0),
+                        subplot.getRenderer().getItemStroke(seriesIdx, 0));
+                outputs.add(processorOutputs[s]);
+            }
+            processors.get(i).setPointSink(new PlotProcessor.PointSink() {
+                @Override
+                public void addPoint(int seriesIdx, double time, double value) {
+                    processorOutputs[seriesIdx].add(time, value);
+                }
+            });
+        }
+        processLog(reader);
+        return outputs;
+    }
+
+    private void initProcessors() {
+        DerivedQuantities derivedQuantities = new DerivedQuantities();
+        for (PlotProcessor processor : processors) {
+            processor.init();
+            processor.setTimeScale(timeScale);
+            processor.setDerivedQuantities(derivedQuantities);
+        }
+    }
+
+    /**
+     * Process log in domain axis range, with extra time before the range to let processors settle.
+     */
+    private void processLog(LogReader reader) throws IOException, FormatErrorException {
+        Range range = domainAxis.getRange();
+        long timeStart = (long) ((range.getLowerBound() - range.getLength()) / timeScale * 1e6) - timeOffset;
+        long timeStop = (long) ((range.getUpperBound() + range.getLength() * 0.01) / timeScale * 1e6) - timeOffset;
+        timeStart = Math.max(reader.getStartMicroseconds(), timeStart);
+        reader.seek(timeStart);
+        Map<String, Object> data = new HashMap<String, Object>();
+        while (true) {
+            long t;
+            data.clear();
+            try {
+                t = reader.readUpdate(data);
+            } catch (EOFException e) {
+                break;
+            }
+            if (t > timeStop) {
+                break;
+            }
+            for (PlotProcessor processor : processors) {
+                processor.process((t + timeOffset) * 1e-6, data);
+            }
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package me.drton.flightplot;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cache of chart data layer rendered into image tiles of fixed width.
+ * Tiles are aligned to global pixel grid of the domain axis, so panning reuses already rendered tiles. Missing tiles
+ * are rendered on background threads, until they are ready the last complete frame is drawn rescaled instead.
+ */
+public class ChartTileCache {
+    public static final int TILE_WIDTH = 256;
+    private static final int MAX_TILES = 48;
+    // Extra pixels rendered on each side of the tile, so wide strokes are not cut at tile edges
+    private static final int MARGIN = 4;
+
+    private final Map<TileKey, BufferedImage> tiles = new LinkedHashMap<TileKey, BufferedImage>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TileKey, BufferedImage> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+    private final Set<TileKey> pending = new HashSet<TileKey>();
+    private final AtomicBoolean repaintScheduled = new AtomicBoolean(false);
+    private ExecutorService executor = null;
+    private volatile View currentView = null;
+    private Frame lastFrame = null;
+    private boolean synchronous = false;
+    private Runnable repaintCallback = null;
+
+    /**
+     * Everything that defines tile contents except tile position: data, scales and series styles.
+     */
+    public static class View {
+        private final long version;
+        private final double unitsPerPixel;
+        private final double rangeLower;
+        private final double rangeUpper;
+        private final double height;
+        private final SeriesSnapshot[] series;
+        private final Paint[] paints;
+        private final Stroke[] strokes;
+
+        /**
+         * @param version       data version, must be changed when any of the series changed
+         * @param unitsPerPixel domain axis scale
+         * @param rangeLower    range axis lower bound
+         * @param rangeUpper    range axis upper bound
+         * @param height        data area height in pixels
+         * @param series        series to draw, in drawing order
+         * @param paints        series paints
+         * @param strokes       series strokes
+         */
+        public View(long version, double unitsPerPixel, double rangeLower, double rangeUpper, double height,
+                    SeriesSnapshot[] series, Paint[] paints, Stroke[] strokes) {
+            this.version = version;
+            this.unitsPerPixel = unitsPerPixel;
+            this.rangeLower = rangeLower;
+            this.rangeUpper = rangeUpper;
+            this.height = height;
+            this.series = series;
+            this.paints = paints;
+            this.strokes = strokes;
+        }
+
+        private double getScaleY() {
+            return height / (rangeUpper - rangeLower);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof View)) {
+                return false;
+            }
+            View view = (View) o;
+            // Series are defined by version
+            return version == view.version && unitsPerPixel == view.unitsPerPixel &&
+                    rangeLower == view.rangeLower && rangeUpper == view.rangeUpper && height == view.height &&
+                    Arrays.equals(paints, view.paints) && Arrays.equals(strokes, view.strokes);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (version ^ (version >>> 32));
+            long bits = Double.doubleToLongBits(unitsPerPixel);
+            result = 31 * result + (int) (bits ^ (bits >>> 32));
+            bits = Double.doubleToLongBits(rangeLower);
+            result = 31 * result + (int) (bits ^ (bits >>> 32));
+            bits = Double.doubleToLongBits(rangeUpper);
+            result = 31 * result + (int) (bits ^ (bits >>> 32));
+            bits = Double.doubleToLongBits(height);
+            result = 31 * result + (int) (bits ^ (bits >>> 32));
+            return result;
+        }
+    }
+
+    private static class TileKey {
+        private final View view;
+        private final long index;
+
+        private TileKey(View view, long index) {
+            this.view = view;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TileKey)) {
+                return false;
+            }
+            TileKey key = (TileKey) o;
+            return index == key.index && view.equals(key.view);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * view.hashCode() + (int) (index ^ (index >>> 32));
+        }
+    }
+
+    /**
+     * Tiles drawn in last complete frame, used as placeholder while new tiles are rendered.
+     */
+    private static class Frame {
+        private final View view;
+        private final long[] indices;
+        private final BufferedImage[] images;
+
+        private Frame(View view, long[] indices, BufferedImage[] images) {
+            this.view = view;
+            this.indices = indices;
+            this.images = images;
+        }
+    }
+
+    /**
+     * Set callback to repaint the chart when new tiles are ready, callback is called in event dispatch thread.
+     */
+    public void setRepaintCallback(Runnable repaintCallback) {
+        this.repaintCallback = repaintCallback;
+    }
+
+    /**
+     * In synchronous mode missing tiles are rendered immediately in drawing thread, e.g. for printing or export.
+     */
+    public void setSynchronous(boolean synchronous) {
+        this.synchronous = synchronous;
+    }
+
+    /**
+     * Drop all tiles and last frame, e.g. when other log was opened.
+     */
+    public synchronized void clear() {
+        tiles.clear();
+        lastFrame = null;
+        currentView = null;
+    }
+
+    /**
+     * Draw data layer into data area.
+     *
+     * @param domainLower domain axis lower bound
+     */
+    public void draw(Graphics2D g2, Rectangle2D area, View view, double domainLower) {
+        currentView = view;
+        double u = view.unitsPerPixel;
+        // Screen position of the global pixel grid origin, all tiles are shifted by the same rounding error
+        long base = Math.round(area.getX() - domainLower / u);
+        int top = (int) Math.round(area.getY());
+        long first = (long) Math.floor((Math.floor(area.getMinX()) - base) / TILE_WIDTH);
+        long last = (long) Math.floor((Math.ceil(area.getMaxX()) - 1 - base) / TILE_WIDTH);
+        int n = (int) (last - first + 1);
+        long[] indices = new long[n];
+        BufferedImage[] images = new BufferedImage[n];
+        Frame fallback;
+        synchronized (this) {
+            fallback = lastFrame;
+            for (int i = 0; i < n; i++) {
+                indices[i] = first + i;
+                images[i] = tiles.get(new TileKey(view, indices[i]));
+            }
+        }
+        boolean complete = true;
+        for (int i = 0; i < n; i++) {
+            int x = (int) (base + indices[i] * TILE_WIDTH);
+            if (images[i] == null && (synchronous || fallback == null)) {
+                TileKey key = new TileKey(view, indices[i]);
+                images[i] = renderTile(key);
+                synchronized (this) {
+                    tiles.put(key, images[i]);
+                }
+            }
+            if (images[i] != null) {
+                g2.drawImage(images[i], x, top, null);
+            } else {
+                complete = false;
+                drawFallback(g2, fallback, new Rectangle(x, top, TILE_WIDTH, (int) Math.ceil(view.height)), area,
+                        view, domainLower);
+                request(new TileKey(view, indices[i]));
+            }
+        }
+        if (complete) {
+            synchronized (this) {
+                lastFrame = new Frame(view, indices, images);
+            }
+        }
+    }
+
+    /**
+     * Draw last complete frame rescaled to current view, clipped to the missing tile.
+     */
+    private static void drawFallback(Graphics2D g2, Frame frame, Rectangle clip, Rectangle2D area, View view,
+                                     double domainLower) {
+        Shape savedClip = g2.getClip();
+        g2.clip(clip);
+        double scaleX = frame.view.unitsPerPixel / view.unitsPerPixel;
+        double scaleY = view.getScaleY() / frame.view.getScaleY();
+        double y = area.getY() + (view.rangeUpper - frame.view.rangeUpper) * view.getScaleY();
+        for (int i = 0; i < frame.images.length; i++) {
+            double x = area.getX() +
+                    (frame.indices[i] * TILE_WIDTH * frame.view.unitsPerPixel - domainLower) / view.unitsPerPixel;
+            if (x > clip.getMaxX() || x + TILE_WIDTH * scaleX < clip.getMinX()) {
+                continue;
+            }
+            AffineTransform transform = AffineTransform.getTranslateInstance(x, y);
+            transform.scale(scaleX, scaleY);
+            g2.drawImage(frame.images[i], transform, null);
+        }
+        g2.setClip(savedClip);
+    }
+
+    private void request(final TileKey key) {
+        synchronized (this) {
+            if (!pending.add(key)) {
+                return;
+            }
+            if (executor == null) {
+                executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+                        new ThreadFactory() {
+                            @Override
+                            public Thread newThread(Runnable r) {
+                                Thread thread = new Thread(r, "ChartTileCache");
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+            }
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                boolean rendered = false;
+                try {
+                    // View may be changed while the tile was waiting in queue
+                    if (key.view.equals(currentView)) {
+                        BufferedImage image = renderTile(key);
+                        synchronized (ChartTileCache.this) {
+                            tiles.put(key, image);
+                        }
+                        rendered = true;
+                    }
+                } finally {
+                    synchronized (ChartTileCache.this) {
+                        pending.remove(key);
+                    }
+                }
+                if (rendered) {
+                    scheduleRepaint();
+                }
+            }
+        });
+    }
+
+    private void scheduleRepaint() {
+        if (repaintCallback != null && repaintScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    repaintScheduled.set(false);
+                    repaintCallback.run();
+                }
+            });
+        }
+    }
+
+    private static BufferedImage renderTile(TileKey key) {
+        View view = key.view;
+        BufferedImage image = new BufferedImage(TILE_WIDTH, Math.max(1, (int) Math.ceil(view.height)),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        double u = view.unitsPerPixel;
+        double scaleY = view.getScaleY();
+        double originX = (double) key.index * TILE_WIDTH;
+        double xMin = (originX - MARGIN) * u;
+        double xMax = (originX + TILE_WIDTH + MARGIN) * u;
+        for (int s = 0; s < view.series.length; s++) {
+            SeriesSnapshot series = view.series[s];
+            // Include one point on each side to draw segments crossing tile edges
+            int firstItem = Math.max(series.lowerBound(xMin) - 1, 0);
+            int lastItem = Math.min(series.lowerBound(xMax), series.size() - 1);
+            if (firstItem >= lastItem) {
+                continue;
+            }
+            Path2D path = new Path2D.Double();
+            PixelColumnDecimator decimator = PixelColumnDecimator.forPath(path, false);
+            for (int i = firstItem; i <= lastItem; i++) {
+                decimator.add(series.getX(i) / u - originX, (view.rangeUpper - series.getY(i)) * scaleY);
+            }
+            decimator.flush();
+            g2.setPaint(view.paints[s]);
+            g2.setStroke(view.strokes[s]);
+            BatchedXYLineRenderer.drawPath(g2, path, decimator.isDense());
+        }
+        g2.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,91 @@
+package me.drton.flightplot;
+
+import me.drton.flightplot.export.ColumnarFileWriter;
+import me.drton.jmavlib.log.FormatErrorException;
+import me.drton.jmavlib.log.LogReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports log fields or output of processors at full resolution to binary columnar file, see
+ * {@link ColumnarFileWriter} for file format.
+ * <p/>
+ * Log fields: each message gets INT64 column "MSG#time" with time in us, each numeric field gets FLOAT64 column
+ * "MSG.Field" with the same number of values.
+ * Processors output: each series gets FLOAT64 columns "series#time" with time in seconds and "series".
+ */
+public class ColumnarExporter extends ProcessorsExporter {
+    public static final String TIME_SUFFIX = LogColumnsWriter.TIME_SUFFIX;
+
+    public enum Source {
+        PROCESSORS("Processors output"),
+        LOG("Log fields");
+
+        private final String displayName;
+
+        Source(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    private Source source = Source.PROCESSORS;
+
+    public void setSource(Source source) {
+        this.source = source;
+    }
+
+    @Override
+    public void export(LogReader reader, File file) throws IOException, FormatErrorException {
+        ColumnarFileWriter writer = new ColumnarFileWriter(file);
+        boolean finished = false;
+        try {
+            if (source == Source.LOG) {
+                exportLog(reader, writer);
+            } else {
+                exportProcessors(reader, writer);
+            }
+            finished = true;
+        } finally {
+            if (finished) {
+                writer.close();
+            } else {
+                writer.abort();
+            }
+        }
+    }
+
+    private void exportLog(LogReader reader, ColumnarFileWriter writer) throws IOException, FormatErrorException {
+        final LogColumnsWriter columnsWriter = new LogColumnsWriter(writer);
+        readLog(reader, new UpdateHandler() {
+            @Override
+            public void update(long t, Map<String, Object> data) throws IOException {
+                columnsWriter.add(t + getTimeOffset(), data);
+            }
+        });
+    }
+
+    private void exportProcessors(LogReader reader, final ColumnarFileWriter writer)
+            throws IOException, FormatErrorException {
+        List<String> seriesNames = initProcessors();
+        final int[] columns = new int[seriesNames.size() * 2];
+        for (int s = 0; s < seriesNames.size(); s++) {
+            columns[s * 2] = writer.addColumn(seriesNames.get(s) + TIME_SUFFIX, ColumnarFileWriter.Type.FLOAT64);
+            columns[s * 2 + 1] = writer.addColumn(seriesNames.get(s), ColumnarFileWriter.Type.FLOAT64);
+        }
+        processLog(reader, new SeriesSink() {
+            @Override
+            public void addPoint(int seriesIdx, double time, double value) throws IOException {
+                writer.appendDouble(columns[seriesIdx * 2], time);
+                writer.appendDouble(columns[seriesIdx * 2 + 1], value);
+            }
+        });
+    }
+}
@@ -5,10 +5,14 @@ import me.drton.flightplot.export.ExportManager;
 import me.drton.flightplot.processors.PlotProcessor;
 import me.drton.flightplot.processors.ProcessorsList;
 import me.drton.flightplot.processors.Simple;
+import me.drton.flightplot.processors.TunableProcessor;
+import me.drton.flightplot.processors.tools.DerivedQuantities;
+import me.drton.flightplot.query.EventQueryDialog;
+import me.drton.flightplot.tuning.LogCache;
+import me.drton.flightplot.tuning.ProcessorTuner;
 import me.drton.jmavlib.log.FormatErrorException;
 import me.drton.jmavlib.log.LogReader;
 import me.drton.jmavlib.log.PX4LogReader;
-import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.DateAxis;
@@ -17,6 +21,7 @@ import org.jfree.chart.axis.ValueAxis;
 import org.jfree.chart.event.ChartChangeEvent;
 import org.jfree.chart.event.ChartChangeEventType;
 import org.jfree.chart.event.ChartChangeListener;
+import org.jfree.chart.plot.CombinedDomainXYPlot;
 import org.jfree.chart.plot.DefaultDrawingSupplier;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.plot.XYPlot;
@@ -39,7 +44,11 @@ import java.nio.charset.Charset;
 import java.text.NumberFormat;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.prefs.BackingStoreException;
 import java.util.prefs.Preferences;
 
@@ -53,6 +62,7 @@ public class FlightPlot {
     private JTable parametersTable;
     private DefaultTableModel parametersTableModel;
     private ChartPanel chartPanel;
+    private OverviewPanel overviewPanel;
     private JList processorsList;
     private DefaultListModel processorsListModel;
     private TableModelListener parameterChangedListener;
@@ -70,20 +80,59 @@ public class FlightPlot {
     private static String appNameAndVersion = appName + " v." + version;
     private final Preferences preferences;
     private LogReader logReader = null;
-    private XYSeriesCollection dataset;
+    private String logFileName = null;
     private JFreeChart jFreeChart;
+    private CombinedDomainXYPlot combinedPlot;
+    private Map<String, XYPlot> subplots = new LinkedHashMap<String, XYPlot>();
+    private Runnable tilesRepaintCallback;
+    private boolean stackedSubplots = false;
+    private JCheckBoxMenuItem stackedSubplotsItem;
+    private ValueReadoutOverlay valueReadoutOverlay = new ValueReadoutOverlay();
+    private JCheckBoxMenuItem valueReadoutItem;
     private ProcessorsList processorsTypesList;
     private File lastLogDirectory = null;
     private File lastPresetDirectory = null;
     private AddProcessorDialog addProcessorDialog;
     private FieldsListDialog fieldsListDialog;
+    private EventQueryDialog eventQueryDialog;
+    private StatisticsDialog statisticsDialog;
+    // Start of selection being dragged for statistics in units of domain axis, NaN if not dragging
+    private double statisticsSelectionStart = Double.NaN;
+    // Log, time mode and processors of statistics shown in statistics dialog
+    private String statisticsSignature = null;
     private LogInfo logInfo;
     private FileNameExtensionFilter logExtensionFilter = new FileNameExtensionFilter("PX4/APM Logs (*.bin)", "bin");
     private FileNameExtensionFilter presetExtensionFilter = new FileNameExtensionFilter("FlightPlot Presets (*.fplot)",
             "fplot");
     private AtomicBoolean invokeProcessFile = new AtomicBoolean(false);
+    private javax.swing.Timer processFileTimer;
+    private long lastProcessingTime = 0;
+    private static final int PROCESS_DELAY_MIN = 40;
+    private static final int PROCESS_DELAY_MAX = 500;
+    // Coarse pass of processing uses decimated log, available when the log is read in background after opening
+    private LogPyramid logPyramid = null;
+    private static final int PYRAMID_LEVELS = 3;
+    private static final int PYRAMID_BUCKETS = 1000;
+    private static final int COARSE_PASS_POINTS = 500;
+    // Full resolution pass runs in background, results of outdated passes are dropped
+    private final AtomicLong processingGeneration = new AtomicLong(0);
+    private final ExecutorService processingExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Processing");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    // Log reader of processing thread, accessed only from this thread
+    private LogReader processingReader = null;
+    private String processingReaderFileName = null;
+    private boolean updatingSubplots = false;
     private ExportManager exportManager = new ExportManager();
+    private javax.swing.Timer exportTrackProgressTimer = null;
     private PreferencesUtil preferencesUtil = new PreferencesUtil();
+    private volatile LogCache tuningLogCache = null;
+    private ProcessorTuner processorTuner = null;
     private NumberAxis domainAxisSeconds;
     private DateAxis domainAxisDate;
     private int timeMode = 0;
@@ -102,6 +151,13 @@ public class FlightPlot {
     public static void main(String[] args)
             throws ClassNotFoundException, UnsupportedLookAndFeelException, InstantiationException,
                    IllegalAccessException {
+        // Other arguments may be passed by launchers (e.g. -psn_... on Mac OS X), these start GUI as usual
+        List<String> argsList = Arrays.asList(args);
+        if (argsList.contains("-log") && argsList.contains("-out")) {
+            System.setProperty("java.awt.headless", "true");
+            exportChartImageCommandLine(args);
+            return;
+        }
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
@@ -157,6 +213,17 @@ public class FlightPlot {
                 processFile();
             }
         });
+        eventQueryDialog = new EventQueryDialog(new EventQueryDialog.Listener() {
+            @Override
+            public void intervalSelected(long start, long end) {
+                if (logReader != null) {
+                    // Show some time around the interval
+                    double margin = Math.max((end - start) * 0.1e-6, 1.0);
+                    setLogRange(new Range(start * 1e-6 - margin, end * 1e-6 + margin));
+                }
+            }
+        });
+        statisticsDialog = new StatisticsDialog();
         logInfo = new LogInfo();
         addProcessorButton.addActionListener(new ActionListener() {
             @Override
@@ -304,6 +371,8 @@ public class FlightPlot {
         preferencesUtil.loadWindowPreferences(mainFrame, preferences.node("MainWindow"), 800, 600);
         preferencesUtil.loadWindowPreferences(fieldsListDialog, preferences.node("FieldsListDialog"), 300, 600);
         preferencesUtil.loadWindowPreferences(addProcessorDialog, preferences.node("AddProcessorDialog"), -1, -1);
+        preferencesUtil.loadWindowPreferences(eventQueryDialog, preferences.node("EventQueryDialog"), 500, 400);
+        preferencesUtil.loadWindowPreferences(statisticsDialog, preferences.node("StatisticsDialog"), 700, 300);
         preferencesUtil.loadWindowPreferences(logInfo.getFrame(), preferences.node("LogInfoFrame"), 600, 600);
         String logDirectoryStr = preferences.get("LogDirectory", null);
         if (logDirectoryStr != null) {
@@ -323,6 +392,9 @@ public class FlightPlot {
         }
         timeMode = Integer.parseInt(preferences.get("TimeMode", "0"));
         timeModeItems[timeMode].setSelected(true);
+        stackedSubplots = Boolean.parseBoolean(preferences.get("StackedSubplots", "false"));
+        stackedSubplotsItem.setSelected(stackedSubplots);
+        valueReadoutItem.setSelected(Boolean.parseBoolean(preferences.get("ValueReadout", "false")));
         this.exportManager.loadPreferences(preferences.node("ExportManager"));
     }
 
@@ -334,6 +406,8 @@ public class FlightPlot {
         preferencesUtil.saveWindowPreferences(mainFrame, preferences.node("MainWindow"));
         preferencesUtil.saveWindowPreferences(fieldsListDialog, preferences.node("FieldsListDialog"));
         preferencesUtil.saveWindowPreferences(addProcessorDialog, preferences.node("AddProcessorDialog"));
+        preferencesUtil.saveWindowPreferences(eventQueryDialog, preferences.node("EventQueryDialog"));
+        preferencesUtil.saveWindowPreferences(statisticsDialog, preferences.node("StatisticsDialog"));
         preferencesUtil.saveWindowPreferences(logInfo.getFrame(), preferences.node("LogInfoFrame"));
         if (lastLogDirectory != null) {
             preferences.put("LogDirectory", lastLogDirectory.getAbsolutePath());
@@ -350,6 +424,8 @@ public class FlightPlot {
             }
         }
         preferences.put("TimeMode", Integer.toString(timeMode));
+        preferences.put("StackedSubplots", Boolean.toString(stackedSubplots));
+        preferences.put("ValueReadout", Boolean.toString(valueReadoutItem.isSelected()));
         this.exportManager.savePreferences(preferences.node("ExportManager"));
     }
 
@@ -360,6 +436,7 @@ public class FlightPlot {
                 PlotProcessor processor = processorsTypesList.getProcessorInstance(pp.getProcessorType());
                 if (processor != null) {
                     processor.setTitle(pp.getTitle());
+                    processor.setSubplot(pp.getSubplot());
                     processor.setParameters(pp.getParameters());
                     processorsListModel.addElement(processor);
                 }
@@ -381,17 +458,12 @@ public class FlightPlot {
     private void createUIComponents() throws IllegalAccessException, InstantiationException {
         // Chart panel
         processorsTypesList = new ProcessorsList();
-        dataset = new XYSeriesCollection();
-        jFreeChart = ChartFactory.createXYLineChart("", "", "", null, PlotOrientation.VERTICAL, true, true, false);
-        jFreeChart.getXYPlot().setDataset(dataset);
-        jFreeChart.getXYPlot().setDrawingSupplier(new ChartDrawingSupplier());
-
-        // Set plot colors
-        XYPlot plot = jFreeChart.getXYPlot();
-        plot.setBackgroundPaint(Color.WHITE);
-        plot.setDomainGridlinePaint(Color.LIGHT_GRAY);
-        plot.setRangeGridlinePaint(Color.LIGHT_GRAY);
-
+        // Subplots with own range axes share domain axis, all subplots are filled by one processing pass
+        combinedPlot = new CombinedDomainXYPlot();
+        combinedPlot.setGap(10.0);
+        combinedPlot.setOrientation(PlotOrientation.VERTICAL);
+        combinedPlot.setDrawingSupplier(new ChartDrawingSupplier());
+        jFreeChart = new JFreeChart("", JFreeChart.DEFAULT_TITLE_FONT, combinedPlot, true);
         // Domain (X) axis - seconds
         domainAxisSeconds = new NumberAxis("T") {
             // Use default auto range to adjust range
@@ -415,21 +487,102 @@ public class FlightPlot {
         domainAxisDate.setUpperMargin(0.0);
 
         // Use seconds by default
-        plot.setDomainAxis(domainAxisSeconds);
-
-        // Range (Y) axis
-        NumberAxis rangeAxis = (NumberAxis) plot.getRangeAxis();
-        rangeAxis.setAutoRangeIncludesZero(false);
+        combinedPlot.setDomainAxis(domainAxisSeconds);
 
         chartPanel = new ChartPanel(jFreeChart);
         chartPanel.setMouseWheelEnabled(true);
         chartPanel.setMouseZoomable(true, false);
         chartPanel.setPopupMenu(null);
+        tilesRepaintCallback = new Runnable() {
+            @Override
+            public void run() {
+                // Chart is not changed, only redraw buffer with new tiles
+                chartPanel.setRefreshBuffer(true);
+                chartPanel.repaint();
+            }
+        };
+        updateSubplots(new PlotProcessor[0]);
+        chartPanel.addOverlay(valueReadoutOverlay);
+        MouseAdapter readoutMouseAdapter = new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                if (valueReadoutItem.isSelected()) {
+                    valueReadoutOverlay.setTime(ValueReadoutOverlay.screenToTime(chartPanel, e.getX()));
+                }
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                valueReadoutOverlay.setTime(Double.NaN);
+            }
+        };
+        chartPanel.addMouseListener(readoutMouseAdapter);
+        chartPanel.addMouseMotionListener(readoutMouseAdapter);
+        MouseAdapter statisticsMouseAdapter = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                // Zoom selection, other modifiers are used for panning
+                if (statisticsDialog.isVisible() && SwingUtilities.isLeftMouseButton(e) && !e.isControlDown() &&
+                        !e.isAltDown() && !e.isMetaDown()) {
+                    statisticsSelectionStart = ValueReadoutOverlay.screenToTime(chartPanel, e.getX());
+                }
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (!Double.isNaN(statisticsSelectionStart)) {
+                    double t = ValueReadoutOverlay.screenToTime(chartPanel, e.getX());
+                    if (t > statisticsSelectionStart) {
+                        updateStatistics(statisticsSelectionStart, t, true);
+                    } else {
+                        // Dragging to the left zooms out, show displayed range
+                        updateStatistics();
+                    }
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (!Double.isNaN(statisticsSelectionStart)) {
+                    statisticsSelectionStart = Double.NaN;
+                    updateStatistics();
+                }
+            }
+        };
+        chartPanel.addMouseListener(statisticsMouseAdapter);
+        chartPanel.addMouseMotionListener(statisticsMouseAdapter);
+
+        // Overview of the whole log
+        overviewPanel = new OverviewPanel();
+        overviewPanel.setRangeListener(new OverviewPanel.RangeListener() {
+            @Override
+            public void rangeSelected(double start, double end) {
+                if (logReader != null) {
+                    setLogRange(new Range(start, end));
+                }
+            }
+        });
+        processFileTimer = new javax.swing.Timer(PROCESS_DELAY_MIN, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                processFile();
+            }
+        });
+        processFileTimer.setRepeats(false);
         jFreeChart.addChangeListener(new ChartChangeListener() {
             @Override
             public void chartChanged(ChartChangeEvent chartChangeEvent) {
-                if (chartChangeEvent.getType() == ChartChangeEventType.GENERAL) {
-                    processFile();
+                if (logReader != null) {
+                    Range range = getLogRange(timeMode);
+                    overviewPanel.setWindow(range.getLowerBound(), range.getUpperBound());
+                }
+                if (Double.isNaN(statisticsSelectionStart)) {
+                    updateStatistics();
+                }
+                // Ignore changes caused by processing itself
+                if (chartChangeEvent.getType() == ChartChangeEventType.GENERAL && !invokeProcessFile.get() &&
+                        !updatingSubplots) {
+                    processFileDelayed();
                 }
             }
         });
@@ -525,6 +678,51 @@ public class FlightPlot {
         });
         fileMenu.add(exportTrackItem);
 
+        JMenuItem exportTracksBatchItem = new JMenuItem("Export Tracks of Directory...");
+        exportTracksBatchItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                exportTracksBatch();
+            }
+        });
+        fileMenu.add(exportTracksBatchItem);
+
+        JMenuItem cancelExportTrackItem = new JMenuItem("Cancel Track Export");
+        cancelExportTrackItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                exportManager.cancel();
+            }
+        });
+        fileMenu.add(cancelExportTrackItem);
+
+        JMenuItem exportChartImageItem = new JMenuItem("Export Chart Image...");
+        exportChartImageItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                exportChartImage();
+            }
+        });
+        fileMenu.add(exportChartImageItem);
+
+        JMenuItem exportCsvItem = new JMenuItem("Export Processors CSV...");
+        exportCsvItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                exportProcessorsCsv();
+            }
+        });
+        fileMenu.add(exportCsvItem);
+
+        JMenuItem exportColumnarItem = new JMenuItem("Export Binary Columns...");
+        exportColumnarItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                exportColumnar();
+            }
+        });
+        fileMenu.add(exportColumnarItem);
+
         if (!OSValidator.isMac()) {
             fileMenu.add(new JPopupMenu.Separator());
             JMenuItem exitItem = new JMenuItem("Exit");
@@ -557,10 +755,80 @@ public class FlightPlot {
             viewMenu.add(item);
         }
 
+        viewMenu.addSeparator();
+        stackedSubplotsItem = new JCheckBoxMenuItem("Stacked Subplots");
+        stackedSubplotsItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                stackedSubplots = stackedSubplotsItem.isSelected();
+                processFile();
+            }
+        });
+        viewMenu.add(stackedSubplotsItem);
+
+        valueReadoutItem = new JCheckBoxMenuItem("Value Readout");
+        valueReadoutItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (!valueReadoutItem.isSelected()) {
+                    valueReadoutOverlay.setTime(Double.NaN);
+                }
+            }
+        });
+        viewMenu.add(valueReadoutItem);
+
+        JMenuItem statisticsItem = new JMenuItem("Range Statistics...");
+        statisticsItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                statisticsDialog.setVisible(true);
+                if (statisticsDialog.hasStatistics()) {
+                    updateStatistics();
+                } else {
+                    // Statistics are collected only while dialog is shown
+                    processFile();
+                }
+            }
+        });
+        viewMenu.add(statisticsItem);
+
+        // Tools menu
+        JMenu toolsMenu = new JMenu("Tools");
+
+        JMenuItem tuneProcessorItem = new JMenuItem("Tune Processor Parameters");
+        tuneProcessorItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                tuneSelectedProcessor();
+            }
+        });
+        toolsMenu.add(tuneProcessorItem);
+
+        JMenuItem stopTuningItem = new JMenuItem("Stop Tuning");
+        stopTuningItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (processorTuner != null) {
+                    processorTuner.cancel();
+                }
+            }
+        });
+        toolsMenu.add(stopTuningItem);
+
+        JMenuItem findEventsItem = new JMenuItem("Find Events...");
+        findEventsItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                eventQueryDialog.setVisible(true);
+            }
+        });
+        toolsMenu.add(findEventsItem);
+
         // Menu bar
         JMenuBar menuBar = new JMenuBar();
         menuBar.add(fileMenu);
         menuBar.add(viewMenu);
+        menuBar.add(toolsMenu);
         mainFrame.setJMenuBar(menuBar);
     }
 
@@ -613,6 +881,20 @@ public class FlightPlot {
         }
     }
 
+    /**
+     * Set displayed range in seconds of native log time.
+     */
+    private void setLogRange(Range range) {
+        long timeOffset = getTimeOffset(timeMode);
+        ValueAxis domainAxis = selectDomainAxis(timeMode);
+        if (domainAxis == domainAxisDate) {
+            domainAxis.setRange(range.getLowerBound() * 1e3 + timeOffset * 1e-3,
+                    range.getUpperBound() * 1e3 + timeOffset * 1e-3);
+        } else {
+            domainAxis.setRange(range.getLowerBound() + timeOffset * 1e-6, range.getUpperBound() + timeOffset * 1e-6);
+        }
+    }
+
     public void setStatus(String status) {
         statusLabel.setText(status);
     }
@@ -628,7 +910,11 @@ public class FlightPlot {
         if (returnVal == JFileChooser.APPROVE_OPTION) {
             lastLogDirectory = fc.getCurrentDirectory();
             File file = fc.getSelectedFile();
-            String logFileName = file.getPath();
+            logFileName = file.getPath();
+            tuningLogCache = null;
+            for (XYPlot subplot : subplots.values()) {
+                ((TiledXYLineRenderer) subplot.getRenderer()).getTileCache().clear();
+            }
             mainFrame.setTitle(appNameAndVersion + " - " + logFileName);
             if (logReader != null) {
                 try {
@@ -643,13 +929,21 @@ public class FlightPlot {
                 logInfo.updateInfo(logReader);
             } catch (Exception e) {
                 logReader = null;
+                logFileName = null;
                 setStatus("Error: " + e);
                 e.printStackTrace();
             }
             fieldsListDialog.setFieldsList(logReader.getFields());
+            eventQueryDialog.setLogFile(logFileName);
+            statisticsDialog.setStatistics(Collections.<String, SeriesStatistics>emptyMap(), Double.NaN,
+                    Double.NaN);
+            statisticsSignature = null;
+            readLogOverview();
             onTimeModeChanged();
             jFreeChart.getXYPlot().getDomainAxis().setAutoRange(true);
-            jFreeChart.getXYPlot().getRangeAxis().setAutoRange(true);
+            for (XYPlot subplot : subplots.values()) {
+                subplot.getRangeAxis().setAutoRange(true);
+            }
             processFile();
         }
     }
@@ -666,17 +960,7 @@ public class FlightPlot {
             lastPresetDirectory = fc.getCurrentDirectory();
             File file = fc.getSelectedFile();
             try {
-                byte[] b = new byte[(int) file.length()];
-                FileInputStream fileInputStream = new FileInputStream(file);
-                int n = 0;
-                while (n < b.length) {
-                    int r = fileInputStream.read(b, n, b.length - n);
-                    if (r <= 0) {
-                        throw new Exception("Read error");
-                    }
-                    n += r;
-                }
-                Preset preset = Preset.unpackJSONObject(new JSONObject(new String(b, Charset.forName("utf8"))));
+                Preset preset = Preset.readJSONFile(file);
                 loadPreset(preset);
                 processFile();
             } catch (Exception e) {
@@ -719,21 +1003,23 @@ public class FlightPlot {
             return;
         }
 
+        if (exportTrackProgressTimer != null) {
+            JOptionPane.showMessageDialog(mainFrame, "Track export is already running.", "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
         try {
             ExportData data = new ExportData();
-            Range timeAxisRange = jFreeChart.getXYPlot().getDomainAxis().getRange();
-            data.setChartRangeFrom((long) (timeAxisRange.getLowerBound() * 1000000));
-            data.setChartRangeTo((long) (timeAxisRange.getUpperBound() * 1000000));
+            // Displayed range in native log time, independent of time mode
+            Range logRange = getLogRange(timeMode);
+            data.setChartRangeFrom((long) (logRange.getLowerBound() * 1000000));
+            data.setChartRangeTo((long) (logRange.getUpperBound() * 1000000));
             data.setLogReader(this.logReader);
+            data.setLogFile(new File(logFileName));
 
-            boolean exportStarted = this.exportManager.export(data, new Runnable() {
-                @Override
-                public void run() {
-                    showExportTrackStatusMessage(FlightPlot.this.exportManager.getLastStatusMessage());
-                }
-            });
-            if (exportStarted) {
-                showExportTrackStatusMessage("Exporting...");
+            if (this.exportManager.export(data, createExportTrackFinishedCallback())) {
+                startExportTrackProgress();
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -741,11 +1027,479 @@ public class FlightPlot {
         }
     }
 
+    public void exportTracksBatch() {
+        if (exportTrackProgressTimer != null) {
+            JOptionPane.showMessageDialog(mainFrame, "Track export is already running.", "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (this.exportManager.exportDirectory(createExportTrackFinishedCallback())) {
+            startExportTrackProgress();
+        }
+    }
+
+    private Runnable createExportTrackFinishedCallback() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        exportTrackProgressTimer.stop();
+                        exportTrackProgressTimer = null;
+                        showExportTrackStatusMessage(exportManager.getLastStatusMessage());
+                    }
+                });
+            }
+        };
+    }
+
+    private void startExportTrackProgress() {
+        showExportTrackStatusMessage("Exporting...");
+        exportTrackProgressTimer = new javax.swing.Timer(250, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showExportTrackStatusMessage(String.format(Locale.ROOT, "Exporting... %.0f%%",
+                        exportManager.getProgress() * 100.0));
+            }
+        });
+        exportTrackProgressTimer.start();
+    }
+
+    public void exportChartImage() {
+        if (null == this.logReader) {
+            JOptionPane.showMessageDialog(mainFrame, "Log file must be opened first.", "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JFileChooser fc = new JFileChooser();
+        FileNameExtensionFilter pngFilter = new FileNameExtensionFilter("PNG Image (*.png)", "png");
+        FileNameExtensionFilter svgFilter = new FileNameExtensionFilter("SVG Image (*.svg)", "svg");
+        fc.addChoosableFileFilter(pngFilter);
+        fc.addChoosableFileFilter(svgFilter);
+        fc.setFileFilter(pngFilter);
+        fc.setDialogTitle("Export Chart Image");
+        if (fc.showDialog(mainFrame, "Export") != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        String fileName = fc.getSelectedFile().toString();
+        String lowerName = fileName.toLowerCase();
+        if (!lowerName.endsWith(".png") && !lowerName.endsWith(".svg")) {
+            fileName += svgFilter == fc.getFileFilter() ? ".svg" : ".png";
+        }
+        String sizeStr = (String) JOptionPane.showInputDialog(mainFrame, "Image size in pixels (WIDTHxHEIGHT):",
+                "Export Chart Image", JOptionPane.QUESTION_MESSAGE, null, null,
+                chartPanel.getWidth() + "x" + chartPanel.getHeight());
+        if (sizeStr == null) {
+            return;
+        }
+        final ChartImageExporter exporter = new ChartImageExporter();
+        try {
+            int[] size = parseImageSize(sizeStr);
+            exporter.setSize(size[0], size[1], 1.0);
+            exporter.setDomainAxis(selectDomainAxis(timeMode));
+            exporter.setTime(getTimeOffset(timeMode), (selectDomainAxis(timeMode) == domainAxisDate) ? 1000.0 : 1.0);
+            exporter.setDrawingSupplier(new ChartDrawingSupplier());
+            // Processors are copied, export runs in background and must not interfere with the chart
+            for (int i = 0; i < processorsListModel.size(); i++) {
+                PlotProcessor processor = (PlotProcessor) processorsListModel.get(i);
+                String subplot = stackedSubplots ? processor.getSubplotTitle() : "";
+                exporter.addProcessor(copyProcessor(processor), subplot);
+            }
+            // Keep ranges and colors as displayed
+            for (Map.Entry<String, XYPlot> entry : subplots.entrySet()) {
+                XYPlot subplot = entry.getValue();
+                exporter.setSubplotRange(entry.getKey(), subplot.getRangeAxis().getRange());
+                XYSeriesCollection subplotDataset = (XYSeriesCollection) subplot.getDataset();
+                for (int s = 0; s < subplotDataset.getSeriesCount(); s++) {
+                    exporter.setSeriesPaint(subplotDataset.getSeriesKey(s).toString(),
+                            subplot.getRenderer().getItemPaint(s, 0));
+                }
+            }
+        } catch (Exception e) {
+            setStatus("Error: " + e);
+            e.printStackTrace();
+            return;
+        }
+        final File file = new File(fileName);
+        final String logName = logFileName;
+        setStatus("Exporting chart image...");
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                String status;
+                try {
+                    LogReader reader = new PX4LogReader(logName);
+                    try {
+                        exporter.export(reader, file, ChartImageExporter.Format.fromFileName(file.getName()));
+                    } finally {
+                        reader.close();
+                    }
+                    status = "Chart image exported: " + file.getName();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    status = "Error: " + e;
+                }
+                final String finalStatus = status;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        setStatus(finalStatus);
+                    }
+                });
+            }
+        }).start();
+    }
+
+    public void exportProcessorsCsv() {
+        final JComboBox layoutComboBox = new JComboBox(ProcessorCsvExporter.Layout.values());
+        final ProcessorCsvExporter exporter = new ProcessorCsvExporter();
+        exportProcessors(exporter, "Export Processors CSV", "Layout", layoutComboBox,
+                new FileNameExtensionFilter("CSV File (*.csv)", "csv"), new Runnable() {
+                    @Override
+                    public void run() {
+                        exporter.setLayout((ProcessorCsvExporter.Layout) layoutComboBox.getSelectedItem());
+                    }
+                });
+    }
+
+    public void exportColumnar() {
+        final JComboBox sourceComboBox = new JComboBox(ColumnarExporter.Source.values());
+        final ColumnarExporter exporter = new ColumnarExporter();
+        exportProcessors(exporter, "Export Binary Columns", "Data", sourceComboBox,
+                new FileNameExtensionFilter("FlightPlot Columns (*.fpcol)", "fpcol"), new Runnable() {
+                    @Override
+                    public void run() {
+                        exporter.setSource((ColumnarExporter.Source) sourceComboBox.getSelectedItem());
+                    }
+                });
+    }
+
+    /**
+     * Show export options and file chooser, then export output of copies of processors in background.
+     *
+     * @param optionLabel    label of exporter specific option
+     * @param optionComboBox exporter specific option
+     * @param applyOption    applies selected exporter specific option to exporter
+     */
+    private void exportProcessors(final ProcessorsExporter exporter, String title, String optionLabel,
+                                  JComboBox optionComboBox, FileNameExtensionFilter filter, Runnable applyOption) {
+        if (null == this.logReader) {
+            JOptionPane.showMessageDialog(mainFrame, "Log file must be opened first.", "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JComboBox rangeComboBox = new JComboBox(new String[]{"Displayed range", "Whole log"});
+        JPanel optionsPanel = new JPanel(new GridLayout(2, 2, 5, 5));
+        optionsPanel.add(new JLabel(optionLabel));
+        optionsPanel.add(optionComboBox);
+        optionsPanel.add(new JLabel("Time range"));
+        optionsPanel.add(rangeComboBox);
+        if (JOptionPane.showConfirmDialog(mainFrame, optionsPanel, title, JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        JFileChooser fc = new JFileChooser();
+        fc.setFileFilter(filter);
+        fc.setDialogTitle(title);
+        if (fc.showDialog(mainFrame, "Export") != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        String fileName = fc.getSelectedFile().toString();
+        String extension = "." + filter.getExtensions()[0];
+        if (!fileName.toLowerCase().endsWith(extension)) {
+            fileName += extension;
+        }
+        try {
+            applyOption.run();
+            exporter.setTimeOffset(getTimeOffset(timeMode));
+            if (rangeComboBox.getSelectedIndex() == 0) {
+                Range range = getLogRange(timeMode);
+                exporter.setTimeRange((long) (range.getLowerBound() * 1e6), (long) (range.getUpperBound() * 1e6));
+            }
+            // Processors are copied, export runs in background and must not interfere with the chart
+            for (int i = 0; i < processorsListModel.size(); i++) {
+                exporter.addProcessor(copyProcessor((PlotProcessor) processorsListModel.get(i)));
+            }
+        } catch (Exception e) {
+            setStatus("Error: " + e);
+            e.printStackTrace();
+            return;
+        }
+        final File file = new File(fileName);
+        final String logName = logFileName;
+        setStatus("Exporting " + file.getName() + "...");
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                String status;
+                try {
+                    LogReader reader = new PX4LogReader(logName);
+                    try {
+                        exporter.export(reader, file);
+                    } finally {
+                        reader.close();
+                    }
+                    status = "Exported: " + file.getName();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    status = "Error: " + e;
+                }
+                final String finalStatus = status;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        setStatus(finalStatus);
+                    }
+                });
+            }
+        }).start();
+    }
+
+    private static int[] parseImageSize(String str) {
+        String[] parts = str.trim().toLowerCase().split("x");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid image size: " + str);
+        }
+        int width = Integer.parseInt(parts[0].trim());
+        int height = Integer.parseInt(parts[1].trim());
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image size: " + str);
+        }
+        return new int[]{width, height};
+    }
+
+    /**
+     * Export chart image without GUI, arguments: -log FILE -preset FILE -out FILE [-size WxH] [-scale S]
+     * [-range FROM,TO] [-stacked]. Range is in seconds from log start. Used if both -log and -out are specified.
+     */
+    private static void exportChartImageCommandLine(String[] args) {
+        String logName = null;
+        String presetName = null;
+        String outName = null;
+        int[] size = new int[]{1920, 1080};
+        double scale = 1.0;
+        double[] range = null;
+        boolean stacked = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("-stacked")) {
+                    stacked = true;
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                if (arg.equals("-log")) {
+                    logName = value;
+                } else if (arg.equals("-preset")) {
+                    presetName = value;
+                } else if (arg.equals("-out")) {
+                    outName = value;
+                } else if (arg.equals("-size")) {
+                    size = parseImageSize(value);
+                } else if (arg.equals("-scale")) {
+                    scale = Double.parseDouble(value);
+                } else if (arg.equals("-range")) {
+                    String[] parts = value.split(",");
+                    if (parts.length != 2) {
+                        throw new IllegalArgumentException("Invalid range: " + value);
+                    }
+                    range = new double[]{Double.parseDouble(parts[0]), Double.parseDouble(parts[1])};
+                } else {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            if (logName == null || presetName == null || outName == null) {
+                throw new IllegalArgumentException("-log, -preset and -out options are required");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: " + appName + " -log FILE -preset FILE -out FILE.png|FILE.svg" +
+                    " [-size WxH] [-scale S] [-range FROM,TO] [-stacked]");
+            System.exit(2);
+            return;
+        }
+        try {
+            ChartImageExporter exporter = new ChartImageExporter();
+            exporter.setSize(size[0], size[1], scale);
+            exporter.setDrawingSupplier(new ChartDrawingSupplier());
+            ProcessorsList processorsList = new ProcessorsList();
+            Preset preset = Preset.readJSONFile(new File(presetName));
+            for (ProcessorPreset pp : preset.getProcessorPresets()) {
+                PlotProcessor processor = processorsList.getProcessorInstance(pp.getProcessorType());
+                if (processor == null) {
+                    System.err.println("Unknown processor type: " + pp.getProcessorType());
+                    continue;
+                }
+                processor.setTitle(pp.getTitle());
+                processor.setSubplot(pp.getSubplot());
+                processor.setParameters(pp.getParameters());
+                exporter.addProcessor(processor, stacked ? processor.getSubplotTitle() : "");
+            }
+            LogReader reader = new PX4LogReader(logName);
+            try {
+                NumberAxis domainAxis = new NumberAxis("T");
+                domainAxis.setAutoRangeIncludesZero(false);
+                if (range == null) {
+                    range = new double[]{0.0, reader.getSizeMicroseconds() * 1e-6};
+                }
+                domainAxis.setRange(range[0], range[1]);
+                exporter.setDomainAxis(domainAxis);
+                exporter.setTime(-reader.getStartMicroseconds(), 1.0);
+                exporter.export(reader, new File(outName), ChartImageExporter.Format.fromFileName(outName));
+            } finally {
+                reader.close();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
     private void showExportTrackStatusMessage(String message) {
         setStatus(String.format("Track export: %s", message));
     }
 
+    public void tuneSelectedProcessor() {
+        if (null == this.logReader) {
+            JOptionPane.showMessageDialog(mainFrame, "Log file must be opened first.", "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        final PlotProcessor processor = (PlotProcessor) processorsList.getSelectedValue();
+        if (!(processor instanceof TunableProcessor)) {
+            JOptionPane.showMessageDialog(mainFrame, "Selected processor doesn't support tuning.", "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (processorTuner != null) {
+            JOptionPane.showMessageDialog(mainFrame, "Tuning is already running.", "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        final ProcessorTuner tuner = new ProcessorTuner(processor);
+        final Set<String> fields = tuner.getRequiredFields(logReader.getFields().keySet());
+        final String fileName = logFileName;
+        tuner.setProgressCallback(new Runnable() {
+            @Override
+            public void run() {
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        setStatus("Tuning: " + tuner.getStatusMessage());
+                    }
+                });
+            }
+        });
+        tuner.setFinishedCallback(new Runnable() {
+            @Override
+            public void run() {
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        onTuningFinished(tuner, processor);
+                    }
+                });
+            }
+        });
+        processorTuner = tuner;
+        setStatus("Tuning: reading log...");
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                // Decoded log data is reused for all candidates and for next tuning runs on the same log
+                LogCache cache = tuningLogCache;
+                if (cache == null || !cache.containsFields(fields)) {
+                    try {
+                        // Use separate reader to not interfere with plot processing
+                        LogReader reader = new PX4LogReader(fileName);
+                        try {
+                            cache = LogCache.read(reader, fields);
+                        } finally {
+                            reader.close();
+                        }
+                        tuningLogCache = cache;
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        cache = null;
+                    }
+                }
+                tuner.setLogCache(cache);
+                tuner.run();
+            }
+        }).start();
+    }
+
+    /**
+     * Read whole log in background to get overview envelope and decimated log for coarse processing pass.
+     */
+    private void readLogOverview() {
+        overviewPanel.setEnvelope(null);
+        logPyramid = null;
+        final String fileName = logFileName;
+        if (fileName == null) {
+            return;
+        }
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    LogReader reader = new PX4LogReader(fileName);
+                    final LogEnvelope envelope = new LogEnvelope(reader, 1000);
+                    final LogPyramid pyramid = new LogPyramid(reader, PYRAMID_LEVELS, PYRAMID_BUCKETS);
+                    try {
+                        reader.seek(0);
+                        Map<String, Object> data = new HashMap<String, Object>();
+                        while (true) {
+                            long t;
+                            data.clear();
+                            try {
+                                t = reader.readUpdate(data);
+                            } catch (EOFException e) {
+                                break;
+                            }
+                            envelope.add(t, data);
+                            pyramid.add(t, data);
+                        }
+                    } finally {
+                        reader.close();
+                    }
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            // Other log may be opened meanwhile
+                            if (fileName.equals(logFileName)) {
+                                overviewPanel.setEnvelope(envelope);
+                                logPyramid = pyramid;
+                            }
+                        }
+                    });
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }).start();
+    }
+
+    private void onTuningFinished(ProcessorTuner tuner, PlotProcessor processor) {
+        processorTuner = null;
+        Map<String, Object> bestParameters = tuner.getBestParameters();
+        if (bestParameters != null) {
+            processor.setParameters(bestParameters);
+            updatePresetEdited(true);
+            showProcessorParameters();
+            processFile();
+        }
+        setStatus("Tuning: " + tuner.getStatusMessage());
+    }
+
     private void processFile() {
+        // Pending delayed processing is covered by this one
+        processFileTimer.stop();
         if (logReader != null) {
             if (invokeProcessFile.compareAndSet(false, true)) {
                 setStatus("Processing...");
@@ -754,7 +1508,6 @@ public class FlightPlot {
                     public void run() {
                         try {
                             generateSeries();
-                            setStatus(" ");
                         } catch (Exception e) {
                             setStatus("Error: " + e);
                             e.printStackTrace();
@@ -766,6 +1519,16 @@ public class FlightPlot {
         }
     }
 
+    /**
+     * Process file when chart changes settle, e.g. after mouse wheel zoom. Until then chart shows existing data
+     * rescaled. Delay is adapted to processing time, so fast processing follows input closely.
+     */
+    private void processFileDelayed() {
+        int delay = (int) Math.max(PROCESS_DELAY_MIN, Math.min(PROCESS_DELAY_MAX, lastProcessingTime * 2));
+        processFileTimer.setInitialDelay(delay);
+        processFileTimer.restart();
+    }
+
     private long getTimeOffset(int tm) {
         // Set time offset according t selected time mode
         long timeOffset = 0;
@@ -790,12 +1553,21 @@ public class FlightPlot {
         }
     }
 
-    private void generateSeries() throws IOException, FormatErrorException {
-        dataset.removeAllSeries();
+    /**
+     * Generate series of all processors for displayed range. If decimated log is available, coarse series are
+     * generated from it immediately, then the range is processed at full resolution in background and the series
+     * are replaced when finished.
+     */
+    private void generateSeries() throws IOException, FormatErrorException, IllegalAccessException,
+                                         InstantiationException {
+        final long generation = processingGeneration.incrementAndGet();
         PlotProcessor[] processors = new PlotProcessor[processorsListModel.size()];
+        for (int i = 0; i < processors.length; i++) {
+            processors[i] = (PlotProcessor) processorsListModel.get(i);
+        }
 
         // Update time offset according to selected time mode
-        long timeOffset = getTimeOffset(timeMode);
+        final long timeOffset = getTimeOffset(timeMode);
 
         // Displayed log range in seconds of native log time
         Range range = getLogRange(timeMode);
@@ -810,37 +1582,320 @@ public class FlightPlot {
 
         int displayPixels = 2000;
         double skip = range.getLength() / displayPixels;
-        if (processors.length > 0) {
-            for (int i = 0; i < processorsListModel.size(); i++) {
-                processors[i] = (PlotProcessor) processorsListModel.get(i);
-                processors[i].init();
-                processors[i].setSkipOut(skip);
-                processors[i].setTimeScale(timeScale);
-            }
-            logReader.seek(timeStart);
+
+        Set<String> overviewFields = new LinkedHashSet<String>();
+        for (PlotProcessor processor : processors) {
+            overviewFields.addAll(processor.getUsedFields(logReader.getFields().keySet()));
+        }
+        overviewPanel.setFields(overviewFields);
+
+        if (processors.length == 0) {
+            updateSubplots(processors);
+            chartPanel.repaint();
+            setStatus(" ");
+            return;
+        }
+
+        // Coarse pass from decimated log
+        int level = logPyramid == null ? -1 : logPyramid.selectLevel((long) (range.getLength() * 1e6),
+                COARSE_PASS_POINTS);
+        if (level >= 0) {
+            initProcessors(processors, skip, timeScale);
             Map<String, Object> data = new HashMap<String, Object>();
-            while (true) {
-                long t;
-                data.clear();
-                try {
-                    t = logReader.readUpdate(data);
-                } catch (EOFException e) {
-                    break;
-                }
+            int size = logPyramid.size(level);
+            int i = logPyramid.seek(level, timeStart);
+            while (i < size) {
+                long t = logPyramid.getTime(level, i);
                 if (t > timeStop) {
                     break;
                 }
+                // Messages of the same bucket are stored separately, process them as one update
+                data.clear();
+                for (; i < size && logPyramid.getTime(level, i) == t; i++) {
+                    logPyramid.getUpdate(level, i, data);
+                }
                 for (PlotProcessor processor : processors) {
                     processor.process((t + timeOffset) * 1e-6, data);
                 }
             }
+            updateSubplots(processors);
+            chartPanel.repaint();
+        }
+
+        // Full resolution pass on copies of processors, the originals belong to UI thread
+        final PlotProcessor[] fullProcessors = new PlotProcessor[processors.length];
+        for (int i = 0; i < processors.length; i++) {
+            fullProcessors[i] = copyProcessor(processors[i]);
+        }
+        initProcessors(fullProcessors, skip, timeScale);
+        final List<List<SeriesStatistics.Builder>> statisticsBuilders;
+        final String signature = getStatisticsSignature(processors);
+        Range displayedRange = jFreeChart.getXYPlot().getDomainAxis().getRange();
+        if (statisticsDialog.isVisible()) {
+            // Statistics built for the same processors are reused while displayed range is inside of processed range
+            if (statisticsDialog.hasStatistics() && signature.equals(statisticsSignature) &&
+                    statisticsDialog.isProcessed(displayedRange.getLowerBound(), displayedRange.getUpperBound())) {
+                statisticsBuilders = null;
+            } else {
+                statisticsBuilders = collectStatistics(fullProcessors);
+            }
+        } else {
+            statisticsBuilders = null;
+            statisticsDialog.setStatistics(Collections.<String, SeriesStatistics>emptyMap(), Double.NaN,
+                    Double.NaN);
+            statisticsSignature = null;
+        }
+        // Processed range in units of domain axis, unbounded at the ends of the log
+        final double processedStart = timeStart > logReader.getStartMicroseconds() ?
+                (timeStart + timeOffset) * 1e-6 * timeScale : Double.NEGATIVE_INFINITY;
+        final double processedEnd = timeStop < logReader.getStartMicroseconds() + logReader.getSizeMicroseconds() ?
+                (timeStop + timeOffset) * 1e-6 * timeScale : Double.POSITIVE_INFINITY;
+        final String fileName = logFileName;
+        final long finalTimeStart = timeStart;
+        final long finalTimeStop = timeStop;
+        processingExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                long t0 = System.currentTimeMillis();
+                String status = " ";
+                Map<String, SeriesStatistics> statistics = null;
+                try {
+                    if (!processLog(fileName, fullProcessors, finalTimeStart, finalTimeStop, timeOffset,
+                            generation)) {
+                        return;
+                    }
+                    if (statisticsBuilders != null) {
+                        statistics = buildStatistics(fullProcessors, statisticsBuilders);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    status = "Error: " + e;
+                }
+                final String finalStatus = status;
+                final Map<String, SeriesStatistics> finalStatistics = statistics;
+                final long processingTime = System.currentTimeMillis() - t0;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == processingGeneration.get()) {
+                            // Delay of processing is adapted to full resolution pass, coarse pass is always fast
+                            lastProcessingTime = processingTime;
+                            if (finalStatistics != null) {
+                                statisticsDialog.setStatistics(finalStatistics, processedStart, processedEnd);
+                                statisticsSignature = signature;
+                            }
+                            updateSubplots(fullProcessors);
+                            chartPanel.repaint();
+                            setStatus(finalStatus);
+                            updateStatistics();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private static void initProcessors(PlotProcessor[] processors, double skip, double timeScale) {
+        // Intermediate values shared by all processors, calculated once per pass
+        DerivedQuantities derivedQuantities = new DerivedQuantities();
+        for (PlotProcessor processor : processors) {
+            processor.init();
+            processor.setSkipOut(skip);
+            processor.setTimeScale(timeScale);
+            processor.setDerivedQuantities(derivedQuantities);
+        }
+    }
+
+    /**
+     * Collect all points of processors before skipping to build statistics tables, must be called after init.
+     *
+     * @return builders of statistics for each series of each processor, filled during processing
+     */
+    private static List<List<SeriesStatistics.Builder>> collectStatistics(PlotProcessor[] processors) {
+        List<List<SeriesStatistics.Builder>> builders = new ArrayList<List<SeriesStatistics.Builder>>();
+        for (PlotProcessor processor : processors) {
+            final List<SeriesStatistics.Builder> processorBuilders = new ArrayList<SeriesStatistics.Builder>();
+            builders.add(processorBuilders);
+            processor.setPointListener(new PlotProcessor.PointSink() {
+                @Override
+                public void addPoint(int seriesIdx, double time, double value) {
+                    while (processorBuilders.size() <= seriesIdx) {
+                        processorBuilders.add(new SeriesStatistics.Builder());
+                    }
+                    processorBuilders.get(seriesIdx).add(time, value);
+                }
+            });
+        }
+        return builders;
+    }
+
+    /**
+     * @return statistics tables by series key
+     */
+    private static Map<String, SeriesStatistics> buildStatistics(PlotProcessor[] processors,
+                                                                 List<List<SeriesStatistics.Builder>> builders) {
+        Map<String, SeriesStatistics> statistics = new HashMap<String, SeriesStatistics>();
+        for (int i = 0; i < processors.length; i++) {
+            XYSeriesCollection seriesCollection = processors[i].getSeriesCollection();
+            List<SeriesStatistics.Builder> processorBuilders = builders.get(i);
+            for (int s = 0; s < seriesCollection.getSeriesCount(); s++) {
+                SeriesStatistics.Builder builder = s < processorBuilders.size() ? processorBuilders.get(s) :
+                        new SeriesStatistics.Builder();
+                statistics.put(seriesCollection.getSeriesKey(s).toString(), builder.build());
+            }
+        }
+        return statistics;
+    }
+
+    private String getStatisticsSignature(PlotProcessor[] processors) {
+        StringBuilder signature = new StringBuilder();
+        signature.append(logFileName).append('\n').append(timeMode);
+        for (PlotProcessor processor : processors) {
+            signature.append('\n').append(processor.getProcessorType()).append(' ').append(processor.getTitle())
+                    .append(' ').append(processor.getParameters());
+        }
+        return signature.toString();
+    }
+
+    private void updateStatistics() {
+        Range range = jFreeChart.getXYPlot().getDomainAxis().getRange();
+        updateStatistics(range.getLowerBound(), range.getUpperBound(), false);
+    }
+
+    /**
+     * Update statistics dialog for range of domain axis if the dialog is shown.
+     *
+     * @param selection true if range is selection being dragged, false if it's displayed range
+     */
+    private void updateStatistics(double start, double end, boolean selection) {
+        if (!statisticsDialog.isVisible()) {
+            return;
+        }
+        List<String> series = new ArrayList<String>();
+        for (XYPlot subplot : subplots.values()) {
+            XYSeriesCollection dataset = (XYSeriesCollection) subplot.getDataset();
+            for (int i = 0; i < dataset.getSeriesCount(); i++) {
+                series.add(dataset.getSeriesKey(i).toString());
+            }
+        }
+        double timeScale = (selectDomainAxis(timeMode) == domainAxisDate) ? 1000.0 : 1.0;
+        statisticsDialog.update(series, start, end, timeScale, selection);
+    }
+
+    private static PlotProcessor copyProcessor(PlotProcessor processor) throws IllegalAccessException,
+                                                                               InstantiationException {
+        PlotProcessor copy = processor.getClass().newInstance();
+        copy.setTitle(processor.getTitle());
+        copy.setSubplot(processor.getSubplot());
+        copy.setParameters(processor.getParameters());
+        return copy;
+    }
+
+    /**
+     * Process log range in processing thread. Log reader of processing thread is reopened if log file changed.
+     *
+     * @return false if processing was cancelled by newer processing request
+     */
+    private boolean processLog(String fileName, PlotProcessor[] processors, long timeStart, long timeStop,
+                               long timeOffset, long generation) throws IOException, FormatErrorException {
+        if (!fileName.equals(processingReaderFileName)) {
+            if (processingReader != null) {
+                processingReader.close();
+                processingReader = null;
+                processingReaderFileName = null;
+            }
+            processingReader = new PX4LogReader(fileName);
+            processingReaderFileName = fileName;
+        }
+        processingReader.seek(timeStart);
+        Map<String, Object> data = new HashMap<String, Object>();
+        int updates = 0;
+        while (true) {
+            if ((++updates & 0xFFF) == 0 && generation != processingGeneration.get()) {
+                return false;
+            }
+            long t;
+            data.clear();
+            try {
+                t = processingReader.readUpdate(data);
+            } catch (EOFException e) {
+                break;
+            }
+            if (t > timeStop) {
+                break;
+            }
             for (PlotProcessor processor : processors) {
-                for (XYSeries series : (List<XYSeries>) processor.getSeriesCollection().getSeries()) {
-                    dataset.addSeries(series);
+                processor.process((t + timeOffset) * 1e-6, data);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Put series of processors to subplots. Subplots are reused by name to keep their axes and rendered tiles.
+     */
+    private void updateSubplots(PlotProcessor[] processors) {
+        // Changes of data and auto ranges must not trigger processing again
+        updatingSubplots = true;
+        try {
+            updateSubplotsSeries(processors);
+        } finally {
+            updatingSubplots = false;
+        }
+    }
+
+    private void updateSubplotsSeries(PlotProcessor[] processors) {
+        // Group series by subplot name in order of processors
+        Map<String, List<XYSeries>> groups = new LinkedHashMap<String, List<XYSeries>>();
+        for (PlotProcessor processor : processors) {
+            String name = stackedSubplots ? processor.getSubplotTitle() : "";
+            List<XYSeries> group = groups.get(name);
+            if (group == null) {
+                group = new ArrayList<XYSeries>();
+                groups.put(name, group);
+            }
+            group.addAll((List<XYSeries>) processor.getSeriesCollection().getSeries());
+        }
+        if (groups.isEmpty()) {
+            groups.put("", new ArrayList<XYSeries>());
+        }
+
+        if (!new ArrayList<String>(groups.keySet()).equals(new ArrayList<String>(subplots.keySet()))) {
+            // Subplots set or order changed, rebuild combined plot
+            for (XYPlot subplot : subplots.values()) {
+                combinedPlot.remove(subplot);
+            }
+            Map<String, XYPlot> subplotsNew = new LinkedHashMap<String, XYPlot>();
+            for (String name : groups.keySet()) {
+                XYPlot subplot = subplots.get(name);
+                if (subplot == null) {
+                    subplot = createSubplot(name);
                 }
+                subplotsNew.put(name, subplot);
+                combinedPlot.add(subplot);
             }
+            subplots = subplotsNew;
         }
-        chartPanel.repaint();
+
+        for (Map.Entry<String, List<XYSeries>> entry : groups.entrySet()) {
+            XYSeriesCollection dataset = (XYSeriesCollection) subplots.get(entry.getKey()).getDataset();
+            dataset.removeAllSeries();
+            for (XYSeries series : entry.getValue()) {
+                dataset.addSeries(series);
+            }
+        }
+    }
+
+    private XYPlot createSubplot(String name) {
+        NumberAxis rangeAxis = new NumberAxis(name);
+        rangeAxis.setAutoRangeIncludesZero(false);
+        TiledXYLineRenderer renderer = new TiledXYLineRenderer();
+        renderer.getTileCache().setRepaintCallback(tilesRepaintCallback);
+        XYPlot subplot = new XYPlot(new XYSeriesCollection(), null, rangeAxis, renderer);
+        subplot.setBackgroundPaint(Color.WHITE);
+        subplot.setDomainGridlinePaint(Color.LIGHT_GRAY);
+        subplot.setRangeGridlinePaint(Color.LIGHT_GRAY);
+        return subplot;
     }
 
     private void showAddProcessorDialog(boolean editMode) {
@@ -858,6 +1913,7 @@ public class FlightPlot {
         PlotProcessor origProcessor = addProcessorDialog.getOrigProcessor();
         String title = addProcessorDialog.getProcessorTitle();
         String processorType = addProcessorDialog.getProcessorType();
+        String subplot = addProcessorDialog.getProcessorSubplot();
         if (origProcessor != null) {
             // Edit processor
             PlotProcessor processor = origProcessor;
@@ -874,6 +1930,7 @@ public class FlightPlot {
                 processor.setParameters(parameters);
             }
             processor.setTitle(title);
+            processor.setSubplot(subplot);
             int idx = processorsListModel.indexOf(origProcessor);
             processorsListModel.set(idx, processor);
             processorsList.setSelectedValue(processor, true);
@@ -882,6 +1939,7 @@ public class FlightPlot {
             try {
                 PlotProcessor processor = processorsTypesList.getProcessorInstance(processorType);
                 processor.setTitle(title);
+                processor.setSubplot(subplot);
                 processorsListModel.addElement(processor);
                 processorsList.setSelectedValue(processor, true);
             } catch (Exception e) {
@@ -0,0 +1,165 @@
+package me.drton.flightplot;
+
+import me.drton.flightplot.export.ColumnarFileWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes numeric log fields to columnar file as log updates are added. Each message gets INT64 column "MSG#time"
+ * with time in us, each numeric field gets FLOAT64 column "MSG.Field" with the same number of values.
+ * Optionally min/max summaries of blocks of values of each field are calculated while writing.
+ */
+public class LogColumnsWriter {
+    public static final String TIME_SUFFIX = "#time";
+
+    /**
+     * Min/max of not NaN values of each block of values of field, NaN if all values of block are NaN.
+     */
+    public static class BlockSummary {
+        private final int blockSize;
+        private double[] mins = new double[16];
+        private double[] maxs = new double[16];
+        private boolean[] hasNaN = new boolean[16];
+        private int size = 0;
+
+        BlockSummary(int blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        private void add(double v) {
+            int b = size / blockSize;
+            if (size % blockSize == 0) {
+                if (b == mins.length) {
+                    mins = Arrays.copyOf(mins, b * 2);
+                    maxs = Arrays.copyOf(maxs, b * 2);
+                    hasNaN = Arrays.copyOf(hasNaN, b * 2);
+                }
+                mins[b] = Double.NaN;
+                maxs[b] = Double.NaN;
+            }
+            if (Double.isNaN(v)) {
+                hasNaN[b] = true;
+            } else {
+                // Comparisons are false for NaN, i.e. for first value
+                if (!(v >= mins[b])) {
+                    mins[b] = v;
+                }
+                if (!(v <= maxs[b])) {
+                    maxs[b] = v;
+                }
+            }
+            size++;
+        }
+
+        public int getBlocksCount() {
+            return (size + blockSize - 1) / blockSize;
+        }
+
+        public double getMin(int block) {
+            return mins[block];
+        }
+
+        public double getMax(int block) {
+            return maxs[block];
+        }
+
+        public boolean hasNaN(int block) {
+            return hasNaN[block];
+        }
+    }
+
+    private static class FieldColumns {
+        final int timeColumn;
+        final int valueColumn;
+        // Index of last update for which time was written to time column, shared by fields of one message
+        final long[] lastUpdate;
+        final BlockSummary summary;
+
+        FieldColumns(int timeColumn, int valueColumn, long[] lastUpdate, BlockSummary summary) {
+            this.timeColumn = timeColumn;
+            this.valueColumn = valueColumn;
+            this.lastUpdate = lastUpdate;
+            this.summary = summary;
+        }
+    }
+
+    private final ColumnarFileWriter writer;
+    private final int blockSize;
+    private final Map<String, FieldColumns> fieldColumns = new HashMap<String, FieldColumns>();
+    private final Map<String, FieldColumns> msgColumns = new HashMap<String, FieldColumns>();
+    private long update = 0;
+
+    public LogColumnsWriter(ColumnarFileWriter writer) {
+        this(writer, 0);
+    }
+
+    /**
+     * @param blockSize size of blocks of values for min/max summaries, 0 to not calculate summaries
+     */
+    public LogColumnsWriter(ColumnarFileWriter writer, int blockSize) {
+        this.writer = writer;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @param t time of update in us written to time columns
+     */
+    public void add(long t, Map<String, Object> data) throws IOException {
+        update++;
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            if (!(entry.getValue() instanceof Number)) {
+                continue;
+            }
+            FieldColumns columns = fieldColumns.get(entry.getKey());
+            if (null == columns) {
+                String field = entry.getKey();
+                int dot = field.indexOf('.');
+                String message = dot < 0 ? field : field.substring(0, dot);
+                FieldColumns messageColumns = msgColumns.get(message);
+                if (null == messageColumns) {
+                    messageColumns = new FieldColumns(
+                            writer.addColumn(message + TIME_SUFFIX, ColumnarFileWriter.Type.INT64), -1,
+                            new long[]{0}, null);
+                    msgColumns.put(message, messageColumns);
+                }
+                columns = new FieldColumns(messageColumns.timeColumn,
+                        writer.addColumn(field, ColumnarFileWriter.Type.FLOAT64), messageColumns.lastUpdate,
+                        blockSize > 0 ? new BlockSummary(blockSize) : null);
+                fieldColumns.put(field, columns);
+            }
+            if (columns.lastUpdate[0] != update) {
+                columns.lastUpdate[0] = update;
+                writer.appendLong(columns.timeColumn, t);
+            }
+            double value = ((Number) entry.getValue()).doubleValue();
+            writer.appendDouble(columns.valueColumn, value);
+            if (null != columns.summary) {
+                columns.summary.add(value);
+            }
+        }
+    }
+
+    /**
+     * @return block summaries of written fields by field name, empty if summaries are not calculated
+     */
+    public Map<String, BlockSummary> getBlockSummaries() {
+        Map<String, BlockSummary> summaries = new HashMap<String, BlockSummary>();
+        for (Map.Entry<String, FieldColumns> entry : fieldColumns.entrySet()) {
+            if (null != entry.getValue().summary) {
+                summaries.put(entry.getKey(), entry.getValue().summary);
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * @return name of time column of message of the field
+     */
+    public static String getTimeColumn(String field) {
+        int dot = field.indexOf('.');
+        return (dot < 0 ? field : field.substring(0, dot)) + TIME_SUFFIX;
+    }
+}
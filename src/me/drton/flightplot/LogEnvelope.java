@@ -0,0 +1,103 @@
+package me.drton.flightplot;
+
+import me.drton.jmavlib.log.LogReader;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Min/max envelope of all numeric log fields over the whole log in fixed number of time buckets.
+ * Calculated once when the log is opened and used to draw overview of the log without reading it again.
+ */
+public class LogEnvelope {
+    private final long startTime;
+    private final long sizeTime;
+    private final int bucketsCount;
+    private final Map<String, float[]> mins = new HashMap<String, float[]>();
+    private final Map<String, float[]> maxs = new HashMap<String, float[]>();
+
+    /**
+     * Create empty envelope for the log, updates should be added with add().
+     *
+     * @param reader       opened log, used only to get time range
+     * @param bucketsCount number of time buckets
+     */
+    public LogEnvelope(LogReader reader, int bucketsCount) {
+        this.startTime = reader.getStartMicroseconds();
+        this.sizeTime = Math.max(1, reader.getSizeMicroseconds());
+        this.bucketsCount = bucketsCount;
+    }
+
+    /**
+     * Add log update to the envelope.
+     */
+    public void add(long t, Map<String, Object> data) {
+        int bucket = (int) ((t - startTime) * bucketsCount / sizeTime);
+        bucket = Math.max(0, Math.min(bucketsCount - 1, bucket));
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            if (!(entry.getValue() instanceof Number)) {
+                continue;
+            }
+            float v = ((Number) entry.getValue()).floatValue();
+            if (Float.isNaN(v)) {
+                continue;
+            }
+            float[] fieldMins = mins.get(entry.getKey());
+            float[] fieldMaxs;
+            if (fieldMins == null) {
+                fieldMins = new float[bucketsCount];
+                fieldMaxs = new float[bucketsCount];
+                Arrays.fill(fieldMins, Float.NaN);
+                Arrays.fill(fieldMaxs, Float.NaN);
+                mins.put(entry.getKey(), fieldMins);
+                maxs.put(entry.getKey(), fieldMaxs);
+            } else {
+                fieldMaxs = maxs.get(entry.getKey());
+            }
+            // Comparisons are false for NaN, i.e. for empty bucket
+            if (!(v >= fieldMins[bucket])) {
+                fieldMins[bucket] = v;
+            }
+            if (!(v <= fieldMaxs[bucket])) {
+                fieldMaxs[bucket] = v;
+            }
+        }
+    }
+
+    /**
+     * @return log start time in seconds
+     */
+    public double getStart() {
+        return startTime * 1e-6;
+    }
+
+    /**
+     * @return log end time in seconds
+     */
+    public double getEnd() {
+        return (startTime + sizeTime) * 1e-6;
+    }
+
+    public int getBucketsCount() {
+        return bucketsCount;
+    }
+
+    public boolean containsField(String field) {
+        return mins.containsKey(field);
+    }
+
+    /**
+     * @return minimums of the field in each bucket, NaN for empty buckets, must not be modified
+     */
+    public float[] getMins(String field) {
+        return mins.get(field);
+    }
+
+    /**
+     * @return maximums of the field in each bucket, NaN for empty buckets, must not be modified
+     */
+    public float[] getMaxs(String field) {
+        return maxs.get(field);
+    }
+}
@@ -0,0 +1,213 @@
+package me.drton.flightplot;
+
+import me.drton.jmavlib.log.LogReader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decimated copies of the log at several time resolutions, built once when the log is opened.
+ * Each level keeps at most one update of each message per time bucket, buckets of every next level are 4 times
+ * smaller. Used to process coarse preview of any range in few milliseconds, before the range is processed from
+ * the log at full resolution. Only numeric fields are kept. Fields that first appear in a later update of a message
+ * are added to the message, earlier entries of the message have no values of these fields.
+ */
+public class LogPyramid {
+    private static final int LEVEL_FACTOR = 4;
+    private final long startTime;
+    private final long sizeTime;
+    private final Level[] levels;
+    private final Map<String, Integer> messageIds = new HashMap<String, Integer>();
+    private final List<String[]> messageFields = new ArrayList<String[]>();
+    private final Map<String, Integer> fieldMessages = new HashMap<String, Integer>();
+    // Number of the last update containing each message, used to find messages of update
+    private int[] messageUpdates = new int[0];
+    private int updateCount = 0;
+    private final List<Integer> updateMessages = new ArrayList<Integer>();
+
+    private static class Level {
+        private final long bucketTime;
+        private long[] times = new long[1024];
+        private int[] messages = new int[1024];
+        private int[] offsets = new int[1024];
+        private double[] values = new double[4096];
+        private long[] lastBuckets = new long[0];
+        private int size = 0;
+        private int valuesSize = 0;
+
+        private Level(long bucketTime) {
+            this.bucketTime = Math.max(1, bucketTime);
+        }
+
+        private void add(long t, int message, String[] fields, Map<String, Object> data) {
+            long bucket = t / bucketTime;
+            if (message >= lastBuckets.length) {
+                int n = lastBuckets.length;
+                lastBuckets = Arrays.copyOf(lastBuckets, message + 1);
+                Arrays.fill(lastBuckets, n, lastBuckets.length, -1);
+            }
+            if (lastBuckets[message] == bucket) {
+                return;
+            }
+            lastBuckets[message] = bucket;
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                messages = Arrays.copyOf(messages, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            if (valuesSize + fields.length > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, valuesSize + fields.length));
+            }
+            times[size] = t;
+            messages[size] = message;
+            offsets[size] = valuesSize;
+            size++;
+            for (String field : fields) {
+                Object v = data.get(field);
+                values[valuesSize++] = v instanceof Number ? ((Number) v).doubleValue() : Double.NaN;
+            }
+        }
+    }
+
+    /**
+     * @param reader      opened log, used only to get time range
+     * @param levelsCount number of levels
+     * @param buckets     number of time buckets in the coarsest level
+     */
+    public LogPyramid(LogReader reader, int levelsCount, int buckets) {
+        startTime = reader.getStartMicroseconds();
+        sizeTime = Math.max(1, reader.getSizeMicroseconds());
+        levels = new Level[levelsCount];
+        for (int i = 0; i < levelsCount; i++) {
+            levels[i] = new Level(sizeTime / buckets);
+            buckets *= LEVEL_FACTOR;
+        }
+    }
+
+    /**
+     * Add log update, updates must be added in order of time.
+     */
+    public void add(long t, Map<String, Object> data) {
+        // Update contains all messages logged since previous update, fields are named "MESSAGE.Field"
+        updateCount++;
+        updateMessages.clear();
+        for (String field : data.keySet()) {
+            Integer message = fieldMessages.get(field);
+            if (message == null) {
+                message = registerField(field, data);
+            }
+            if (messageUpdates[message] != updateCount) {
+                messageUpdates[message] = updateCount;
+                updateMessages.add(message);
+            }
+        }
+        for (int message : updateMessages) {
+            String[] fields = messageFields.get(message);
+            for (Level level : levels) {
+                level.add(t - startTime, message, fields, data);
+            }
+        }
+    }
+
+    private static String getMessageName(String field) {
+        int dot = field.indexOf('.');
+        return dot < 0 ? field : field.substring(0, dot);
+    }
+
+    /**
+     * Register message of the field with all its fields present in the update, or add the field to already
+     * registered message.
+     *
+     * @return message index
+     */
+    private int registerField(String field, Map<String, Object> data) {
+        String messageName = getMessageName(field);
+        Integer registered = messageIds.get(messageName);
+        if (registered != null) {
+            // Fields are only appended, so values of earlier entries remain valid
+            String[] fields = messageFields.get(registered);
+            fields = Arrays.copyOf(fields, fields.length + 1);
+            fields[fields.length - 1] = field;
+            messageFields.set(registered, fields);
+            fieldMessages.put(field, registered);
+            return registered;
+        }
+        int message = messageFields.size();
+        messageIds.put(messageName, message);
+        List<String> fields = new ArrayList<String>();
+        for (String f : data.keySet()) {
+            if (getMessageName(f).equals(messageName)) {
+                fields.add(f);
+                fieldMessages.put(f, message);
+            }
+        }
+        messageFields.add(fields.toArray(new String[fields.size()]));
+        messageUpdates = Arrays.copyOf(messageUpdates, message + 1);
+        return message;
+    }
+
+    /**
+     * Select the coarsest level that has at least specified number of buckets in time range.
+     *
+     * @param rangeSize time range size in microseconds
+     * @return level index or -1 if even the finest level is too coarse
+     */
+    public int selectLevel(long rangeSize, int minPoints) {
+        for (int i = 0; i < levels.length; i++) {
+            if (rangeSize / levels[i].bucketTime >= minPoints) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int size(int level) {
+        return levels[level].size;
+    }
+
+    /**
+     * @return index of first update at or after specified time in microseconds
+     */
+    public int seek(int level, long time) {
+        Level l = levels[level];
+        long t = time - startTime;
+        int lo = 0;
+        int hi = l.size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (l.times[mid] < t) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return time of update in microseconds
+     */
+    public long getTime(int level, int i) {
+        return levels[level].times[i] + startTime;
+    }
+
+    /**
+     * Put all fields of update to the map, as Double values.
+     */
+    public void getUpdate(int level, int i, Map<String, Object> data) {
+        Level l = levels[level];
+        String[] fields = messageFields.get(l.messages[i]);
+        int offset = l.offsets[i];
+        // Entries added before a field was added to the message have less values
+        int count = (i + 1 < l.size ? l.offsets[i + 1] : l.valuesSize) - offset;
+        for (int j = 0; j < count; j++) {
+            double v = l.values[offset + j];
+            if (!Double.isNaN(v)) {
+                data.put(fields[j], v);
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package me.drton.flightplot;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Overview strip showing envelope of selected fields over the whole log and the window of the displayed range.
+ * Window can be dragged, click outside of the window moves it to the clicked point.
+ */
+public class OverviewPanel extends JPanel {
+    private static final Color[] COLORS = new Color[]{
+            new Color(255, 0, 0, 96),
+            new Color(0, 160, 0, 96),
+            new Color(0, 0, 255, 96),
+            new Color(0, 160, 160, 96),
+            new Color(200, 0, 200, 96),
+            new Color(0, 0, 0, 96),
+            new Color(255, 160, 0, 96),
+    };
+    private static final Color WINDOW_FILL = new Color(0, 0, 0, 32);
+    private static final Color WINDOW_BORDER = new Color(0, 0, 0, 160);
+
+    public interface RangeListener {
+        /**
+         * Called when user moved the window, times in seconds of log time.
+         */
+        void rangeSelected(double start, double end);
+    }
+
+    private LogEnvelope envelope = null;
+    private List<String> fields = new ArrayList<String>();
+    private BufferedImage envelopeImage = null;
+    private double windowStart = Double.NaN;
+    private double windowEnd = Double.NaN;
+    private RangeListener rangeListener = null;
+    private double dragOffset = Double.NaN;
+
+    public OverviewPanel() {
+        setBackground(Color.WHITE);
+        setPreferredSize(new Dimension(100, 60));
+        MouseAdapter mouseAdapter = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (envelope == null || Double.isNaN(windowStart)) {
+                    return;
+                }
+                double t = xToTime(e.getX());
+                if (t >= windowStart && t <= windowEnd) {
+                    dragOffset = t - windowStart;
+                } else {
+                    // Center window at clicked point
+                    dragOffset = (windowEnd - windowStart) / 2;
+                    moveWindow(t);
+                }
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (!Double.isNaN(dragOffset)) {
+                    moveWindow(xToTime(e.getX()));
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                dragOffset = Double.NaN;
+            }
+        };
+        addMouseListener(mouseAdapter);
+        addMouseMotionListener(mouseAdapter);
+    }
+
+    public void setRangeListener(RangeListener rangeListener) {
+        this.rangeListener = rangeListener;
+    }
+
+    /**
+     * Set envelope of new log, null to clear.
+     */
+    public void setEnvelope(LogEnvelope envelope) {
+        this.envelope = envelope;
+        envelopeImage = null;
+        repaint();
+    }
+
+    /**
+     * Set fields to show, fields missing in the log are ignored.
+     */
+    public void setFields(Collection<String> fields) {
+        List<String> fieldsNew = new ArrayList<String>(fields);
+        if (!fieldsNew.equals(this.fields)) {
+            this.fields = fieldsNew;
+            envelopeImage = null;
+            repaint();
+        }
+    }
+
+    /**
+     * Set displayed range window, times in seconds of log time.
+     */
+    public void setWindow(double start, double end) {
+        if (start != windowStart || end != windowEnd) {
+            windowStart = start;
+            windowEnd = end;
+            repaint();
+        }
+    }
+
+    private void moveWindow(double t) {
+        double width = windowEnd - windowStart;
+        double start = t - dragOffset;
+        start = Math.max(envelope.getStart(), Math.min(envelope.getEnd() - width, start));
+        setWindow(start, start + width);
+        if (rangeListener != null) {
+            rangeListener.rangeSelected(windowStart, windowEnd);
+        }
+    }
+
+    private double xToTime(int x) {
+        return envelope.getStart() + (envelope.getEnd() - envelope.getStart()) * x / Math.max(1, getWidth());
+    }
+
+    private double timeToX(double t) {
+        return (t - envelope.getStart()) / (envelope.getEnd() - envelope.getStart()) * getWidth();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (envelope == null || getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+        if (envelopeImage == null || envelopeImage.getWidth() != getWidth() ||
+                envelopeImage.getHeight() != getHeight()) {
+            envelopeImage = renderEnvelope(getWidth(), getHeight());
+        }
+        g.drawImage(envelopeImage, 0, 0, null);
+        if (!Double.isNaN(windowStart)) {
+            int x0 = (int) Math.round(timeToX(windowStart));
+            int x1 = (int) Math.round(timeToX(windowEnd));
+            int w = Math.max(2, x1 - x0);
+            g.setColor(WINDOW_FILL);
+            g.fillRect(x0, 0, w, getHeight());
+            g.setColor(WINDOW_BORDER);
+            g.drawRect(x0, 0, w - 1, getHeight() - 1);
+        }
+    }
+
+    /**
+     * Draw envelopes of all fields, each field is normalized to full height.
+     */
+    private BufferedImage renderEnvelope(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = image.createGraphics();
+        int n = envelope.getBucketsCount();
+        int colorIdx = 0;
+        for (String field : fields) {
+            if (!envelope.containsField(field)) {
+                continue;
+            }
+            float[] mins = envelope.getMins(field);
+            float[] maxs = envelope.getMaxs(field);
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if (mins[i] < min) {
+                    min = mins[i];
+                }
+                if (maxs[i] > max) {
+                    max = maxs[i];
+                }
+            }
+            if (min > max) {
+                continue;
+            }
+            double scale = max > min ? (height - 3) / (double) (max - min) : 0.0;
+            g2.setColor(COLORS[colorIdx++ % COLORS.length]);
+            for (int i = 0; i < n; i++) {
+                if (Float.isNaN(mins[i])) {
+                    continue;
+                }
+                int x0 = i * width / n;
+                int x1 = Math.max(x0 + 1, (i + 1) * width / n);
+                int y0 = (int) Math.round((max - maxs[i]) * scale) + 1;
+                int y1 = (int) Math.round((max - mins[i]) * scale) + 1;
+                g2.fillRect(x0, y0, x1 - x0, y1 - y0 + 1);
+            }
+        }
+        g2.dispose();
+        return image;
+    }
+}
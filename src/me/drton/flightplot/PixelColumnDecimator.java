@@ -0,0 +1,120 @@
+package me.drton.flightplot;
+
+import java.awt.geom.Path2D;
+
+/**
+ * Streaming line decimator working in screen space.
+ * Consecutive points falling into the same pixel column are merged into one vertical min/max stroke, so the output
+ * has at most a few segments per pixel column regardless of number of input points.
+ * Points must be added in order of increasing X, NaN values break the line.
+ */
+public class PixelColumnDecimator {
+    public interface PathSink {
+        void moveTo(double x, double y);
+
+        void lineTo(double x, double y);
+    }
+
+    private final PathSink sink;
+    private boolean penDown = false;
+    private boolean hasColumn = false;
+    private long column;
+    private double columnX;
+    private double minY;
+    private double maxY;
+    private double lastY;
+    private int count;
+    private int columns = 0;
+    private int mergedColumns = 0;
+
+    public PixelColumnDecimator(PathSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Decimator writing to Path2D, horizontal orientation swaps X and Y of the output.
+     */
+    public static PixelColumnDecimator forPath(final Path2D path, final boolean horizontal) {
+        return new PixelColumnDecimator(new PathSink() {
+            @Override
+            public void moveTo(double x, double y) {
+                if (horizontal) {
+                    path.moveTo(y, x);
+                } else {
+                    path.moveTo(x, y);
+                }
+            }
+
+            @Override
+            public void lineTo(double x, double y) {
+                if (horizontal) {
+                    path.lineTo(y, x);
+                } else {
+                    path.lineTo(x, y);
+                }
+            }
+        });
+    }
+
+    public void add(double x, double y) {
+        if (Double.isNaN(x) || Double.isNaN(y)) {
+            breakLine();
+            return;
+        }
+        long c = (long) Math.floor(x);
+        if (hasColumn && c == column) {
+            if (y < minY) {
+                minY = y;
+            }
+            if (y > maxY) {
+                maxY = y;
+            }
+            lastY = y;
+            count++;
+            return;
+        }
+        flush();
+        if (penDown) {
+            sink.lineTo(x, y);
+        } else {
+            sink.moveTo(x, y);
+            penDown = true;
+        }
+        hasColumn = true;
+        columns++;
+        column = c;
+        columnX = x;
+        minY = y;
+        maxY = y;
+        lastY = y;
+        count = 1;
+    }
+
+    /**
+     * Finish current line, next point will start new line.
+     */
+    public void breakLine() {
+        flush();
+        penDown = false;
+    }
+
+    /**
+     * Write pending column to the sink.
+     */
+    public void flush() {
+        if (hasColumn && count > 1) {
+            mergedColumns++;
+            sink.lineTo(columnX, minY);
+            sink.lineTo(columnX, maxY);
+            sink.lineTo(columnX, lastY);
+        }
+        hasColumn = false;
+    }
+
+    /**
+     * @return true if most of the columns contain several points, i.e. the line is denser than pixel grid
+     */
+    public boolean isDense() {
+        return mergedColumns * 2 > columns;
+    }
+}
@@ -0,0 +1,135 @@
+package me.drton.flightplot;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Streaming encoder of 8-bit RGB PNG images. Rows are written in order from images of any height, e.g. horizontal
+ * bands of the image, so the whole image doesn't need to be in memory.
+ */
+public class PngWriter {
+    private static final byte[] SIGNATURE = new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int CHUNK_SIZE = 65536;
+
+    /**
+     * Buffers compressed data and writes it as IDAT chunks.
+     */
+    private class ChunkOutputStream extends OutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(CHUNK_SIZE);
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer.write(b);
+            if (buffer.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            buffer.write(b, off, len);
+            if (buffer.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (buffer.size() > 0) {
+                writeChunk("IDAT", buffer.toByteArray());
+                buffer.reset();
+            }
+        }
+    }
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final Deflater deflater = new Deflater();
+    private final ChunkOutputStream chunkOut = new ChunkOutputStream();
+    private final DeflaterOutputStream dataOut = new DeflaterOutputStream(chunkOut, deflater, CHUNK_SIZE);
+    private final byte[] row;
+    private final int[] rgb;
+    private int rowsWritten = 0;
+
+    /**
+     * Write PNG header, the stream is not closed by this writer.
+     */
+    public PngWriter(OutputStream out, int width, int height) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.row = new byte[1 + width * 3];
+        this.rgb = new int[width];
+        out.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerOut = new DataOutputStream(header);
+        headerOut.writeInt(width);
+        headerOut.writeInt(height);
+        headerOut.writeByte(8);     // Bit depth
+        headerOut.writeByte(2);     // Color type RGB
+        headerOut.writeByte(0);     // Compression
+        headerOut.writeByte(0);     // Filter
+        headerOut.writeByte(0);     // Interlace
+        writeChunk("IHDR", header.toByteArray());
+    }
+
+    private void writeChunk(String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes("US-ASCII");
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Write first rows of the image as the next rows of PNG.
+     *
+     * @param image image with the same width
+     * @param rows  number of rows to write
+     */
+    public void writeRows(BufferedImage image, int rows) throws IOException {
+        if (rowsWritten + rows > height) {
+            throw new IllegalStateException("Too many rows");
+        }
+        for (int y = 0; y < rows; y++) {
+            image.getRGB(0, y, width, 1, rgb, 0, width);
+            // Filter type None
+            row[0] = 0;
+            for (int x = 0; x < width; x++) {
+                int p = rgb[x];
+                row[1 + x * 3] = (byte) (p >> 16);
+                row[2 + x * 3] = (byte) (p >> 8);
+                row[3 + x * 3] = (byte) p;
+            }
+            dataOut.write(row);
+        }
+        rowsWritten += rows;
+    }
+
+    /**
+     * Write remaining data and end of PNG, all rows must be written.
+     */
+    public void finish() throws IOException {
+        if (rowsWritten != height) {
+            throw new IllegalStateException("Not all rows written");
+        }
+        try {
+            dataOut.finish();
+            chunkOut.flush();
+        } finally {
+            deflater.end();
+        }
+        writeChunk("IEND", new byte[0]);
+        out.flush();
+    }
+}
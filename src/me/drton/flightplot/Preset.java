@@ -3,7 +3,10 @@ package me.drton.flightplot;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.prefs.BackingStoreException;
@@ -83,4 +86,25 @@ public class Preset {
     public String toString() {
         return title;
     }
+
+    /**
+     * Read preset from JSON file.
+     */
+    public static Preset readJSONFile(File file) throws IOException {
+        byte[] b = new byte[(int) file.length()];
+        FileInputStream fileInputStream = new FileInputStream(file);
+        try {
+            int n = 0;
+            while (n < b.length) {
+                int r = fileInputStream.read(b, n, b.length - n);
+                if (r <= 0) {
+                    throw new IOException("Read error");
+                }
+                n += r;
+            }
+        } finally {
+            fileInputStream.close();
+        }
+        return unpackJSONObject(new JSONObject(new String(b, Charset.forName("utf8"))));
+    }
 }
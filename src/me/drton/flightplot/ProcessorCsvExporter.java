@@ -0,0 +1,168 @@
+package me.drton.flightplot;
+
+import me.drton.flightplot.export.TrackFileWriter;
+import me.drton.jmavlib.log.FormatErrorException;
+import me.drton.jmavlib.log.LogReader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exports output of processors to CSV file at full log resolution, skipOut is not applied.
+ * Points are streamed from processors directly to the file, so memory usage doesn't depend on log size.
+ */
+public class ProcessorCsvExporter extends ProcessorsExporter {
+    public enum Layout {
+        /**
+         * One row per time, one column per series. Points of all series with the same time are merged to one row,
+         * cells of series without point at this time are empty.
+         */
+        WIDE("Wide (column per series)"),
+        /**
+         * One row per point: time, series, value.
+         */
+        LONG("Long (row per point)");
+
+        private final String displayName;
+
+        Layout(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    private static final int TIME_DECIMALS = 6;
+
+    private int valueDecimals = 6;
+    private Layout layout = Layout.WIDE;
+
+    public void setValueDecimals(int valueDecimals) {
+        this.valueDecimals = valueDecimals;
+    }
+
+    public void setLayout(Layout layout) {
+        this.layout = layout;
+    }
+
+    @Override
+    public void export(LogReader reader, File file) throws IOException, FormatErrorException {
+        List<String> seriesNames = initProcessors();
+        TrackFileWriter writer = new TrackFileWriter(new FileOutputStream(file));
+        try {
+            final CsvOutput output = layout == Layout.WIDE ? new WideOutput(writer, seriesNames) :
+                    new LongOutput(writer, seriesNames);
+            processLog(reader, new SeriesSink() {
+                @Override
+                public void addPoint(int seriesIdx, double time, double value) throws IOException {
+                    output.addPoint(seriesIdx, time, value);
+                }
+            });
+            output.finish();
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Quote CSV field if it contains separator, quote or line break.
+     */
+    private static String escape(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+
+    private abstract class CsvOutput {
+        protected final TrackFileWriter writer;
+
+        protected CsvOutput(TrackFileWriter writer) {
+            this.writer = writer;
+        }
+
+        abstract void addPoint(int seriesIdx, double time, double value) throws IOException;
+
+        void finish() throws IOException {
+        }
+    }
+
+    private class WideOutput extends CsvOutput {
+        private final double[] values;
+        private final boolean[] present;
+        private double rowTime = Double.NaN;
+        private boolean rowEmpty = true;
+
+        private WideOutput(TrackFileWriter writer, List<String> seriesNames) throws IOException {
+            super(writer);
+            values = new double[seriesNames.size()];
+            present = new boolean[seriesNames.size()];
+            writer.write("time");
+            for (String name : seriesNames) {
+                writer.write(',');
+                writer.write(escape(name));
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        void addPoint(int seriesIdx, double time, double value) throws IOException {
+            // Second point of the same series at the same time starts new row, so no points are lost
+            if (!rowEmpty && (time != rowTime || present[seriesIdx])) {
+                writeRow();
+            }
+            rowTime = time;
+            rowEmpty = false;
+            values[seriesIdx] = value;
+            present[seriesIdx] = true;
+        }
+
+        private void writeRow() throws IOException {
+            writer.writeDecimal(rowTime, TIME_DECIMALS);
+            for (int i = 0; i < values.length; i++) {
+                writer.write(',');
+                if (present[i]) {
+                    writer.writeDecimal(values[i], valueDecimals);
+                }
+            }
+            writer.write('\n');
+            Arrays.fill(present, false);
+            rowEmpty = true;
+        }
+
+        @Override
+        void finish() throws IOException {
+            if (!rowEmpty) {
+                writeRow();
+            }
+        }
+    }
+
+    private class LongOutput extends CsvOutput {
+        // Escaped series names with separators, ready to write
+        private final String[] seriesFields;
+
+        private LongOutput(TrackFileWriter writer, List<String> seriesNames) throws IOException {
+            super(writer);
+            seriesFields = new String[seriesNames.size()];
+            for (int i = 0; i < seriesFields.length; i++) {
+                seriesFields[i] = "," + escape(seriesNames.get(i)) + ",";
+            }
+            writer.write("time,series,value\n");
+        }
+
+        @Override
+        void addPoint(int seriesIdx, double time, double value) throws IOException {
+            writer.writeDecimal(time, TIME_DECIMALS);
+            writer.write(seriesFields[seriesIdx]);
+            writer.writeDecimal(value, valueDecimals);
+            writer.write('\n');
+        }
+    }
+}
@@ -15,6 +15,7 @@ import java.util.prefs.Preferences;
 public class ProcessorPreset {
     private String title;
     private String processorType;
+    private String subplot = "";
     private Map<String, Object> parameters;
 
     public ProcessorPreset(String title, String processorType, Map<String, Object> parameters) {
@@ -26,6 +27,7 @@ public class ProcessorPreset {
     public ProcessorPreset(PlotProcessor processor) {
         this.title = processor.getTitle();
         this.processorType = processor.getProcessorType();
+        this.subplot = processor.getSubplot();
         this.parameters = processor.getParameters();
     }
 
@@ -45,6 +47,14 @@ public class ProcessorPreset {
         this.processorType = processorType;
     }
 
+    public String getSubplot() {
+        return subplot;
+    }
+
+    public void setSubplot(String subplot) {
+        this.subplot = subplot;
+    }
+
     public Map<String, Object> getParameters() {
         return parameters;
     }
@@ -57,6 +67,7 @@ public class ProcessorPreset {
         Preferences p = preferences.node(title);
         p.clear();
         p.put("ProcessorType", processorType);
+        p.put("Subplot", subplot);
         Preferences params = p.node("Parameters");
         for (Map.Entry<String, Object> entry : parameters.entrySet()) {
             params.put(entry.getKey(), entry.getValue().toString());
@@ -74,13 +85,16 @@ public class ProcessorPreset {
             if (v != null)
                 params.put(key, v);
         }
-        return new ProcessorPreset(preferences.name(), processorType, params);
+        ProcessorPreset processorPreset = new ProcessorPreset(preferences.name(), processorType, params);
+        processorPreset.setSubplot(preferences.get("Subplot", ""));
+        return processorPreset;
     }
 
     public JSONObject packJSONObject() throws IOException {
         JSONObject json = new JSONObject();
         json.put("Title", title);
         json.put("ProcessorType", processorType);
+        json.put("Subplot", subplot);
         json.put("Parameters", new JSONObject(parameters));
         return json;
     }
@@ -92,6 +106,9 @@ public class ProcessorPreset {
             String keyStr = (String) key;
             parameters.put(keyStr, jsonParameters.get(keyStr));
         }
-        return new ProcessorPreset(json.getString("Title"), json.getString("ProcessorType"), parameters);
+        ProcessorPreset processorPreset = new ProcessorPreset(json.getString("Title"), json.getString("ProcessorType"),
+                parameters);
+        processorPreset.setSubplot(json.optString("Subplot", ""));
+        return processorPreset;
     }
 }
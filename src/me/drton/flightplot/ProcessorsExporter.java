@@ -0,0 +1,157 @@
+package me.drton.flightplot;
+
+import me.drton.flightplot.processors.PlotProcessor;
+import me.drton.flightplot.processors.tools.DerivedQuantities;
+import me.drton.jmavlib.log.FormatErrorException;
+import me.drton.jmavlib.log.LogReader;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base of exporters of processors output at full log resolution, skipOut is not applied. Points are passed from
+ * processors directly to the sink of exporter, so memory usage doesn't depend on log size.
+ */
+public abstract class ProcessorsExporter {
+    /**
+     * Receives points of all series of all processors, series are numbered in order of processors.
+     */
+    protected interface SeriesSink {
+        void addPoint(int seriesIdx, double time, double value) throws IOException;
+    }
+
+    /**
+     * Receives log updates in export range.
+     */
+    protected interface UpdateHandler {
+        /**
+         * @param t time of update in us of native log time
+         */
+        void update(long t, Map<String, Object> data) throws IOException;
+    }
+
+    private final List<PlotProcessor> processors = new ArrayList<PlotProcessor>();
+    private long timeOffset = 0;
+    private long timeStart = Long.MIN_VALUE;
+    private long timeStop = Long.MAX_VALUE;
+
+    /**
+     * Add processor, processor must not be used for anything else during export.
+     */
+    public void addProcessor(PlotProcessor processor) {
+        processors.add(processor);
+    }
+
+    /**
+     * Set time offset in us, exported time in seconds is (log time in us + timeOffset) * 1e-6
+     */
+    public void setTimeOffset(long timeOffset) {
+        this.timeOffset = timeOffset;
+    }
+
+    protected long getTimeOffset() {
+        return timeOffset;
+    }
+
+    /**
+     * Set exported range in us of native log time.
+     */
+    public void setTimeRange(long timeStart, long timeStop) {
+        this.timeStart = timeStart;
+        this.timeStop = timeStop;
+    }
+
+    public abstract void export(LogReader reader, File file) throws IOException, FormatErrorException;
+
+    /**
+     * Initialize processors for export, processors share derived quantities.
+     *
+     * @return names of all series of all processors
+     */
+    protected List<String> initProcessors() {
+        DerivedQuantities derivedQuantities = new DerivedQuantities();
+        List<String> seriesNames = new ArrayList<String>();
+        for (PlotProcessor processor : processors) {
+            processor.init();
+            processor.setTimeScale(1.0);
+            processor.setDerivedQuantities(derivedQuantities);
+            for (int s = 0; s < processor.getSeriesCollection().getSeriesCount(); s++) {
+                seriesNames.add(processor.getSeriesCollection().getSeriesKey(s).toString());
+            }
+        }
+        return seriesNames;
+    }
+
+    /**
+     * Process export range of log by initialized processors, all points are passed to the sink.
+     */
+    protected void processLog(LogReader reader, final SeriesSink sink) throws IOException, FormatErrorException {
+        int offset = 0;
+        for (PlotProcessor processor : processors) {
+            final int seriesOffset = offset;
+            processor.setPointSink(new PlotProcessor.PointSink() {
+                @Override
+                public void addPoint(int seriesIdx, double time, double value) {
+                    try {
+                        sink.addPoint(seriesOffset + seriesIdx, time, value);
+                    } catch (IOException e) {
+                        throw new WriteException(e);
+                    }
+                }
+            });
+            offset += processor.getSeriesCollection().getSeriesCount();
+        }
+        try {
+            readLog(reader, new UpdateHandler() {
+                @Override
+                public void update(long t, Map<String, Object> data) {
+                    for (PlotProcessor processor : processors) {
+                        processor.process((t + timeOffset) * 1e-6, data);
+                    }
+                }
+            });
+        } catch (WriteException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Read all updates of export range of log.
+     */
+    protected void readLog(LogReader reader, UpdateHandler handler) throws IOException, FormatErrorException {
+        reader.seek(Math.max(reader.getStartMicroseconds(), timeStart));
+        Map<String, Object> data = new HashMap<String, Object>();
+        while (true) {
+            long t;
+            data.clear();
+            try {
+                t = reader.readUpdate(data);
+            } catch (EOFException e) {
+                break;
+            }
+            if (t > timeStop) {
+                break;
+            }
+            handler.update(t, data);
+        }
+    }
+
+    /**
+     * Wraps IOException thrown from point sink, which can't throw checked exceptions.
+     */
+    private static class WriteException extends RuntimeException {
+        private WriteException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package me.drton.flightplot;
+
+import org.jfree.data.xy.XYDataset;
+
+/**
+ * Immutable copy of series data in primitive arrays.
+ * Can be safely read from any thread, X values are expected to be in increasing order.
+ */
+public class SeriesSnapshot {
+    private final double[] x;
+    private final double[] y;
+
+    public SeriesSnapshot(double[] x, double[] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("X and Y arrays have different length");
+        }
+        this.x = x;
+        this.y = y;
+    }
+
+    public static SeriesSnapshot create(XYDataset dataset, int series) {
+        int n = dataset.getItemCount(series);
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = dataset.getXValue(series, i);
+            y[i] = dataset.getYValue(series, i);
+        }
+        return new SeriesSnapshot(x, y);
+    }
+
+    public int size() {
+        return x.length;
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    /**
+     * @return index of first item with X not less than specified value, or size() if there is no such item
+     */
+    public int lowerBound(double value) {
+        int lo = 0;
+        int hi = x.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (x[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return Y value linearly interpolated at specified X, NaN if X is out of series range
+     */
+    public double interpolate(double value) {
+        int i = lowerBound(value);
+        if (i >= x.length) {
+            return Double.NaN;
+        }
+        if (x[i] == value) {
+            return y[i];
+        }
+        if (i == 0) {
+            return Double.NaN;
+        }
+        return y[i - 1] + (y[i] - y[i - 1]) * (value - x[i - 1]) / (x[i] - x[i - 1]);
+    }
+}
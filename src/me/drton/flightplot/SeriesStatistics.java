@@ -0,0 +1,217 @@
+package me.drton.flightplot;
+
+/**
+ * Statistics of series over any X range without iterating over samples. Prefix sums give count, mean, RMS and
+ * standard deviation in O(log n) for the binary search of range bounds. Min and max are taken from sparse table of
+ * block minimums and maximums in O(1) plus scan of at most two partial blocks at the range ends.
+ * NaN values are skipped. X values are expected to be in increasing order.
+ */
+public class SeriesStatistics {
+    private static final int BLOCK_SIZE = 64;
+
+    /**
+     * Statistics of range of series, all values are NaN if range contains no values.
+     */
+    public static class Summary {
+        public final int count;
+        public final double min;
+        public final double max;
+        public final double mean;
+        public final double rms;
+        public final double std;
+
+        Summary(int count, double min, double max, double mean, double rms, double std) {
+            this.count = count;
+            this.min = min;
+            this.max = max;
+            this.mean = mean;
+            this.rms = rms;
+            this.std = std;
+        }
+    }
+
+    /**
+     * Collects points in arrays growing as needed, then builds statistics tables.
+     */
+    public static class Builder {
+        private double[] x = new double[1024];
+        private double[] y = new double[1024];
+        private int size = 0;
+
+        public void add(double xValue, double yValue) {
+            if (size == x.length) {
+                int capacity = size * 2;
+                double[] xNew = new double[capacity];
+                double[] yNew = new double[capacity];
+                System.arraycopy(x, 0, xNew, 0, size);
+                System.arraycopy(y, 0, yNew, 0, size);
+                x = xNew;
+                y = yNew;
+            }
+            x[size] = xValue;
+            y[size] = yValue;
+            size++;
+        }
+
+        /**
+         * Build statistics on collected arrays without copying, builder must not be used after this call.
+         */
+        public SeriesStatistics build() {
+            SeriesStatistics statistics = new SeriesStatistics(x, y, size);
+            x = null;
+            y = null;
+            return statistics;
+        }
+    }
+
+    private final double[] x;
+    private final double[] y;
+    private final int size;
+    // Values are summed relative to the first value to avoid loss of precision in variance of values with large mean
+    private final double reference;
+    // Prefix sums and counts of not NaN values, element i covers values [0, i)
+    private final double[] sums;
+    private final double[] squareSums;
+    private final int[] counts;
+    // Sparse tables, element [k][b] covers blocks [b, b + 2^k)
+    private final double[][] blockMins;
+    private final double[][] blockMaxs;
+
+    /**
+     * @param size number of items, arrays may be longer
+     */
+    public SeriesStatistics(double[] x, double[] y, int size) {
+        if (size > x.length || size > y.length) {
+            throw new IllegalArgumentException("Size is greater than length of arrays");
+        }
+        this.x = x;
+        this.y = y;
+        this.size = size;
+        int n = size;
+        double ref = 0.0;
+        for (int i = 0; i < n; i++) {
+            if (!Double.isNaN(y[i])) {
+                ref = y[i];
+                break;
+            }
+        }
+        this.reference = ref;
+        this.sums = new double[n + 1];
+        this.squareSums = new double[n + 1];
+        this.counts = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            double v = y[i] - ref;
+            if (Double.isNaN(v)) {
+                sums[i + 1] = sums[i];
+                squareSums[i + 1] = squareSums[i];
+                counts[i + 1] = counts[i];
+            } else {
+                sums[i + 1] = sums[i] + v;
+                squareSums[i + 1] = squareSums[i] + v * v;
+                counts[i + 1] = counts[i] + 1;
+            }
+        }
+
+        int blocks = n / BLOCK_SIZE;
+        int levels = 1;
+        while ((1 << levels) <= blocks) {
+            levels++;
+        }
+        this.blockMins = new double[levels][];
+        this.blockMaxs = new double[levels][];
+        blockMins[0] = new double[blocks];
+        blockMaxs[0] = new double[blocks];
+        for (int b = 0; b < blocks; b++) {
+            double min = Double.NaN;
+            double max = Double.NaN;
+            for (int i = b * BLOCK_SIZE; i < (b + 1) * BLOCK_SIZE; i++) {
+                min = min(min, y[i]);
+                max = max(max, y[i]);
+            }
+            blockMins[0][b] = min;
+            blockMaxs[0][b] = max;
+        }
+        for (int k = 1; k < levels; k++) {
+            int half = 1 << (k - 1);
+            int count = blocks - (1 << k) + 1;
+            blockMins[k] = new double[count];
+            blockMaxs[k] = new double[count];
+            for (int b = 0; b < count; b++) {
+                blockMins[k][b] = min(blockMins[k - 1][b], blockMins[k - 1][b + half]);
+                blockMaxs[k][b] = max(blockMaxs[k - 1][b], blockMaxs[k - 1][b + half]);
+            }
+        }
+    }
+
+    // Minimum and maximum ignoring NaN, NaN only if both arguments are NaN
+    private static double min(double a, double b) {
+        return a < b || Double.isNaN(b) ? a : b;
+    }
+
+    private static double max(double a, double b) {
+        return a > b || Double.isNaN(b) ? a : b;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return index of first item with X not less than (or greater than if strict) specified value
+     */
+    private int bound(double value, boolean strict) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (x[mid] < value || (strict && x[mid] == value)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return statistics of items with X in range [start, end]
+     */
+    public Summary getSummary(double start, double end) {
+        int from = bound(start, false);
+        int to = Math.max(from, bound(end, true));
+        int count = counts[to] - counts[from];
+        if (count == 0) {
+            return new Summary(0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        }
+        double meanOffset = (sums[to] - sums[from]) / count;
+        double variance = Math.max(0.0, (squareSums[to] - squareSums[from]) / count - meanOffset * meanOffset);
+        double mean = reference + meanOffset;
+        double[] minMax = getMinMax(from, to);
+        return new Summary(count, minMax[0], minMax[1], mean, Math.sqrt(variance + mean * mean),
+                Math.sqrt(variance));
+    }
+
+    private double[] getMinMax(int from, int to) {
+        double min = Double.NaN;
+        double max = Double.NaN;
+        // Full blocks inside of the range
+        int firstBlock = (from + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int endBlock = to / BLOCK_SIZE;
+        if (firstBlock < endBlock) {
+            int k = 31 - Integer.numberOfLeadingZeros(endBlock - firstBlock);
+            int second = endBlock - (1 << k);
+            min = min(blockMins[k][firstBlock], blockMins[k][second]);
+            max = max(blockMaxs[k][firstBlock], blockMaxs[k][second]);
+            for (int i = from; i < firstBlock * BLOCK_SIZE; i++) {
+                min = min(min, y[i]);
+                max = max(max, y[i]);
+            }
+            from = endBlock * BLOCK_SIZE;
+        }
+        for (int i = from; i < to; i++) {
+            min = min(min, y[i]);
+            max = max(max, y[i]);
+        }
+        return new double[]{min, max};
+    }
+}
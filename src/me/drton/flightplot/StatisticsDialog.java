@@ -0,0 +1,109 @@
+package me.drton.flightplot;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Dialog with table of min, max, mean, RMS and standard deviation of series over the displayed range. Statistics
+ * tables of series are built by processing at full resolution, so table is updated without iterating over samples.
+ */
+public class StatisticsDialog extends JDialog {
+    private static final String[] COLUMNS = new String[]{"Series", "Samples", "Min", "Max", "Mean", "RMS", "Std"};
+
+    private final DefaultTableModel tableModel = new DefaultTableModel(COLUMNS, 0) {
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return false;
+        }
+    };
+    private final JLabel rangeLabel = new JLabel(" ");
+    private Map<String, SeriesStatistics> statistics = Collections.emptyMap();
+    private double processedStart = Double.NaN;
+    private double processedEnd = Double.NaN;
+    private List<String> rowsSeries = new ArrayList<String>();
+
+    public StatisticsDialog() {
+        setTitle("Range Statistics");
+        setModal(false);
+        JTable table = new JTable(tableModel);
+        table.getColumnModel().getColumn(0).setPreferredWidth(200);
+        JPanel contentPane = new JPanel(new BorderLayout(5, 5));
+        contentPane.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        contentPane.add(rangeLabel, BorderLayout.NORTH);
+        contentPane.add(new JScrollPane(table), BorderLayout.CENTER);
+        setContentPane(contentPane);
+        setSize(700, 300);
+    }
+
+    /**
+     * Set statistics tables of processed series by series key.
+     *
+     * @param processedStart start of processed range in units of X values, -infinity if it's the start of the log
+     * @param processedEnd   end of processed range in units of X values, infinity if it's the end of the log
+     */
+    public void setStatistics(Map<String, SeriesStatistics> statistics, double processedStart, double processedEnd) {
+        this.statistics = statistics;
+        this.processedStart = processedStart;
+        this.processedEnd = processedEnd;
+    }
+
+    public boolean hasStatistics() {
+        return !statistics.isEmpty();
+    }
+
+    /**
+     * @return true if range of X values is inside of processed range of statistics
+     */
+    public boolean isProcessed(double start, double end) {
+        return start >= processedStart && end <= processedEnd;
+    }
+
+    /**
+     * Update table for range of X values.
+     *
+     * @param series    keys of displayed series in order of rows
+     * @param start     start of range in units of X values
+     * @param end       end of range in units of X values
+     * @param timeScale X units per second
+     * @param selection true if range is selection being dragged, false if it's displayed range
+     */
+    public void update(List<String> series, double start, double end, double timeScale, boolean selection) {
+        if (!series.equals(rowsSeries)) {
+            rowsSeries = new ArrayList<String>(series);
+            tableModel.setRowCount(0);
+            for (String key : rowsSeries) {
+                tableModel.addRow(new Object[]{key, "", "", "", "", "", ""});
+            }
+        }
+        boolean partial = !isProcessed(start, end);
+        for (int row = 0; row < rowsSeries.size(); row++) {
+            SeriesStatistics seriesStatistics = statistics.get(rowsSeries.get(row));
+            if (seriesStatistics == null) {
+                for (int column = 1; column < COLUMNS.length; column++) {
+                    tableModel.setValueAt("", row, column);
+                }
+                partial = true;
+                continue;
+            }
+            SeriesStatistics.Summary summary = seriesStatistics.getSummary(start, end);
+            tableModel.setValueAt(Integer.toString(summary.count), row, 1);
+            tableModel.setValueAt(format(summary.min), row, 2);
+            tableModel.setValueAt(format(summary.max), row, 3);
+            tableModel.setValueAt(format(summary.mean), row, 4);
+            tableModel.setValueAt(format(summary.rms), row, 5);
+            tableModel.setValueAt(format(summary.std), row, 6);
+        }
+        rangeLabel.setText(String.format(Locale.ROOT, "%s: %.3f s%s", selection ? "Selection" : "Displayed range",
+                (end - start) / timeScale, partial ? " (not all data processed yet)" : ""));
+    }
+
+    private static String format(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.6g", value);
+    }
+}
@@ -0,0 +1,721 @@
+package me.drton.flightplot;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.AttributedCharacterIterator;
+import java.util.Map;
+
+/**
+ * Minimal Graphics2D implementation writing SVG elements directly to a Writer, so drawing of any size doesn't need
+ * memory proportional to number of elements. Supports shapes, solid colors, basic strokes, text and clipping,
+ * images are skipped. Write errors are reported by finish().
+ */
+public class SvgGraphics2D extends Graphics2D {
+    private final Document document;
+    private AffineTransform transform = new AffineTransform();
+    private Shape clip = null;  // In device space
+    private int clipId = -1;
+    private Paint paint = Color.BLACK;
+    private Color background = Color.WHITE;
+    private Stroke stroke = new BasicStroke(1.0f);
+    private Font font = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+    private Composite composite = AlphaComposite.SrcOver;
+    private RenderingHints hints = new RenderingHints(null);
+
+    /**
+     * State shared by all graphics created from the same document.
+     */
+    private static class Document {
+        private final Writer writer;
+        private final Graphics2D metrics;
+        private final StringBuilder buffer = new StringBuilder();
+        private IOException error = null;
+        private int clipsCount = 0;
+
+        private Document(Writer writer) {
+            this.writer = writer;
+            // Font metrics are taken from image graphics
+            metrics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        }
+
+        private void flush(boolean force) {
+            if (force || buffer.length() > 65536) {
+                if (error == null) {
+                    try {
+                        writer.append(buffer);
+                    } catch (IOException e) {
+                        error = e;
+                    }
+                }
+                buffer.setLength(0);
+            }
+        }
+    }
+
+    public SvgGraphics2D(Writer writer, int width, int height) {
+        document = new Document(writer);
+        document.buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        document.buffer.append("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"").append(width)
+                .append("\" height=\"").append(height).append("\" viewBox=\"0 0 ").append(width).append(' ')
+                .append(height).append("\">\n");
+    }
+
+    private SvgGraphics2D(SvgGraphics2D parent) {
+        document = parent.document;
+        transform = new AffineTransform(parent.transform);
+        clip = parent.clip;
+        clipId = parent.clipId;
+        paint = parent.paint;
+        background = parent.background;
+        stroke = parent.stroke;
+        font = parent.font;
+        composite = parent.composite;
+        hints = (RenderingHints) parent.hints.clone();
+    }
+
+    /**
+     * Close SVG document and flush the writer, the writer is not closed.
+     *
+     * @throws IOException if any write failed
+     */
+    public void finish() throws IOException {
+        document.buffer.append("</svg>\n");
+        document.flush(true);
+        if (document.error != null) {
+            throw document.error;
+        }
+        document.writer.flush();
+    }
+
+    // Output
+
+    private static void appendNumber(StringBuilder sb, double v) {
+        long r = Math.round(v * 100.0);
+        if (r % 100 == 0) {
+            sb.append(r / 100);
+        } else {
+            sb.append(r / 100.0);
+        }
+    }
+
+    private static void appendColor(StringBuilder sb, Color color) {
+        String hex = "0123456789abcdef";
+        int rgb = color.getRGB();
+        sb.append('#');
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            sb.append(hex.charAt((rgb >> shift) & 0xF));
+        }
+    }
+
+    private static void appendText(StringBuilder sb, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                case '"':
+                    sb.append("&quot;");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+    }
+
+    private static void appendPath(StringBuilder sb, Shape shape, AffineTransform at) {
+        double[] c = new double[6];
+        PathIterator it = shape.getPathIterator(at);
+        while (!it.isDone()) {
+            switch (it.currentSegment(c)) {
+                case PathIterator.SEG_MOVETO:
+                    sb.append('M');
+                    appendPoints(sb, c, 1);
+                    break;
+                case PathIterator.SEG_LINETO:
+                    sb.append('L');
+                    appendPoints(sb, c, 1);
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    sb.append('Q');
+                    appendPoints(sb, c, 2);
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    sb.append('C');
+                    appendPoints(sb, c, 3);
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    sb.append('Z');
+                    break;
+            }
+            it.next();
+        }
+    }
+
+    private static void appendPoints(StringBuilder sb, double[] c, int n) {
+        for (int i = 0; i < n * 2; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            appendNumber(sb, c[i]);
+        }
+    }
+
+    private Color getPaintColor() {
+        if (paint instanceof Color) {
+            return (Color) paint;
+        } else if (paint instanceof GradientPaint) {
+            return ((GradientPaint) paint).getColor1();
+        } else {
+            return Color.GRAY;
+        }
+    }
+
+    private double getOpacity(Color color) {
+        double opacity = color.getAlpha() / 255.0;
+        if (composite instanceof AlphaComposite) {
+            opacity *= ((AlphaComposite) composite).getAlpha();
+        }
+        return opacity;
+    }
+
+    /**
+     * Define current clip path if it was changed since last element.
+     */
+    private void appendClip(StringBuilder sb) {
+        if (clip == null) {
+            return;
+        }
+        if (clipId < 0) {
+            clipId = document.clipsCount++;
+            sb.append("<clipPath id=\"c").append(clipId).append("\"><path d=\"");
+            appendPath(sb, clip, null);
+            sb.append("\"/></clipPath>\n");
+        }
+    }
+
+    private void appendClipAttribute(StringBuilder sb) {
+        if (clip != null) {
+            sb.append(" clip-path=\"url(#c").append(clipId).append(")\"");
+        }
+    }
+
+    @Override
+    public void draw(Shape s) {
+        if (!(stroke instanceof BasicStroke)) {
+            fill(stroke.createStrokedShape(s));
+            return;
+        }
+        BasicStroke bs = (BasicStroke) stroke;
+        Color color = getPaintColor();
+        StringBuilder sb = document.buffer;
+        appendClip(sb);
+        sb.append("<path fill=\"none\" stroke=\"");
+        appendColor(sb, color);
+        sb.append('"');
+        double opacity = getOpacity(color);
+        if (opacity < 1.0) {
+            sb.append(" stroke-opacity=\"");
+            appendNumber(sb, opacity);
+            sb.append('"');
+        }
+        sb.append(" stroke-width=\"");
+        appendNumber(sb, bs.getLineWidth() * Math.sqrt(Math.abs(transform.getDeterminant())));
+        sb.append('"');
+        if (bs.getEndCap() != BasicStroke.CAP_BUTT) {
+            sb.append(bs.getEndCap() == BasicStroke.CAP_ROUND ? " stroke-linecap=\"round\"" :
+                    " stroke-linecap=\"square\"");
+        }
+        if (bs.getLineJoin() != BasicStroke.JOIN_MITER) {
+            sb.append(bs.getLineJoin() == BasicStroke.JOIN_ROUND ? " stroke-linejoin=\"round\"" :
+                    " stroke-linejoin=\"bevel\"");
+        }
+        float[] dash = bs.getDashArray();
+        if (dash != null && dash.length > 0) {
+            sb.append(" stroke-dasharray=\"");
+            for (int i = 0; i < dash.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                appendNumber(sb, dash[i]);
+            }
+            sb.append('"');
+        }
+        appendClipAttribute(sb);
+        sb.append(" d=\"");
+        appendPath(sb, s, transform);
+        sb.append("\"/>\n");
+        document.flush(false);
+    }
+
+    @Override
+    public void fill(Shape s) {
+        Color color = getPaintColor();
+        StringBuilder sb = document.buffer;
+        appendClip(sb);
+        sb.append("<path stroke=\"none\" fill=\"");
+        appendColor(sb, color);
+        sb.append('"');
+        double opacity = getOpacity(color);
+        if (opacity < 1.0) {
+            sb.append(" fill-opacity=\"");
+            appendNumber(sb, opacity);
+            sb.append('"');
+        }
+        if (s.getPathIterator(null).getWindingRule() == PathIterator.WIND_EVEN_ODD) {
+            sb.append(" fill-rule=\"evenodd\"");
+        }
+        appendClipAttribute(sb);
+        sb.append(" d=\"");
+        appendPath(sb, s, transform);
+        sb.append("\"/>\n");
+        document.flush(false);
+    }
+
+    @Override
+    public void drawString(String str, float x, float y) {
+        if (str == null || str.isEmpty()) {
+            return;
+        }
+        Color color = getPaintColor();
+        StringBuilder sb = document.buffer;
+        appendClip(sb);
+        sb.append("<text x=\"");
+        appendNumber(sb, x);
+        sb.append("\" y=\"");
+        appendNumber(sb, y);
+        sb.append("\" font-family=\"");
+        appendText(sb, font.getFamily());
+        sb.append("\" font-size=\"");
+        appendNumber(sb, font.getSize2D());
+        sb.append('"');
+        if (font.isBold()) {
+            sb.append(" font-weight=\"bold\"");
+        }
+        if (font.isItalic()) {
+            sb.append(" font-style=\"italic\"");
+        }
+        sb.append(" fill=\"");
+        appendColor(sb, color);
+        sb.append('"');
+        double opacity = getOpacity(color);
+        if (opacity < 1.0) {
+            sb.append(" fill-opacity=\"");
+            appendNumber(sb, opacity);
+            sb.append('"');
+        }
+        if (!transform.isIdentity()) {
+            double[] m = new double[6];
+            transform.getMatrix(m);
+            sb.append(" transform=\"matrix(");
+            for (int i = 0; i < 6; i++) {
+                if (i > 0) {
+                    sb.append(' ');
+                }
+                // Rotation and scale components need more precision than coordinates
+                sb.append(i < 4 ? Double.toString(m[i]) : Double.toString(Math.round(m[i] * 100.0) / 100.0));
+            }
+            sb.append(")\"");
+        }
+        appendClipAttribute(sb);
+        sb.append(" xml:space=\"preserve\">");
+        appendText(sb, str);
+        sb.append("</text>\n");
+        document.flush(false);
+    }
+
+    @Override
+    public void drawString(String str, int x, int y) {
+        drawString(str, (float) x, (float) y);
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, int x, int y) {
+        drawString(iterator, (float) x, (float) y);
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+        StringBuilder text = new StringBuilder();
+        for (char c = iterator.first(); c != AttributedCharacterIterator.DONE; c = iterator.next()) {
+            text.append(c);
+        }
+        drawString(text.toString(), x, y);
+    }
+
+    @Override
+    public void drawGlyphVector(GlyphVector g, float x, float y) {
+        fill(g.getOutline(x, y));
+    }
+
+    // Images are not supported
+
+    @Override
+    public boolean drawImage(Image img, AffineTransform xform, ImageObserver obs) {
+        return true;
+    }
+
+    @Override
+    public void drawImage(BufferedImage img, BufferedImageOp op, int x, int y) {
+    }
+
+    @Override
+    public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+    }
+
+    @Override
+    public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+        return true;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, ImageObserver observer) {
+        return true;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, Color bgcolor, ImageObserver observer) {
+        return true;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, Color bgcolor, ImageObserver observer) {
+        return true;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+                             ImageObserver observer) {
+        return true;
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+                             Color bgcolor, ImageObserver observer) {
+        return true;
+    }
+
+    // Primitives
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        draw(new Line2D.Double(x1, y1, x2, y2));
+    }
+
+    @Override
+    public void fillRect(int x, int y, int width, int height) {
+        fill(new Rectangle(x, y, width, height));
+    }
+
+    @Override
+    public void clearRect(int x, int y, int width, int height) {
+        Paint savedPaint = paint;
+        paint = background;
+        fillRect(x, y, width, height);
+        paint = savedPaint;
+    }
+
+    @Override
+    public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        draw(new RoundRectangle2D.Double(x, y, width, height, arcWidth, arcHeight));
+    }
+
+    @Override
+    public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        fill(new RoundRectangle2D.Double(x, y, width, height, arcWidth, arcHeight));
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        draw(new Ellipse2D.Double(x, y, width, height));
+    }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        fill(new Ellipse2D.Double(x, y, width, height));
+    }
+
+    @Override
+    public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        draw(new Arc2D.Double(x, y, width, height, startAngle, arcAngle, Arc2D.OPEN));
+    }
+
+    @Override
+    public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        fill(new Arc2D.Double(x, y, width, height, startAngle, arcAngle, Arc2D.PIE));
+    }
+
+    @Override
+    public void drawPolyline(int[] xPoints, int[] yPoints, int nPoints) {
+        if (nPoints < 2) {
+            return;
+        }
+        Path2D path = new Path2D.Double();
+        path.moveTo(xPoints[0], yPoints[0]);
+        for (int i = 1; i < nPoints; i++) {
+            path.lineTo(xPoints[i], yPoints[i]);
+        }
+        draw(path);
+    }
+
+    @Override
+    public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        draw(new Polygon(xPoints, yPoints, nPoints));
+    }
+
+    @Override
+    public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        fill(new Polygon(xPoints, yPoints, nPoints));
+    }
+
+    @Override
+    public void copyArea(int x, int y, int width, int height, int dx, int dy) {
+    }
+
+    // State
+
+    @Override
+    public Graphics create() {
+        return new SvgGraphics2D(this);
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    @Override
+    public boolean hit(Rectangle rect, Shape s, boolean onStroke) {
+        if (onStroke) {
+            s = stroke.createStrokedShape(s);
+        }
+        return transform.createTransformedShape(s).intersects(rect);
+    }
+
+    @Override
+    public GraphicsConfiguration getDeviceConfiguration() {
+        return document.metrics.getDeviceConfiguration();
+    }
+
+    @Override
+    public void setComposite(Composite comp) {
+        composite = comp;
+    }
+
+    @Override
+    public Composite getComposite() {
+        return composite;
+    }
+
+    @Override
+    public void setPaint(Paint paint) {
+        if (paint != null) {
+            this.paint = paint;
+        }
+    }
+
+    @Override
+    public Paint getPaint() {
+        return paint;
+    }
+
+    @Override
+    public Color getColor() {
+        return getPaintColor();
+    }
+
+    @Override
+    public void setColor(Color c) {
+        setPaint(c);
+    }
+
+    @Override
+    public void setPaintMode() {
+    }
+
+    @Override
+    public void setXORMode(Color c1) {
+    }
+
+    @Override
+    public void setStroke(Stroke s) {
+        stroke = s;
+    }
+
+    @Override
+    public Stroke getStroke() {
+        return stroke;
+    }
+
+    @Override
+    public void setBackground(Color color) {
+        background = color;
+    }
+
+    @Override
+    public Color getBackground() {
+        return background;
+    }
+
+    @Override
+    public Font getFont() {
+        return font;
+    }
+
+    @Override
+    public void setFont(Font font) {
+        if (font != null) {
+            this.font = font;
+        }
+    }
+
+    @Override
+    public FontMetrics getFontMetrics(Font f) {
+        return document.metrics.getFontMetrics(f);
+    }
+
+    @Override
+    public FontRenderContext getFontRenderContext() {
+        return document.metrics.getFontRenderContext();
+    }
+
+    @Override
+    public void setRenderingHint(RenderingHints.Key hintKey, Object hintValue) {
+        hints.put(hintKey, hintValue);
+    }
+
+    @Override
+    public Object getRenderingHint(RenderingHints.Key hintKey) {
+        return hints.get(hintKey);
+    }
+
+    @Override
+    public void setRenderingHints(Map<?, ?> hints) {
+        this.hints = new RenderingHints(null);
+        this.hints.putAll(hints);
+    }
+
+    @Override
+    public void addRenderingHints(Map<?, ?> hints) {
+        this.hints.putAll(hints);
+    }
+
+    @Override
+    public RenderingHints getRenderingHints() {
+        return (RenderingHints) hints.clone();
+    }
+
+    // Transform
+
+    @Override
+    public void translate(int x, int y) {
+        transform.translate(x, y);
+    }
+
+    @Override
+    public void translate(double tx, double ty) {
+        transform.translate(tx, ty);
+    }
+
+    @Override
+    public void rotate(double theta) {
+        transform.rotate(theta);
+    }
+
+    @Override
+    public void rotate(double theta, double x, double y) {
+        transform.rotate(theta, x, y);
+    }
+
+    @Override
+    public void scale(double sx, double sy) {
+        transform.scale(sx, sy);
+    }
+
+    @Override
+    public void shear(double shx, double shy) {
+        transform.shear(shx, shy);
+    }
+
+    @Override
+    public void transform(AffineTransform tx) {
+        transform.concatenate(tx);
+    }
+
+    @Override
+    public void setTransform(AffineTransform tx) {
+        transform = new AffineTransform(tx);
+    }
+
+    @Override
+    public AffineTransform getTransform() {
+        return new AffineTransform(transform);
+    }
+
+    // Clip
+
+    @Override
+    public Shape getClip() {
+        if (clip == null) {
+            return null;
+        }
+        try {
+            return transform.createInverse().createTransformedShape(clip);
+        } catch (NoninvertibleTransformException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Rectangle getClipBounds() {
+        Shape c = getClip();
+        return c == null ? null : c.getBounds();
+    }
+
+    @Override
+    public void setClip(Shape clip) {
+        this.clip = clip == null ? null : transform.createTransformedShape(clip);
+        clipId = -1;
+    }
+
+    @Override
+    public void setClip(int x, int y, int width, int height) {
+        setClip(new Rectangle(x, y, width, height));
+    }
+
+    @Override
+    public void clip(Shape s) {
+        Shape deviceShape = transform.createTransformedShape(s);
+        if (clip == null) {
+            clip = deviceShape;
+        } else {
+            Area area = new Area(clip);
+            area.intersect(new Area(deviceShape));
+            clip = area;
+        }
+        clipId = -1;
+    }
+
+    @Override
+    public void clipRect(int x, int y, int width, int height) {
+        clip(new Rectangle(x, y, width, height));
+    }
+}
@@ -0,0 +1,139 @@
+package me.drton.flightplot;
+
+import org.jfree.chart.axis.DateAxis;
+import org.jfree.chart.axis.LogarithmicAxis;
+import org.jfree.chart.axis.NumberAxis;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.plot.CrosshairState;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.PlotRenderingInfo;
+import org.jfree.chart.plot.SeriesRenderingOrder;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYItemRendererState;
+import org.jfree.data.general.DatasetChangeEvent;
+import org.jfree.data.general.DatasetChangeListener;
+import org.jfree.data.xy.XYDataset;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batched line renderer that draws data layer from tiles rendered in background, see ChartTileCache.
+ * Falls back to direct drawing for non-linear axes or horizontal orientation.
+ */
+public class TiledXYLineRenderer extends BatchedXYLineRenderer implements DatasetChangeListener {
+    private final transient ChartTileCache tileCache = new ChartTileCache();
+    private transient XYDataset listenedDataset = null;
+    private long datasetVersion = 0;
+    private long snapshotsVersion = -1;
+    private SeriesSnapshot[] snapshots = new SeriesSnapshot[0];
+    private transient XYDataset snapshotsDataset = null;
+
+    private static class State extends XYItemRendererState {
+        private boolean tilesDrawn = false;
+
+        private State(PlotRenderingInfo info) {
+            super(info);
+        }
+    }
+
+    public ChartTileCache getTileCache() {
+        return tileCache;
+    }
+
+    @Override
+    public XYItemRendererState initialise(Graphics2D g2, Rectangle2D dataArea, XYPlot plot, XYDataset dataset,
+                                          PlotRenderingInfo info) {
+        // Track dataset changes to invalidate tiles
+        if (dataset != listenedDataset) {
+            if (listenedDataset != null) {
+                listenedDataset.removeChangeListener(this);
+            }
+            if (dataset != null) {
+                dataset.addChangeListener(this);
+            }
+            listenedDataset = dataset;
+            datasetVersion++;
+        }
+        return new State(info);
+    }
+
+    @Override
+    public void datasetChanged(DatasetChangeEvent event) {
+        datasetVersion++;
+    }
+
+    @Override
+    public void drawItem(Graphics2D g2, XYItemRendererState state, Rectangle2D dataArea, PlotRenderingInfo info,
+                         XYPlot plot, ValueAxis domainAxis, ValueAxis rangeAxis, XYDataset dataset, int series,
+                         int item, CrosshairState crosshairState, int pass) {
+        if (!(state instanceof State) || !canUseTiles(dataArea, plot, domainAxis, rangeAxis)) {
+            super.drawItem(g2, state, dataArea, info, plot, domainAxis, rangeAxis, dataset, series, item,
+                    crosshairState, pass);
+            return;
+        }
+        // All series are drawn from tiles at once
+        State tileState = (State) state;
+        if (tileState.tilesDrawn) {
+            return;
+        }
+        tileState.tilesDrawn = true;
+        tileCache.draw(g2, dataArea, createView(dataArea, plot, domainAxis, rangeAxis, dataset),
+                domainAxis.getLowerBound());
+    }
+
+    private static boolean canUseTiles(Rectangle2D dataArea, XYPlot plot, ValueAxis domainAxis,
+                                       ValueAxis rangeAxis) {
+        return plot.getOrientation() == PlotOrientation.VERTICAL && dataArea.getWidth() > 0 &&
+                dataArea.getHeight() > 0 && isLinear(domainAxis) && isLinear(rangeAxis);
+    }
+
+    private static boolean isLinear(ValueAxis axis) {
+        return !axis.isInverted() && (axis instanceof DateAxis ||
+                (axis instanceof NumberAxis && !(axis instanceof LogarithmicAxis)));
+    }
+
+    /**
+     * Get primitive copy of series data, copies are shared with tiles and updated when dataset changes.
+     */
+    public SeriesSnapshot getSnapshot(XYDataset dataset, int series) {
+        updateSnapshots(dataset);
+        return snapshots[series];
+    }
+
+    private void updateSnapshots(XYDataset dataset) {
+        if (snapshotsVersion != datasetVersion || dataset != snapshotsDataset) {
+            snapshots = new SeriesSnapshot[dataset.getSeriesCount()];
+            for (int i = 0; i < snapshots.length; i++) {
+                snapshots[i] = SeriesSnapshot.create(dataset, i);
+            }
+            snapshotsVersion = datasetVersion;
+            snapshotsDataset = dataset;
+        }
+    }
+
+    private ChartTileCache.View createView(Rectangle2D dataArea, XYPlot plot, ValueAxis domainAxis,
+                                           ValueAxis rangeAxis, XYDataset dataset) {
+        updateSnapshots(dataset);
+        List<Integer> visible = new ArrayList<Integer>();
+        for (int i = 0; i < snapshots.length; i++) {
+            if (isSeriesVisible(i)) {
+                visible.add(i);
+            }
+        }
+        boolean reverse = plot.getSeriesRenderingOrder() == SeriesRenderingOrder.REVERSE;
+        SeriesSnapshot[] series = new SeriesSnapshot[visible.size()];
+        Paint[] paints = new Paint[visible.size()];
+        Stroke[] strokes = new Stroke[visible.size()];
+        for (int i = 0; i < series.length; i++) {
+            int s = visible.get(reverse ? series.length - 1 - i : i);
+            series[i] = snapshots[s];
+            paints[i] = lookupSeriesPaint(s);
+            strokes[i] = lookupSeriesStroke(s);
+        }
+        return new ChartTileCache.View(snapshotsVersion, domainAxis.getRange().getLength() / dataArea.getWidth(),
+                rangeAxis.getLowerBound(), rangeAxis.getUpperBound(), dataArea.getHeight(), series, paints, strokes);
+    }
+}
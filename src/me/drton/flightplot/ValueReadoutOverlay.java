@@ -0,0 +1,156 @@
+package me.drton.flightplot;
+
+import org.jfree.chart.ChartPanel;
+import org.jfree.chart.ChartRenderingInfo;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.panel.AbstractOverlay;
+import org.jfree.chart.panel.Overlay;
+import org.jfree.chart.plot.CombinedDomainXYPlot;
+import org.jfree.chart.plot.Plot;
+import org.jfree.chart.plot.PlotRenderingInfo;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.XYItemRenderer;
+import org.jfree.data.xy.XYDataset;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Vertical crosshair showing values of all visible series at cursor time.
+ * Values are interpolated from series snapshots using binary search, the overlay is painted over buffered chart
+ * image, so moving the cursor doesn't redraw or reprocess the chart.
+ */
+public class ValueReadoutOverlay extends AbstractOverlay implements Overlay {
+    private static final Color LINE_COLOR = new Color(0, 0, 0, 128);
+    private static final Color LABEL_BACKGROUND = new Color(255, 255, 255, 210);
+    private double time = Double.NaN;
+
+    /**
+     * Set cursor time in domain axis units, NaN to hide.
+     */
+    public void setTime(double time) {
+        if (time != this.time && !(Double.isNaN(time) && Double.isNaN(this.time))) {
+            this.time = time;
+            fireOverlayChanged();
+        }
+    }
+
+    /**
+     * Convert screen X coordinate to domain axis value.
+     *
+     * @return domain value or NaN if X is outside of data area
+     */
+    public static double screenToTime(ChartPanel chartPanel, int x) {
+        ChartRenderingInfo info = chartPanel.getChartRenderingInfo();
+        Plot plot = chartPanel.getChart().getPlot();
+        if (info == null || !(plot instanceof XYPlot)) {
+            return Double.NaN;
+        }
+        Rectangle2D dataArea = chartPanel.scale(info.getPlotInfo().getDataArea());
+        if (x < dataArea.getMinX() || x > dataArea.getMaxX()) {
+            return Double.NaN;
+        }
+        XYPlot xyPlot = (XYPlot) plot;
+        return xyPlot.getDomainAxis().java2DToValue(x, dataArea, xyPlot.getDomainAxisEdge());
+    }
+
+    @Override
+    public void paintOverlay(Graphics2D g2, ChartPanel chartPanel) {
+        ChartRenderingInfo info = chartPanel.getChartRenderingInfo();
+        Plot plot = chartPanel.getChart().getPlot();
+        if (Double.isNaN(time) || info == null || !(plot instanceof XYPlot)) {
+            return;
+        }
+        XYPlot mainPlot = (XYPlot) plot;
+        PlotRenderingInfo plotInfo = info.getPlotInfo();
+        Rectangle2D dataArea = chartPanel.scale(plotInfo.getDataArea());
+        ValueAxis domainAxis = mainPlot.getDomainAxis();
+        double x = domainAxis.valueToJava2D(time, dataArea, mainPlot.getDomainAxisEdge());
+        if (x < dataArea.getMinX() || x > dataArea.getMaxX()) {
+            return;
+        }
+        Shape savedClip = g2.getClip();
+        g2.clip(dataArea);
+        g2.setPaint(LINE_COLOR);
+        g2.setStroke(new BasicStroke(1.0f));
+        g2.drawLine((int) x, (int) dataArea.getMinY(), (int) x, (int) dataArea.getMaxY());
+
+        List<XYPlot> subplots;
+        if (mainPlot instanceof CombinedDomainXYPlot) {
+            subplots = ((CombinedDomainXYPlot) mainPlot).getSubplots();
+        } else {
+            subplots = Collections.singletonList(mainPlot);
+        }
+        for (int i = 0; i < subplots.size(); i++) {
+            Rectangle2D subplotArea;
+            if (mainPlot instanceof CombinedDomainXYPlot) {
+                if (i >= plotInfo.getSubplotCount()) {
+                    break;
+                }
+                subplotArea = chartPanel.scale(plotInfo.getSubplotInfo(i).getDataArea());
+            } else {
+                subplotArea = dataArea;
+            }
+            drawSubplotValues(g2, subplots.get(i), subplotArea, x);
+        }
+        g2.setClip(savedClip);
+    }
+
+    private void drawSubplotValues(Graphics2D g2, XYPlot subplot, Rectangle2D area, double x) {
+        XYDataset dataset = subplot.getDataset();
+        XYItemRenderer renderer = subplot.getRenderer();
+        ValueAxis rangeAxis = subplot.getRangeAxis();
+        if (dataset == null || renderer == null || rangeAxis == null) {
+            return;
+        }
+        List<String> labels = new ArrayList<String>();
+        List<Paint> paints = new ArrayList<Paint>();
+        for (int s = 0; s < dataset.getSeriesCount(); s++) {
+            if (!renderer.isSeriesVisible(s)) {
+                continue;
+            }
+            double value;
+            if (renderer instanceof TiledXYLineRenderer) {
+                value = ((TiledXYLineRenderer) renderer).getSnapshot(dataset, s).interpolate(time);
+            } else {
+                value = SeriesSnapshot.create(dataset, s).interpolate(time);
+            }
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            Paint paint = renderer.getItemPaint(s, 0);
+            double y = rangeAxis.valueToJava2D(value, area, subplot.getRangeAxisEdge());
+            g2.setPaint(paint);
+            g2.fillOval((int) x - 3, (int) y - 3, 7, 7);
+            labels.add(String.format(Locale.ROOT, "%s: %.6g", dataset.getSeriesKey(s), value));
+            paints.add(paint);
+        }
+        if (labels.isEmpty()) {
+            return;
+        }
+        // Labels box next to the crosshair, on the left side if there is no space on the right
+        FontMetrics fm = g2.getFontMetrics();
+        int width = 0;
+        for (String label : labels) {
+            width = Math.max(width, fm.stringWidth(label));
+        }
+        int lineHeight = fm.getHeight();
+        int boxWidth = width + 8;
+        int boxHeight = lineHeight * labels.size() + 4;
+        int bx = (int) x + 8;
+        if (bx + boxWidth > area.getMaxX()) {
+            bx = (int) x - 8 - boxWidth;
+        }
+        int by = (int) area.getMinY() + 4;
+        g2.setPaint(LABEL_BACKGROUND);
+        g2.fillRect(bx, by, boxWidth, boxHeight);
+        for (int i = 0; i < labels.size(); i++) {
+            g2.setPaint(paints.get(i));
+            g2.drawString(labels.get(i), bx + 4, by + 2 + lineHeight * i + fm.getAscent());
+        }
+    }
+}
@@ -1,11 +1,9 @@
 package me.drton.flightplot.export;
 
-import me.drton.jmavlib.log.FormatErrorException;
-
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.Writer;
+import java.io.OutputStream;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -14,16 +12,15 @@ import java.util.Set;
  */
 public abstract class AbstractTrackExporter implements TrackExporter {
 
-    private final TrackReader trackReader;
     private Set<TrackAnalyzer> analyzers;
 
     protected ExporterConfiguration configuration = new ExporterConfiguration();
     protected boolean trackStarted;
     protected String title;
-    protected Writer writer;
+    protected TrackFileWriter writer;
+    protected TrackStatistics statistics;
 
-    public AbstractTrackExporter(TrackReader trackReader) {
-        this.trackReader = trackReader;
+    public AbstractTrackExporter() {
         initAnalyzers();
     }
 
@@ -34,49 +31,77 @@ public abstract class AbstractTrackExporter implements TrackExporter {
         }
     }
 
-    protected TrackPoint readNextPoint() throws IOException, FormatErrorException {
-        TrackPoint point = this.trackReader.readNextPoint();
-        if (null != point) {
-            feedAnalyzers(point);
-        }
-        return point;
-    }
-
     private void feedAnalyzers(TrackPoint point) {
         for (TrackAnalyzer analyzer : this.analyzers) {
             analyzer.inputTrackPoint(point);
         }
     }
 
-    public void exportToFile(File file, String title) throws IOException {
+    @Override
+    public void start(File file, String title) throws IOException {
         this.writer = initWriter(file, title);
+        writeStart();
+    }
+
+    @Override
+    public void exportPoint(TrackPoint point) throws IOException {
+        feedAnalyzers(point);
+        if (!this.trackStarted) {
+            startTrackPart();
+            this.trackStarted = true;
+        }
+        writePoint(point);
+    }
+
+    @Override
+    public void finish() throws IOException {
         try {
-            writeStart();
-            TrackPoint point = readNextPoint();
             if (!this.trackStarted) {
                 startTrackPart();
                 this.trackStarted = true;
             }
-            while (null != point) {
-                writePoint(point);
-                point = readNextPoint();
-            }
             endTrackPart();
             writeEnd();
-        } catch (Exception e) {
-            e.printStackTrace();
         } finally {
             this.writer.close();
         }
     }
 
-    protected Writer initWriter(File file, String title) throws IOException {
-        Writer fileWriter = new FileWriter(file);
+    @Override
+    public void abort() {
+        if (null != this.writer) {
+            try {
+                this.writer.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    protected TrackFileWriter initWriter(File file, String title) throws IOException {
+        TrackFileWriter fileWriter = new TrackFileWriter(openOutputStream(file));
         this.trackStarted = false;
         this.title = title;
         return fileWriter;
     }
 
+    /**
+     * Open stream to write track file to, can be overridden to add compression.
+     */
+    protected OutputStream openOutputStream(File file) throws IOException {
+        return new FileOutputStream(file);
+    }
+
+    /**
+     * Run compression of track file in separate thread if more than one processor is available.
+     */
+    protected OutputStream compressInBackground(OutputStream compressedOut, File file) {
+        if (Runtime.getRuntime().availableProcessors() > 1) {
+            return new BackgroundOutputStream(compressedOut, "Compress " + file.getName());
+        }
+        return compressedOut;
+    }
+
     protected abstract void writeStart() throws IOException;
 
     protected abstract void startTrackPart() throws IOException;
@@ -92,6 +117,11 @@ public abstract class AbstractTrackExporter implements TrackExporter {
         this.configuration = configuration;
     }
 
+    @Override
+    public void setStatistics(TrackStatistics statistics) {
+        this.statistics = statistics;
+    }
+
     public ExporterConfiguration getConfiguration() {
         return configuration;
     }
@@ -1,48 +1,59 @@
 package me.drton.flightplot.export;
 
 import me.drton.jmavlib.log.FormatErrorException;
-import me.drton.jmavlib.log.PX4LogReader;
 
 import java.io.EOFException;
 import java.io.IOException;
-import java.util.Map;
 
 /**
  * Created by ada on 23.12.13.
  */
 public abstract class AbstractTrackReader implements TrackReader {
 
-    private final PX4LogReader reader;
-    private long nextMinTime = 0;
-    private long timeGap = 0;
+    private final long logStartTime;
+    private long startTime = 0;
     private long endTime = 0;
+    private long lastTime = 0;
     private ReaderConfiguration configuration = new ReaderConfiguration();
 
-    public AbstractTrackReader(PX4LogReader reader) throws IOException, FormatErrorException {
-        this.reader = reader;
-        reset();
-        initFromConfig();
+    /**
+     * @param logStartTime start time of log in us, export range is relative to it
+     */
+    public AbstractTrackReader(long logStartTime) {
+        this.logStartTime = logStartTime;
+    }
+
+    /**
+     * Apply default configuration, must be called by subclass when log can be read. Log is not sought, reader must
+     * be at start of log, it's sought when configuration is set.
+     */
+    protected void init() {
+        initRange();
     }
 
     public void reset() throws IOException, FormatErrorException {
-        reader.seek(0);
+        seekLog(this.startTime);
+        this.lastTime = this.startTime;
     }
 
-    protected long readUpdate(Map<String, Object> data) throws IOException, FormatErrorException {
-        long logTime = 0;
-        while (true) {
-            logTime = this.reader.readUpdate(data);
-            if (logTime > this.endTime) {
-                throw new EOFException("Reached configured export limit.");
-            }
-            if (logTime >= this.nextMinTime) {
-                if (0 == this.nextMinTime) {
-                    this.nextMinTime = logTime;
-                }
-                this.nextMinTime += this.timeGap;
-                return logTime;
-            }
+    /**
+     * Move to first update of log with time not less than given, or before it.
+     */
+    protected abstract void seekLog(long time) throws IOException, FormatErrorException;
+
+    /**
+     * Check time of log update against export range, resampling to configured rate is done by
+     * {@link ResamplingTrackReader}.
+     *
+     * @return true if update should be exported, false if it's before start of export range
+     * @throws EOFException if update is after end of export range
+     */
+    protected boolean acceptUpdate(long logTime) throws EOFException {
+        this.lastTime = logTime;
+        if (logTime > this.endTime) {
+            throw new EOFException("Reached configured export limit.");
         }
+        return logTime >= this.startTime;
     }
 
     @Override
@@ -57,15 +68,42 @@ public abstract class AbstractTrackReader implements TrackReader {
         }
     }
 
+    /**
+     * @return end of export range in us
+     */
+    protected long getEndTime() {
+        return this.endTime;
+    }
+
     protected ReaderConfiguration getConfiguration() {
         return this.configuration;
     }
 
     private void initFromConfig() throws IOException, FormatErrorException {
-        this.timeGap = (long) Math.floor(1000000 / this.configuration.getSamplesPerSecond());
-        if (this.configuration.getTimeFromInSeconds() > 0) {
-            this.reader.seek(this.reader.getStartMicroseconds() + this.configuration.getTimeFromInSeconds() * 1000000);
+        initRange();
+        // Log before start is not exported
+        seekLog(this.startTime);
+    }
+
+    private void initRange() {
+        if (this.configuration.isExportChartRangeOnly() &&
+                this.configuration.getChartRangeTo() > this.configuration.getChartRangeFrom()) {
+            // Exact displayed range
+            this.startTime = this.configuration.getChartRangeFrom();
+            this.endTime = this.configuration.getChartRangeTo();
+        } else {
+            this.startTime = this.logStartTime + this.configuration.getTimeFromInSeconds() * 1000000;
+            this.endTime = this.logStartTime + this.configuration.getTimeToInSeconds() * 1000000;
+        }
+        this.lastTime = this.startTime;
+    }
+
+    @Override
+    public double getProgress() {
+        if (this.endTime <= this.startTime) {
+            return 0.0;
         }
-        this.endTime = this.reader.getStartMicroseconds() + this.configuration.getTimeToInSeconds() * 1000000;
+        double progress = (double) (this.lastTime - this.startTime) / (this.endTime - this.startTime);
+        return Math.max(0.0, Math.min(1.0, progress));
     }
 }
@@ -0,0 +1,34 @@
+package me.drton.flightplot.export;
+
+/**
+ * Finds min and max altitude of track.
+ */
+public class AltitudeAnalyzer implements TrackAnalyzer {
+    private double minAltitude = Double.NaN;
+    private double maxAltitude = Double.NaN;
+
+    @Override
+    public void inputTrackPoint(TrackPoint point) {
+        if (Double.isNaN(this.minAltitude)) {
+            this.minAltitude = point.alt;
+            this.maxAltitude = point.alt;
+        } else {
+            this.minAltitude = Math.min(this.minAltitude, point.alt);
+            this.maxAltitude = Math.max(this.maxAltitude, point.alt);
+        }
+    }
+
+    /**
+     * @return min altitude AMSL in meters, NaN if track is empty
+     */
+    public double getMinAltitude() {
+        return minAltitude;
+    }
+
+    /**
+     * @return max altitude AMSL in meters, NaN if track is empty
+     */
+    public double getMaxAltitude() {
+        return maxAltitude;
+    }
+}
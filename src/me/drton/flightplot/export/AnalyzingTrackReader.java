@@ -0,0 +1,47 @@
+package me.drton.flightplot.export;
+
+import me.drton.jmavlib.log.FormatErrorException;
+
+import java.io.IOException;
+
+/**
+ * Passes all points of another reader to analyzer while they are read.
+ */
+public class AnalyzingTrackReader implements TrackReader {
+    private final TrackReader reader;
+    private final TrackAnalyzer analyzer;
+
+    public AnalyzingTrackReader(TrackReader reader, TrackAnalyzer analyzer) {
+        this.reader = reader;
+        this.analyzer = analyzer;
+    }
+
+    @Override
+    public TrackPoint readNextPoint() throws IOException, FormatErrorException {
+        TrackPoint point = reader.readNextPoint();
+        if (null != point) {
+            analyzer.inputTrackPoint(point);
+        }
+        return point;
+    }
+
+    @Override
+    public void reset() throws IOException, FormatErrorException {
+        reader.reset();
+    }
+
+    @Override
+    public void setConfiguration(ReaderConfiguration configuration) throws ConfigurationException {
+        reader.setConfiguration(configuration);
+    }
+
+    @Override
+    public double getProgress() {
+        return reader.getProgress();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,151 @@
+package me.drton.flightplot.export;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Output stream that passes data to underlying stream in separate thread, used to run compression in parallel with
+ * formatting of track. Data is copied to a few reused buffers, writer blocks if all of them are queued.
+ * Errors of underlying stream are thrown on next write or on close.
+ */
+public class BackgroundOutputStream extends OutputStream {
+    private static final int BUFFER_SIZE = 65536;
+    private static final int BUFFERS_COUNT = 4;
+
+    private static class Chunk {
+        final byte[] data = new byte[BUFFER_SIZE];
+        int length;
+    }
+
+    // Marker of end of data, compared by identity
+    private static final Chunk END = new Chunk();
+
+    private final OutputStream out;
+    private final BlockingQueue<Chunk> queued = new ArrayBlockingQueue<Chunk>(BUFFERS_COUNT + 1);
+    private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<Chunk>(BUFFERS_COUNT);
+    private final Thread thread;
+    private Chunk current = null;
+    private volatile IOException error = null;
+    private boolean closed = false;
+
+    public BackgroundOutputStream(OutputStream out, String threadName) {
+        this.out = out;
+        for (int i = 0; i < BUFFERS_COUNT; i++) {
+            free.add(new Chunk());
+        }
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeQueued();
+            }
+        }, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void writeQueued() {
+        try {
+            while (true) {
+                Chunk chunk = queued.take();
+                if (chunk == END) {
+                    return;
+                }
+                // Keep taking chunks after error, writer must not be blocked
+                if (null == error) {
+                    try {
+                        out.write(chunk.data, 0, chunk.length);
+                    } catch (IOException e) {
+                        error = e;
+                    }
+                }
+                free.put(chunk);
+            }
+        } catch (InterruptedException e) {
+            error = new InterruptedIOException();
+        }
+    }
+
+    private void checkError() throws IOException {
+        if (null != error) {
+            throw error;
+        }
+    }
+
+    private void queueCurrent() throws IOException {
+        try {
+            queued.put(current);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        }
+        current = null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        checkError();
+        while (len > 0) {
+            if (null == current) {
+                try {
+                    current = free.take();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                current.length = 0;
+            }
+            int n = Math.min(len, BUFFER_SIZE - current.length);
+            System.arraycopy(b, off, current.data, current.length, n);
+            current.length += n;
+            off += n;
+            len -= n;
+            if (current.length == BUFFER_SIZE) {
+                queueCurrent();
+            }
+        }
+    }
+
+    /**
+     * Queues buffered data, doesn't wait until it's written.
+     */
+    @Override
+    public void flush() throws IOException {
+        checkError();
+        if (null != current && current.length > 0) {
+            queueCurrent();
+        }
+    }
+
+    /**
+     * Waits until all data is written and closes underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (null != current && current.length > 0) {
+                queueCurrent();
+            }
+            queued.put(END);
+            thread.join();
+        } catch (InterruptedException e) {
+            thread.interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            out.close();
+        }
+        checkError();
+    }
+}
@@ -0,0 +1,243 @@
+package me.drton.flightplot.export;
+
+import me.drton.jmavlib.log.PX4LogReader;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports tracks of all logs in directory with the same configuration. Logs are exported in parallel on pool of
+ * threads limited by number of processors, each log is read once for all export formats. Exported files are
+ * placed next to the logs, report with result of each log is written to the directory.
+ */
+public class BatchExportJob implements Runnable {
+    public static final String REPORT_FILE_NAME = "export_report.txt";
+    private static final String LOG_EXTENSION = ".bin";
+
+    /**
+     * Result of export of one log.
+     */
+    public static class Result {
+        public final File logFile;
+        public final boolean successful;
+        public final String message;
+
+        private Result(File logFile, boolean successful, String message) {
+            this.logFile = logFile;
+            this.successful = successful;
+            this.message = message;
+        }
+    }
+
+    private final File directory;
+    private final List<ExportFormat> exportFormats;
+    private final ExporterConfiguration exporterConfiguration;
+    private final ReaderConfiguration readerConfiguration;
+    private final int threadsCount;
+    private final List<Result> results = new ArrayList<Result>();
+    private final AtomicInteger logsDone = new AtomicInteger(0);
+    private volatile int logsCount = 0;
+    private volatile boolean cancelled = false;
+    private final List<ExportRunner> runners = new ArrayList<ExportRunner>();
+    private Runnable progressCallback;
+    private Runnable finishedCallback;
+    private String statusMessage = "";
+
+    /**
+     * @param readerConfiguration reader settings, export range of it is ignored, whole logs are exported
+     */
+    public BatchExportJob(File directory, ExporterConfiguration exporterConfiguration,
+                          ReaderConfiguration readerConfiguration) {
+        this.directory = directory;
+        this.exporterConfiguration = exporterConfiguration;
+        this.exportFormats = exporterConfiguration.getExportFormats();
+        this.readerConfiguration = readerConfiguration;
+        this.threadsCount = Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public void run() {
+        try {
+            File[] logFiles = directory.listFiles(new FileFilter() {
+                @Override
+                public boolean accept(File file) {
+                    return file.isFile() && file.getName().toLowerCase().endsWith(LOG_EXTENSION);
+                }
+            });
+            if (null == logFiles || logFiles.length == 0) {
+                statusMessage = "No logs found in " + directory;
+                return;
+            }
+            Arrays.sort(logFiles);
+            logsCount = logFiles.length;
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadsCount, logFiles.length));
+            for (final File logFile : logFiles) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        Result result = cancelled ? new Result(logFile, false, "Cancelled") : exportLog(logFile);
+                        synchronized (results) {
+                            results.add(result);
+                        }
+                        logsDone.incrementAndGet();
+                        if (null != progressCallback) {
+                            progressCallback.run();
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            writeReport();
+            int failed = 0;
+            for (Result result : results) {
+                if (!result.successful) {
+                    failed++;
+                }
+            }
+            statusMessage = String.format("Exported %d of %d logs, report: %s", logFiles.length - failed,
+                    logFiles.length, new File(directory, REPORT_FILE_NAME));
+        } catch (Exception e) {
+            e.printStackTrace();
+            statusMessage = "Error: " + e;
+        } finally {
+            if (null != finishedCallback) {
+                finishedCallback.run();
+            }
+        }
+    }
+
+    private Result exportLog(File logFile) {
+        String baseName = logFile.getPath().substring(0, logFile.getPath().length() - LOG_EXTENSION.length());
+        PX4LogReader logReader = null;
+        try {
+            logReader = new PX4LogReader(logFile.getPath());
+            ReaderConfiguration configuration = new ReaderConfiguration();
+            configuration.setSamplesPerSecond(readerConfiguration.getSamplesPerSecond());
+            configuration.setSimplifyTolerance(readerConfiguration.getSimplifyTolerance());
+            configuration.setTimeFromInSeconds(0);
+            configuration.setTimeToInSeconds((long) Math.ceil(logReader.getSizeMicroseconds() / 1000000.0));
+            TrackStatistics statistics = new TrackStatistics();
+            TrackReader trackReader = TrackReaderFactory.createTrackReader(logReader, logFile, configuration,
+                    statistics);
+            List<TrackExporter> exporters = new ArrayList<TrackExporter>();
+            List<File> destinations = new ArrayList<File>();
+            for (ExportFormat format : exportFormats) {
+                TrackExporter exporter = format.getTrackExporter();
+                exporter.setConfiguration(exporterConfiguration);
+                exporters.add(exporter);
+                destinations.add(new File(baseName + format.getFileExtension()));
+            }
+            ExportRunner runner = new ExportRunner(trackReader, exporters, destinations);
+            runner.setStatistics(statistics, new File(baseName + ExportManager.STATISTICS_FILE_EXTENSION));
+            synchronized (runners) {
+                if (cancelled) {
+                    return new Result(logFile, false, "Cancelled");
+                }
+                runners.add(runner);
+            }
+            try {
+                runner.run();
+            } finally {
+                synchronized (runners) {
+                    runners.remove(runner);
+                }
+            }
+            return new Result(logFile, runner.isSuccessful(), runner.getStatusMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new Result(logFile, false, "Error: " + e);
+        } finally {
+            if (null != logReader) {
+                try {
+                    logReader.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void writeReport() throws IOException {
+        List<Result> sorted = new ArrayList<Result>(results);
+        Collections.sort(sorted, new Comparator<Result>() {
+            @Override
+            public int compare(Result r1, Result r2) {
+                return r1.logFile.compareTo(r2.logFile);
+            }
+        });
+        Writer writer = new OutputStreamWriter(new FileOutputStream(new File(directory, REPORT_FILE_NAME)),
+                Charset.forName("UTF-8"));
+        try {
+            for (Result result : sorted) {
+                writer.write(result.successful ? "OK    " : "FAIL  ");
+                writer.write(result.logFile.getName());
+                writer.write(": ");
+                writer.write(String.valueOf(result.message));
+                writer.write("\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Stop export, logs not exported yet are skipped. Can be called from any thread.
+     */
+    public void cancel() {
+        synchronized (runners) {
+            cancelled = true;
+            for (ExportRunner runner : runners) {
+                runner.cancel();
+            }
+        }
+    }
+
+    /**
+     * @return part of logs already exported, from 0 to 1
+     */
+    public double getProgress() {
+        int count = logsCount;
+        return count > 0 ? (double) logsDone.get() / count : 0.0;
+    }
+
+    public int getLogsDone() {
+        return logsDone.get();
+    }
+
+    public int getLogsCount() {
+        return logsCount;
+    }
+
+    public List<Result> getResults() {
+        synchronized (results) {
+            return new ArrayList<Result>(results);
+        }
+    }
+
+    public String getStatusMessage() {
+        return statusMessage;
+    }
+
+    public void setProgressCallback(Runnable progressCallback) {
+        this.progressCallback = progressCallback;
+    }
+
+    public void setFinishedCallback(Runnable finishedCallback) {
+        this.finishedCallback = finishedCallback;
+    }
+}
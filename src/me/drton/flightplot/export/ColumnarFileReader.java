@@ -0,0 +1,129 @@
+package me.drton.flightplot.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reader of binary columnar file written by {@link ColumnarFileWriter}. Columns are memory-mapped, values are not
+ * copied. Each column must be smaller than 2 GB.
+ */
+public class ColumnarFileReader {
+    private static class ColumnInfo {
+        final ColumnarFileWriter.Type type;
+        final long count;
+        final long offset;
+
+        ColumnInfo(ColumnarFileWriter.Type type, long count, long offset) {
+            this.type = type;
+            this.count = count;
+            this.offset = offset;
+        }
+    }
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final Map<String, ColumnInfo> columns = new LinkedHashMap<String, ColumnInfo>();
+
+    public ColumnarFileReader(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        try {
+            readHeader();
+        } catch (IOException e) {
+            close();
+            throw e;
+        } catch (RuntimeException e) {
+            close();
+            throw new IOException("Invalid columnar file: " + e, e);
+        }
+    }
+
+    private void readHeader() throws IOException {
+        ByteBuffer start = readBytes(0, ColumnarFileWriter.MAGIC.length + 8);
+        byte[] magic = new byte[ColumnarFileWriter.MAGIC.length];
+        start.get(magic);
+        if (!Arrays.equals(magic, ColumnarFileWriter.MAGIC)) {
+            throw new IOException("Not a columnar file");
+        }
+        int columnsCount = start.getInt();
+        int dataStart = start.getInt();
+        ByteBuffer header = readBytes(0, dataStart);
+        header.position(ColumnarFileWriter.MAGIC.length + 8);
+        for (int i = 0; i < columnsCount; i++) {
+            byte[] name = new byte[header.getInt()];
+            header.get(name);
+            ColumnarFileWriter.Type type = ColumnarFileWriter.Type.fromCode(header.getInt());
+            long count = header.getLong();
+            long offset = header.getLong();
+            if (offset + count * 8 > channel.size()) {
+                throw new IOException("Columnar file is truncated");
+            }
+            columns.put(new String(name, ColumnarFileWriter.NAME_CHARSET), new ColumnInfo(type, count, offset));
+        }
+    }
+
+    private ByteBuffer readBytes(long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of columnar file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    public List<String> getColumnNames() {
+        return new ArrayList<String>(columns.keySet());
+    }
+
+    public ColumnarFileWriter.Type getColumnType(String name) {
+        return getColumnInfo(name).type;
+    }
+
+    public long getColumnSize(String name) {
+        return getColumnInfo(name).count;
+    }
+
+    public DoubleBuffer getDoubleColumn(String name) throws IOException {
+        return map(name, ColumnarFileWriter.Type.FLOAT64).asDoubleBuffer();
+    }
+
+    public LongBuffer getLongColumn(String name) throws IOException {
+        return map(name, ColumnarFileWriter.Type.INT64).asLongBuffer();
+    }
+
+    private ColumnInfo getColumnInfo(String name) {
+        ColumnInfo info = columns.get(name);
+        if (null == info) {
+            throw new IllegalArgumentException("No such column: " + name);
+        }
+        return info;
+    }
+
+    private ByteBuffer map(String name, ColumnarFileWriter.Type type) throws IOException {
+        ColumnInfo info = getColumnInfo(name);
+        if (info.type != type) {
+            throw new IllegalArgumentException("Column " + name + " has type " + info.type);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, info.offset, info.count * 8).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Close file, mapped columns stay valid until garbage collected.
+     */
+    public void close() throws IOException {
+        file.close();
+    }
+}
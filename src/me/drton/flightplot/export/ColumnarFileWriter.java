@@ -0,0 +1,214 @@
+package me.drton.flightplot.export;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writer of binary columnar file. Values are appended to columns in any order. Each column is buffered in small
+ * chunks, full chunks of all columns are spooled to one shared temporary file, and chunks of each column are copied
+ * to the output file on close. So the number of open files doesn't depend on number of columns.
+ * <p/>
+ * File layout, all numbers little-endian:
+ * <pre>
+ * magic          8 bytes "FPCOLS01"
+ * columns count  int32
+ * data start     int32, offset of first column data
+ * for each column:
+ *   name length  int32
+ *   name         UTF-8 bytes
+ *   type         int32, 1 = int64, 2 = float64
+ *   count        int64, number of values
+ *   offset       int64, offset of column data from start of file
+ * padding        zero bytes up to data start, which is multiple of 8
+ * column data    count values of each column, contiguous, in order of columns
+ * </pre>
+ * All values are 8 bytes long, so every column is aligned to 8 bytes and can be memory-mapped as array of values.
+ */
+public class ColumnarFileWriter {
+    static final byte[] MAGIC = "FPCOLS01".getBytes(Charset.forName("US-ASCII"));
+    static final Charset NAME_CHARSET = Charset.forName("UTF-8");
+    private static final int CHUNK_SIZE = 8192;
+
+    public enum Type {
+        INT64(1),
+        FLOAT64(2);
+
+        final int code;
+
+        Type(int code) {
+            this.code = code;
+        }
+
+        static Type fromCode(int code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown column type: " + code);
+        }
+    }
+
+    private static class Column {
+        final String name;
+        final Type type;
+        final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long count = 0;
+        // Offsets of full chunks in spool file, the last chunk is in the buffer
+        long[] chunks = new long[16];
+        int chunksCount = 0;
+
+        Column(String name, Type type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private final File file;
+    private final List<Column> columns = new ArrayList<Column>();
+    private File spoolFile = null;
+    private FileChannel spool = null;
+    private long spoolSize = 0;
+    private boolean closed = false;
+
+    /**
+     * @param file output file, temporary file is created in the same directory
+     */
+    public ColumnarFileWriter(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @return index of added column
+     */
+    public int addColumn(String name, Type type) throws IOException {
+        columns.add(new Column(name, type));
+        return columns.size() - 1;
+    }
+
+    private void flushChunk(Column column) throws IOException {
+        if (spool == null) {
+            spoolFile = File.createTempFile("columns", ".tmp", file.getAbsoluteFile().getParentFile());
+            spool = new RandomAccessFile(spoolFile, "rw").getChannel();
+        }
+        if (column.chunksCount == column.chunks.length) {
+            column.chunks = Arrays.copyOf(column.chunks, column.chunksCount * 2);
+        }
+        column.chunks[column.chunksCount++] = spoolSize;
+        column.buffer.flip();
+        while (column.buffer.hasRemaining()) {
+            spoolSize += spool.write(column.buffer, spoolSize);
+        }
+        column.buffer.clear();
+    }
+
+    public void appendDouble(int column, double value) throws IOException {
+        Column c = columns.get(column);
+        if (!c.buffer.hasRemaining()) {
+            flushChunk(c);
+        }
+        c.buffer.putDouble(value);
+        c.count++;
+    }
+
+    public void appendLong(int column, long value) throws IOException {
+        Column c = columns.get(column);
+        if (!c.buffer.hasRemaining()) {
+            flushChunk(c);
+        }
+        c.buffer.putLong(value);
+        c.count++;
+    }
+
+    /**
+     * Write header and all columns to output file and delete temporary file.
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            byte[][] names = new byte[columns.size()][];
+            int headerSize = MAGIC.length + 8;
+            for (int i = 0; i < names.length; i++) {
+                names[i] = columns.get(i).name.getBytes(NAME_CHARSET);
+                headerSize += 4 + names[i].length + 4 + 8 + 8;
+            }
+            int dataStart = (headerSize + 7) & ~7;
+            ByteBuffer header = ByteBuffer.allocate(dataStart).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(MAGIC);
+            header.putInt(columns.size());
+            header.putInt(dataStart);
+            long offset = dataStart;
+            for (int i = 0; i < names.length; i++) {
+                Column column = columns.get(i);
+                header.putInt(names[i].length);
+                header.put(names[i]);
+                header.putInt(column.type.code);
+                header.putLong(column.count);
+                header.putLong(offset);
+                offset += column.count * 8;
+            }
+            header.position(0);
+            FileChannel out = new FileOutputStream(file).getChannel();
+            try {
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                for (Column column : columns) {
+                    for (int i = 0; i < column.chunksCount; i++) {
+                        long position = column.chunks[i];
+                        long end = position + CHUNK_SIZE;
+                        while (position < end) {
+                            position += spool.transferTo(position, end - position, out);
+                        }
+                    }
+                    column.buffer.flip();
+                    while (column.buffer.hasRemaining()) {
+                        out.write(column.buffer);
+                    }
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            discardSpool();
+        }
+    }
+
+    /**
+     * Delete temporary file without writing output file, used if export failed.
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        discardSpool();
+    }
+
+    private void discardSpool() {
+        if (spool == null) {
+            return;
+        }
+        try {
+            spool.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (!spoolFile.delete()) {
+            spoolFile.deleteOnExit();
+        }
+        spool = null;
+    }
+}
@@ -0,0 +1,26 @@
+package me.drton.flightplot.export;
+
+/**
+ * CesiumJS CZML document of track parts.
+ */
+public class CzmlExportFormat implements ExportFormat {
+    @Override
+    public String getFormatName() {
+        return "CesiumJS Track (CZML)";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".czml";
+    }
+
+    @Override
+    public String getFileExtensionName() {
+        return "CZML";
+    }
+
+    @Override
+    public TrackExporter getTrackExporter() {
+        return new CzmlTrackExporter();
+    }
+}
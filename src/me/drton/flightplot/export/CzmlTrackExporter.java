@@ -0,0 +1,111 @@
+package me.drton.flightplot.export;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+/**
+ * CesiumJS CZML document, track is split to path entities by flight mode. Each entity has time-tagged position
+ * samples relative to its first point, availability interval and property "flightMode". Statistics are written as
+ * properties of last packet. Packets are streamed, memory usage doesn't depend on track length.
+ */
+public class CzmlTrackExporter extends AbstractTrackExporter {
+    private boolean partStarted = false;
+    private FlightMode partFlightMode;
+    private long partStartTime;
+    private long partEndTime;
+    private boolean firstPoint;
+    private int nextPartNumber = 1;
+
+    @Override
+    protected void writeStart() throws IOException {
+        writer.write("[\n{\"id\":\"document\",\"name\":");
+        writer.write(JSONObject.quote(this.title));
+        writer.write(",\"version\":\"1.0\"}");
+    }
+
+    @Override
+    protected void startTrackPart() throws IOException {
+        // Parts are started by points, see writePoint()
+    }
+
+    private void startPart(TrackPoint point) throws IOException {
+        String name = String.format("Part %d", this.nextPartNumber++);
+        writer.write(",\n{\"id\":\"");
+        writer.write(name);
+        writer.write("\",\"name\":\"");
+        writer.write(name);
+        writer.write("\",\"properties\":{\"flightMode\":");
+        writer.write(null == point.flightMode ? "null" : "\"" + point.flightMode + "\"");
+        writer.write("},\"path\":{\"width\":2,\"material\":{\"solidColor\":{\"color\":{\"rgba\":");
+        writer.write(getColor(point.flightMode));
+        writer.write("}}}},\"position\":{\"epoch\":\"");
+        writer.writeTimestamp(point.time);
+        writer.write("\",\"cartographicDegrees\":[\n");
+        this.partFlightMode = point.flightMode;
+        this.partStartTime = point.time;
+        this.partStarted = true;
+        this.firstPoint = true;
+    }
+
+    private static String getColor(FlightMode flightMode) {
+        // The same colors as in KML
+        if (null == flightMode) {
+            return "[255,255,0,255]";
+        }
+        switch (flightMode) {
+            case AUTO:
+                return "[255,0,0,255]";
+            case STABILIZED:
+                return "[0,0,255,255]";
+            case MANUAL:
+            default:
+                return "[255,255,0,255]";
+        }
+    }
+
+    @Override
+    protected void writePoint(TrackPoint point) throws IOException {
+        if (this.partStarted && point.flightMode != this.partFlightMode) {
+            endTrackPart();
+        }
+        if (!this.partStarted) {
+            startPart(point);
+        }
+        if (!this.firstPoint) {
+            writer.write(",\n");
+        }
+        writer.writeDecimal((point.time - this.partStartTime) / 1000.0, 3);
+        writer.write(',');
+        writer.writeDecimal(point.lon, 10);
+        writer.write(',');
+        writer.writeDecimal(point.lat, 10);
+        writer.write(',');
+        writer.writeDecimal(point.alt, 2);
+        this.partEndTime = point.time;
+        this.firstPoint = false;
+    }
+
+    @Override
+    protected void endTrackPart() throws IOException {
+        if (!this.partStarted) {
+            return;
+        }
+        this.partStarted = false;
+        writer.write("\n]},\"availability\":\"");
+        writer.writeTimestamp(this.partStartTime);
+        writer.write('/');
+        writer.writeTimestamp(this.partEndTime);
+        writer.write("\"}");
+    }
+
+    @Override
+    protected void writeEnd() throws IOException {
+        if (null != this.statistics) {
+            writer.write(",\n{\"id\":\"statistics\",\"properties\":");
+            writer.write(this.statistics.toJSON().toString());
+            writer.write('}');
+        }
+        writer.write("\n]\n");
+    }
+}
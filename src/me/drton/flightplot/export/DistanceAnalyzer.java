@@ -0,0 +1,51 @@
+package me.drton.flightplot.export;
+
+/**
+ * Calculates horizontal distance flown and max ground speed between track points.
+ */
+public class DistanceAnalyzer implements TrackAnalyzer {
+    private static final double EARTH_RADIUS = 6371000.0;
+
+    private TrackPoint lastPoint = null;
+    private double distance = 0.0;
+    private double maxSpeed = 0.0;
+
+    @Override
+    public void inputTrackPoint(TrackPoint point) {
+        if (null != this.lastPoint) {
+            double d = distance(this.lastPoint, point);
+            this.distance += d;
+            long dt = point.time - this.lastPoint.time;
+            if (dt > 0) {
+                this.maxSpeed = Math.max(this.maxSpeed, d * 1000.0 / dt);
+            }
+        }
+        this.lastPoint = point;
+    }
+
+    /**
+     * Great circle distance between points in meters.
+     */
+    static double distance(TrackPoint p1, TrackPoint p2) {
+        double lat1 = Math.toRadians(p1.lat);
+        double lat2 = Math.toRadians(p2.lat);
+        double sinDLat = Math.sin((lat2 - lat1) / 2);
+        double sinDLon = Math.sin(Math.toRadians(p2.lon - p1.lon) / 2);
+        double a = sinDLat * sinDLat + Math.cos(lat1) * Math.cos(lat2) * sinDLon * sinDLon;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * @return distance in meters
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * @return max ground speed in m/s
+     */
+    public double getMaxSpeed() {
+        return maxSpeed;
+    }
+}
@@ -5,17 +5,22 @@ import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import java.awt.event.*;
 import java.util.Dictionary;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.Hashtable;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 public class ExportConfigurationDialog extends JDialog {
     private JPanel contentPane;
     private JButton buttonOK;
     private JButton buttonCancel;
     private JCheckBox splitTrackByFlightCheckBox;
-    private JComboBox exportFormat;
+    private JPanel exportFormatsPanel;
     private JSlider samplesPerSecond;
     private JLabel samplesPerSecondValue;
+    private JTextField simplifyTolerance;
     private JLabel maxTimeValue;
     private JTextField exportTimeTo;
     private JTextField exportTimeFrom;
@@ -30,21 +35,8 @@ public class ExportConfigurationDialog extends JDialog {
     private ExporterConfiguration exporterConfiguration = new ExporterConfiguration();
     private ReaderConfiguration readerConfiguration = new ReaderConfiguration();
     private ExportData exportData;
-
-    private class FormatItem {
-        String displayName;
-        String name;
-
-        FormatItem(String displayName, String name) {
-            this.displayName = displayName;
-            this.name = name;
-        }
-
-        @Override
-        public String toString() {
-            return this.displayName;
-        }
-    }
+    private Map<ExportFormatFactory.ExportFormatType, JCheckBox> formatCheckBoxes =
+            new EnumMap<ExportFormatFactory.ExportFormatType, JCheckBox>(ExportFormatFactory.ExportFormatType.class);
 
     public ExportConfigurationDialog() {
         setContentPane(contentPane);
@@ -135,7 +127,9 @@ public class ExportConfigurationDialog extends JDialog {
 
     private void initFormatList() {
         for (ExportFormatFactory.ExportFormatType type : ExportFormatFactory.ExportFormatType.values()) {
-            this.exportFormat.addItem(new FormatItem(type.getExportFormat().getFormatName(), type.name()));
+            JCheckBox checkBox = new JCheckBox(type.getExportFormat().getFormatName());
+            this.formatCheckBoxes.put(type, checkBox);
+            this.exportFormatsPanel.add(checkBox);
         }
     }
 
@@ -263,6 +257,11 @@ public class ExportConfigurationDialog extends JDialog {
     }
 
     private boolean isConfigValid() {
+        if (getSelectedFormatTypes().isEmpty()) {
+            JOptionPane.showMessageDialog(this, "At least one export format must be selected.", "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
         try {
             long from = getNumberFromTextField(this.exportTimeFrom);
             long to = getNumberFromTextField(this.exportTimeTo);
@@ -276,19 +275,46 @@ public class ExportConfigurationDialog extends JDialog {
                     , "Error", JOptionPane.ERROR_MESSAGE);
             return false;
         }
+        try {
+            if (getSimplifyTolerance() < 0.0) {
+                JOptionPane.showMessageDialog(this, "Simplify tolerance must not be negative.", "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                return false;
+            }
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Simplify tolerance must be a valid number.", "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
 
         return true;
     }
 
     private void updateConfigurationFromDialog() {
         this.exporterConfiguration.setSplitTracksByFlightMode(this.splitTrackByFlightCheckBox.isSelected());
-        FormatItem item = (FormatItem) this.exportFormat.getSelectedItem();
-        this.exporterConfiguration.setExportFormatType(ExportFormatFactory.ExportFormatType.valueOf(item.name));
+        this.exporterConfiguration.setExportFormatTypes(getSelectedFormatTypes());
 
         this.readerConfiguration.setSamplesPerSecond(getSamplesPerSecond());
+        this.readerConfiguration.setSimplifyTolerance(getSimplifyTolerance());
         this.readerConfiguration.setTimeToInSeconds(getNumberFromTextField(this.exportTimeTo));
         this.readerConfiguration.setTimeFromInSeconds(getNumberFromTextField(this.exportTimeFrom));
         this.readerConfiguration.setExportChartRangeOnly(this.exportDataInRange.isSelected());
+        this.readerConfiguration.setChartRange(this.exportData.getChartRangeFrom(), this.exportData.getChartRangeTo());
+    }
+
+    private Set<ExportFormatFactory.ExportFormatType> getSelectedFormatTypes() {
+        Set<ExportFormatFactory.ExportFormatType> types = EnumSet.noneOf(ExportFormatFactory.ExportFormatType.class);
+        for (Map.Entry<ExportFormatFactory.ExportFormatType, JCheckBox> entry : this.formatCheckBoxes.entrySet()) {
+            if (entry.getValue().isSelected()) {
+                types.add(entry.getKey());
+            }
+        }
+        return types;
+    }
+
+    private double getSimplifyTolerance() {
+        String text = this.simplifyTolerance.getText().trim();
+        return text.isEmpty() ? 0.0 : Double.parseDouble(text);
     }
 
     private long getNumberFromTextField(final JTextField field) {
@@ -297,16 +323,12 @@ public class ExportConfigurationDialog extends JDialog {
 
     private void updateDialogFromConfiguration() {
         this.splitTrackByFlightCheckBox.setSelected(this.exporterConfiguration.isSplitTracksByFlightMode());
-        if (null != this.exporterConfiguration.getExportFormatType()) {
-            for (int index = 0; index < this.exportFormat.getItemCount(); index++) {
-                FormatItem item = (FormatItem) this.exportFormat.getItemAt(index);
-                if (this.exporterConfiguration.getExportFormatType().name().equals(item.name)) {
-                    this.exportFormat.setSelectedIndex(index);
-                    break;
-                }
-            }
+        Set<ExportFormatFactory.ExportFormatType> types = this.exporterConfiguration.getExportFormatTypes();
+        for (Map.Entry<ExportFormatFactory.ExportFormatType, JCheckBox> entry : this.formatCheckBoxes.entrySet()) {
+            entry.getValue().setSelected(types.contains(entry.getKey()));
         }
         setSamplesPerSecond(this.readerConfiguration.getSamplesPerSecond());
+        this.simplifyTolerance.setText(Double.toString(this.readerConfiguration.getSimplifyTolerance()));
         this.maxTimeValue.setText(String.format(Locale.ROOT, " (max: %d)", this.exportData.getLogSizeInSeconds()));
         this.exportDataInRange.setSelected(this.readerConfiguration.isExportChartRangeOnly());
         updateForExportDataInRange();
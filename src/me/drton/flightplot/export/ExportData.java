@@ -2,6 +2,8 @@ package me.drton.flightplot.export;
 
 import me.drton.jmavlib.log.LogReader;
 
+import java.io.File;
+
 /**
  * Created by ada on 04.02.14.
  */
@@ -9,18 +11,33 @@ public class ExportData {
     private long chartRangeFrom;
     private long chartRangeTo;
     private LogReader logReader;
+    private File logFile;
 
     public long getChartRangeToInSeconds() {
-        return (long) Math.min(Math.ceil((chartRangeTo - this.logReader.getStartMicroseconds()) / 1000000),
+        return (long) Math.min(Math.ceil((getChartRangeTo() - this.logReader.getStartMicroseconds()) / 1e6),
                 getLogSizeInSeconds());
     }
 
     public long getChartRangeFromInSeconds() {
-        return (long) Math.max(Math.ceil((chartRangeFrom - this.logReader.getStartMicroseconds()) / 1000000), 0);
+        return (long) Math.max(Math.floor((getChartRangeFrom() - this.logReader.getStartMicroseconds()) / 1e6), 0);
     }
 
     public long getLogSizeInSeconds() {
-        return (long) Math.ceil(this.logReader.getSizeMicroseconds() / 1000000);
+        return (long) Math.ceil(this.logReader.getSizeMicroseconds() / 1e6);
+    }
+
+    /**
+     * @return start of displayed range in us of native log time, limited by log start
+     */
+    public long getChartRangeFrom() {
+        return Math.max(chartRangeFrom, this.logReader.getStartMicroseconds());
+    }
+
+    /**
+     * @return end of displayed range in us of native log time, limited by log end
+     */
+    public long getChartRangeTo() {
+        return Math.min(chartRangeTo, this.logReader.getStartMicroseconds() + this.logReader.getSizeMicroseconds());
     }
 
     public void setChartRangeFrom(long chartRangeFrom) {
@@ -38,4 +55,12 @@ public class ExportData {
     public void setLogReader(LogReader logReader) {
         this.logReader = logReader;
     }
+
+    public File getLogFile() {
+        return logFile;
+    }
+
+    public void setLogFile(File logFile) {
+        this.logFile = logFile;
+    }
 }
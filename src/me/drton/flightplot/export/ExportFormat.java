@@ -10,5 +10,5 @@ public interface ExportFormat {
 
     String getFileExtensionName();
 
-    TrackExporter getTrackExporter(TrackReader trackReader);
+    TrackExporter getTrackExporter();
 }
@@ -6,7 +6,11 @@ package me.drton.flightplot.export;
 public class ExportFormatFactory {
     public enum ExportFormatType {
         KML(new KmlExportFormat()),
-        GPX(new GpxExportFormat());
+        KMZ(new KmzExportFormat()),
+        GPX(new GpxExportFormat()),
+        GPX_GZ(new GpxGzipExportFormat()),
+        GEOJSON(new GeoJsonExportFormat()),
+        CZML(new CzmlExportFormat());
 
         private ExportFormat exportFormat;
 
@@ -7,6 +7,8 @@ import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.prefs.Preferences;
 
 /**
@@ -18,10 +20,12 @@ public class ExportManager {
     private static final String EXPORTER_CONFIGURATION_SETTING = "ExporterConfiguration";
     private static final String READER_CONFIGURATION_SETTING = "ReaderConfiguration";
     private static final String LAST_EXPORT_DIRECTORY_SETTING = "LastExportDirectory";
+    static final String STATISTICS_FILE_EXTENSION = ".stats.json";
 
     private File lastExportDirectory;
     private ExportConfigurationDialog dialog;
     private ExportRunner runner;
+    private BatchExportJob batchJob;
     private PreferencesUtil preferencesUtil;
 
     public ExportManager() {
@@ -32,15 +36,25 @@ public class ExportManager {
     public boolean export(ExportData exportData, Runnable finishedCallback)
             throws IOException, FormatErrorException, ConfigurationException {
         if (showConfigurationDialog(exportData)) {
-            ExportFormat exportFormat = this.dialog.getExporterConfiguration().getExportFormat();
-            File destination = getExportDestination(exportFormat);
-
-            if (null != destination) {
-                TrackReader trackReader = TrackReaderFactory.getTrackReader(exportData.getLogReader());
-                TrackExporter exporter = exportFormat.getTrackExporter(trackReader);
-                trackReader.setConfiguration(this.dialog.getReaderConfiguration());
-                exporter.setConfiguration(this.dialog.getExporterConfiguration());
-                this.runner = new ExportRunner(trackReader, exporter, destination);
+            List<ExportFormat> exportFormats = this.dialog.getExporterConfiguration().getExportFormats();
+            List<File> destinations = getExportDestinations(exportFormats);
+
+            if (null != destinations) {
+                TrackStatistics statistics = new TrackStatistics();
+                TrackReader trackReader = TrackReaderFactory.createTrackReader(exportData.getLogReader(),
+                        exportData.getLogFile(), this.dialog.getReaderConfiguration(), statistics);
+                List<TrackExporter> exporters = new ArrayList<TrackExporter>();
+                for (ExportFormat exportFormat : exportFormats) {
+                    TrackExporter exporter = exportFormat.getTrackExporter();
+                    exporter.setConfiguration(this.dialog.getExporterConfiguration());
+                    exporters.add(exporter);
+                }
+                this.batchJob = null;
+                this.runner = new ExportRunner(trackReader, exporters, destinations);
+                String firstPath = destinations.get(0).getPath();
+                String baseName = firstPath.substring(0,
+                        firstPath.length() - exportFormats.get(0).getFileExtension().length());
+                this.runner.setStatistics(statistics, new File(baseName + STATISTICS_FILE_EXTENSION));
                 this.runner.setFinishedCallback(finishedCallback);
                 new Thread(this.runner).start();
                 return true;
@@ -49,47 +63,131 @@ public class ExportManager {
         return false;
     }
 
+    /**
+     * Export tracks of all logs in directory selected by user with settings of last export.
+     *
+     * @return true if export was started
+     */
+    public boolean exportDirectory(Runnable finishedCallback) {
+        if (this.dialog.getExporterConfiguration().getExportFormatTypes().isEmpty()) {
+            JOptionPane.showMessageDialog(null, "Export formats must be selected in track export settings first.",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+        JFileChooser fc = new JFileChooser();
+        if (lastExportDirectory != null) {
+            fc.setCurrentDirectory(lastExportDirectory);
+        }
+        fc.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        fc.setDialogTitle("Export Tracks of All Logs in Directory");
+        if (fc.showDialog(null, "Export") != JFileChooser.APPROVE_OPTION) {
+            return false;
+        }
+        File directory = fc.getSelectedFile();
+        lastExportDirectory = directory;
+        this.runner = null;
+        this.batchJob = new BatchExportJob(directory, this.dialog.getExporterConfiguration(),
+                this.dialog.getReaderConfiguration());
+        this.batchJob.setFinishedCallback(finishedCallback);
+        new Thread(this.batchJob, "Batch export").start();
+        return true;
+    }
+
     private boolean showConfigurationDialog(ExportData exportData) {
         this.dialog.display(exportData);
         return !this.dialog.isCanceled();
     }
 
-    private File getExportDestination(ExportFormat exportFormat) {
+    /**
+     * Ask for destination file name, files of all formats are named the same with extension of each format.
+     *
+     * @return destination files in order of formats or null if canceled
+     */
+    private List<File> getExportDestinations(List<ExportFormat> exportFormats) {
         JFileChooser fc = new JFileChooser();
         if (lastExportDirectory != null) {
             fc.setCurrentDirectory(lastExportDirectory);
         }
-        FileNameExtensionFilter extensionFilter = new FileNameExtensionFilter(exportFormat.getFileExtensionName(),
-                exportFormat.getFileExtension());
+        String[] extensions = new String[exportFormats.size()];
+        String[] filterExtensions = new String[exportFormats.size()];
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < extensions.length; i++) {
+            extensions[i] = exportFormats.get(i).getFileExtension();
+            filterExtensions[i] = extensions[i].substring(extensions[i].lastIndexOf('.') + 1);
+            if (i > 0) {
+                description.append(", ");
+            }
+            description.append(exportFormats.get(i).getFileExtensionName());
+        }
+        FileNameExtensionFilter extensionFilter = new FileNameExtensionFilter(description.toString(),
+                filterExtensions);
         fc.setFileFilter(extensionFilter);
         fc.setDialogTitle("Export Track");
         int returnVal = fc.showDialog(null, "Export");
         if (returnVal == JFileChooser.APPROVE_OPTION) {
             lastExportDirectory = fc.getCurrentDirectory();
             String exportFileName = fc.getSelectedFile().toString();
-            String exportFileExtension = extensionFilter.getExtensions()[0];
-            if (extensionFilter == fc.getFileFilter() && !exportFileName.toLowerCase().endsWith(exportFileExtension)) {
-                exportFileName += exportFileExtension;
+            for (String extension : extensions) {
+                if (exportFileName.toLowerCase().endsWith(extension)) {
+                    exportFileName = exportFileName.substring(0, exportFileName.length() - extension.length());
+                    break;
+                }
             }
-            File exportFile = new File(exportFileName);
-            if (!exportFile.exists()) {
-                return exportFile;
+            List<File> exportFiles = new ArrayList<File>();
+            StringBuilder existingFiles = new StringBuilder();
+            for (String extension : extensions) {
+                File exportFile = new File(exportFileName + extension);
+                exportFiles.add(exportFile);
+                if (exportFile.exists()) {
+                    existingFiles.append("\n").append(exportFile.getAbsoluteFile());
+                }
+            }
+            if (existingFiles.length() == 0) {
+                return exportFiles;
             } else {
                 int result = JOptionPane.showConfirmDialog(null,
-                        "Do you want to overwrite the existing file?" + "\n" + exportFile.getAbsoluteFile(),
+                        "Do you want to overwrite the existing files?" + existingFiles,
                         "File already exists", JOptionPane.YES_NO_OPTION);
                 if (JOptionPane.YES_OPTION == result) {
-                    return exportFile;
+                    return exportFiles;
                 }
             }
         }
         return null;
     }
 
+    /**
+     * Cancel running export, if any.
+     */
+    public void cancel() {
+        if (null != this.runner) {
+            this.runner.cancel();
+        }
+        if (null != this.batchJob) {
+            this.batchJob.cancel();
+        }
+    }
+
+    /**
+     * @return progress of last export, from 0 to 1
+     */
+    public double getProgress() {
+        if (null != this.runner) {
+            return this.runner.getProgress();
+        }
+        if (null != this.batchJob) {
+            return this.batchJob.getProgress();
+        }
+        return 0.0;
+    }
+
     public String getLastStatusMessage() {
         if (null != this.runner) {
             return this.runner.getStatusMessage();
         }
+        if (null != this.batchJob) {
+            return this.batchJob.getStatusMessage();
+        }
         return "";
     }
 
@@ -6,58 +6,266 @@ import java.io.File;
 import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Created by ada on 19.01.14.
+ * Reads track once and passes points to all exporters, each exporter runs in own thread.
+ * Files of failed or cancelled export are deleted.
  */
 public class ExportRunner implements Runnable {
+    private static final int BATCH_SIZE = 256;
+    private static final int QUEUE_SIZE = 16;
+    // Markers of end of points, compared by identity
+    private static final TrackPoint[] END_OF_TRACK = new TrackPoint[0];
+    private static final TrackPoint[] ABORT = new TrackPoint[0];
 
     private TrackReader reader;
 
-    private TrackExporter exporter;
+    private List<TrackExporter> exporters;
 
     private String statusMessage;
 
     private Runnable finishedCallback;
 
-    private File destination;
+    private List<File> destinations;
 
-    public ExportRunner(TrackReader reader, TrackExporter exporter, File destination) {
+    private volatile boolean cancelled = false;
+
+    private volatile double progress = 0.0;
+
+    private boolean successful = false;
+
+    private TrackStatistics statistics;
+
+    private File statisticsFile;
+
+    /**
+     * Export thread of one exporter, gets batches of points through bounded queue.
+     */
+    private static class ExporterWorker implements Runnable {
+        private final TrackExporter exporter;
+        private final File file;
+        private final String title;
+        private final BlockingQueue<TrackPoint[]> queue = new ArrayBlockingQueue<TrackPoint[]>(QUEUE_SIZE);
+        private volatile Exception error = null;
+
+        private ExporterWorker(TrackExporter exporter, File file, String title) {
+            this.exporter = exporter;
+            this.file = file;
+            this.title = title;
+        }
+
+        @Override
+        public void run() {
+            try {
+                this.exporter.start(this.file, this.title);
+            } catch (IOException e) {
+                this.error = e;
+            }
+            try {
+                while (true) {
+                    TrackPoint[] batch = this.queue.take();
+                    if (batch == END_OF_TRACK && null == this.error) {
+                        try {
+                            this.exporter.finish();
+                        } catch (IOException e) {
+                            this.error = e;
+                        }
+                        return;
+                    } else if (batch == END_OF_TRACK || batch == ABORT) {
+                        this.exporter.abort();
+                        return;
+                    }
+                    // Keep taking batches after error, reader must not be blocked
+                    if (null == this.error) {
+                        try {
+                            for (TrackPoint point : batch) {
+                                this.exporter.exportPoint(point);
+                            }
+                        } catch (Exception e) {
+                            this.error = e;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                this.error = e;
+                this.exporter.abort();
+            }
+        }
+    }
+
+    public ExportRunner(TrackReader reader, List<TrackExporter> exporters, List<File> destinations) {
         this.reader = reader;
-        this.exporter = exporter;
-        this.destination = destination;
+        this.exporters = exporters;
+        this.destinations = destinations;
     }
 
     @Override
     public void run() {
         try {
-            doExport(this.destination);
+            doExport();
         } catch (Exception e) {
             this.statusMessage = "Error: " + e;
             e.printStackTrace();
+        } finally {
+            try {
+                this.reader.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
         }
         finish();
     }
 
+    /**
+     * Set statistics calculated by reader, they are passed to exporters and written as JSON summary after export.
+     *
+     * @param statisticsFile file for JSON summary, may be null
+     */
+    public void setStatistics(TrackStatistics statistics, File statisticsFile) {
+        this.statistics = statistics;
+        this.statisticsFile = statisticsFile;
+        for (TrackExporter exporter : this.exporters) {
+            exporter.setStatistics(statistics);
+        }
+    }
+
     private void finish() {
         if (null != this.finishedCallback) {
             this.finishedCallback.run();
         }
     }
 
-    private void doExport(File exportFile) throws IOException, FormatErrorException {
-        // get time of first point to use it as track title
+    private void doExport() throws IOException, FormatErrorException, InterruptedException {
+        // Time of first point is used as track title, the point is exported as part of first batch
         TrackPoint point = this.reader.readNextPoint();
-        this.reader.reset();
-        if (null != point) {
-            DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            String trackTitle = dateFormat.format(point.time) + " UTC";
-            this.exporter.exportToFile(exportFile, trackTitle);
-            this.statusMessage = String.format("Successfully exported track %s to %s", trackTitle,
-                    exportFile.getAbsoluteFile());
-        } else {
+        if (null == point) {
             this.statusMessage = String.format("Couldn't find any data to export");
+            return;
+        }
+        DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        String trackTitle = dateFormat.format(point.time) + " UTC";
+
+        List<ExporterWorker> workers = new ArrayList<ExporterWorker>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < this.exporters.size(); i++) {
+            ExporterWorker worker = new ExporterWorker(this.exporters.get(i), this.destinations.get(i), trackTitle);
+            Thread thread = new Thread(worker, "Export " + this.destinations.get(i).getName());
+            workers.add(worker);
+            threads.add(thread);
+            thread.start();
+        }
+        TrackPoint[] marker = ABORT;
+        try {
+            TrackPoint[] batch = new TrackPoint[BATCH_SIZE];
+            int size = 0;
+            while (null != point) {
+                if (this.cancelled) {
+                    break;
+                }
+                this.progress = this.reader.getProgress();
+                batch[size++] = point;
+                if (size == BATCH_SIZE) {
+                    dispatch(workers, batch);
+                    batch = new TrackPoint[BATCH_SIZE];
+                    size = 0;
+                }
+                point = this.reader.readNextPoint();
+            }
+            if (!this.cancelled) {
+                if (size > 0) {
+                    dispatch(workers, Arrays.copyOf(batch, size));
+                }
+                marker = END_OF_TRACK;
+            }
+        } finally {
+            for (ExporterWorker worker : workers) {
+                worker.queue.put(marker);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            if (marker == ABORT) {
+                deleteDestinations();
+            }
         }
+
+        if (this.cancelled) {
+            this.statusMessage = "Cancelled";
+            return;
+        }
+        StringBuilder files = new StringBuilder();
+        for (int i = 0; i < workers.size(); i++) {
+            Exception error = workers.get(i).error;
+            if (null != error) {
+                error.printStackTrace();
+                deleteDestinations();
+                this.statusMessage = String.format("Error exporting %s: %s", this.destinations.get(i), error);
+                return;
+            }
+            if (i > 0) {
+                files.append(", ");
+            }
+            files.append(this.destinations.get(i).getAbsoluteFile());
+        }
+        if (null != this.statistics && null != this.statisticsFile) {
+            try {
+                this.statistics.writeJSON(this.statisticsFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+                deleteDestinations();
+                this.statusMessage = String.format("Error writing statistics %s: %s", this.statisticsFile, e);
+                return;
+            }
+            files.append(", ").append(this.statisticsFile.getAbsoluteFile());
+        }
+        this.progress = 1.0;
+        this.successful = true;
+        this.statusMessage = String.format("Successfully exported track %s to %s", trackTitle, files);
+    }
+
+    private void deleteDestinations() {
+        for (File file : this.destinations) {
+            if (file.exists() && !file.delete()) {
+                System.err.println("Couldn't delete partially exported file " + file);
+            }
+        }
+        if (null != this.statisticsFile && this.statisticsFile.exists() && !this.statisticsFile.delete()) {
+            System.err.println("Couldn't delete partially exported file " + this.statisticsFile);
+        }
+    }
+
+    private static void dispatch(List<ExporterWorker> workers, TrackPoint[] batch) throws InterruptedException {
+        // Batch is shared by all workers, it is not modified after dispatching
+        for (ExporterWorker worker : workers) {
+            worker.queue.put(batch);
+        }
+    }
+
+    /**
+     * Stop export as soon as possible, exported files are deleted. Can be called from any thread.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * @return part of track already read, from 0 to 1
+     */
+    public double getProgress() {
+        return progress;
+    }
+
+    /**
+     * @return true if all files were exported
+     */
+    public boolean isSuccessful() {
+        return successful;
     }
 
     public String getStatusMessage() {
@@ -1,5 +1,9 @@
 package me.drton.flightplot.export;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import java.util.prefs.Preferences;
 
 /**
@@ -9,24 +13,34 @@ public class ExporterConfiguration {
     private boolean splitTracksByFlightMode;
     private final static String SPLIT_TRACK_BY_FLIGHT_MODE_SETTING = "splitTracksByFlightMode";
 
-    private ExportFormatFactory.ExportFormatType exportFormatType;
+    private Set<ExportFormatFactory.ExportFormatType> exportFormatTypes =
+            EnumSet.noneOf(ExportFormatFactory.ExportFormatType.class);
+    private final static String EXPORT_FORMAT_TYPES_SETTING = "exportFormatTypes";
     private final static String EXPORT_FORMAT_TYPE_SETTING = "exportFormatType";
 
     public void saveConfiguration(Preferences preferences) {
         preferences.putBoolean(SPLIT_TRACK_BY_FLIGHT_MODE_SETTING, this.splitTracksByFlightMode);
-        if (null != this.exportFormatType) {
-            preferences.put(EXPORT_FORMAT_TYPE_SETTING, this.exportFormatType.name());
+        StringBuilder formatTypes = new StringBuilder();
+        for (ExportFormatFactory.ExportFormatType type : this.exportFormatTypes) {
+            if (formatTypes.length() > 0) {
+                formatTypes.append(',');
+            }
+            formatTypes.append(type.name());
         }
+        preferences.put(EXPORT_FORMAT_TYPES_SETTING, formatTypes.toString());
     }
 
     public void loadConfiguration(Preferences preferences) {
         this.splitTracksByFlightMode = preferences.getBoolean(SPLIT_TRACK_BY_FLIGHT_MODE_SETTING, false);
-        String formatType = preferences.get(EXPORT_FORMAT_TYPE_SETTING, null);
-        if (null != formatType) {
+        // Older versions stored single format
+        String formatTypes = preferences.get(EXPORT_FORMAT_TYPES_SETTING,
+                preferences.get(EXPORT_FORMAT_TYPE_SETTING, ""));
+        this.exportFormatTypes = EnumSet.noneOf(ExportFormatFactory.ExportFormatType.class);
+        for (String formatType : formatTypes.split(",")) {
             try {
-                this.exportFormatType = ExportFormatFactory.ExportFormatType.valueOf(formatType);
+                this.exportFormatTypes.add(ExportFormatFactory.ExportFormatType.valueOf(formatType));
             } catch (IllegalArgumentException e) {
-                this.exportFormatType = null;
+                // Unknown or empty format name
             }
         }
     }
@@ -39,15 +53,23 @@ public class ExporterConfiguration {
         this.splitTracksByFlightMode = splitTracksByFlightMode;
     }
 
-    public ExportFormat getExportFormat() {
-        return this.exportFormatType.getExportFormat();
+    /**
+     * @return selected export formats in order of format types
+     */
+    public List<ExportFormat> getExportFormats() {
+        List<ExportFormat> formats = new ArrayList<ExportFormat>();
+        for (ExportFormatFactory.ExportFormatType type : this.exportFormatTypes) {
+            formats.add(type.getExportFormat());
+        }
+        return formats;
     }
 
-    public ExportFormatFactory.ExportFormatType getExportFormatType() {
-        return exportFormatType;
+    public Set<ExportFormatFactory.ExportFormatType> getExportFormatTypes() {
+        return exportFormatTypes;
     }
 
-    public void setExportFormatType(ExportFormatFactory.ExportFormatType exportFormatType) {
-        this.exportFormatType = exportFormatType;
+    public void setExportFormatTypes(Set<ExportFormatFactory.ExportFormatType> exportFormatTypes) {
+        this.exportFormatTypes = EnumSet.noneOf(ExportFormatFactory.ExportFormatType.class);
+        this.exportFormatTypes.addAll(exportFormatTypes);
     }
 }
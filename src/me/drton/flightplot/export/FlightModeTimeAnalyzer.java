@@ -0,0 +1,40 @@
+package me.drton.flightplot.export;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Calculates track duration and time spent in each flight mode. Time between two points is counted for flight mode
+ * of the first point, time of points without known flight mode is only counted in duration.
+ */
+public class FlightModeTimeAnalyzer implements TrackAnalyzer {
+    private TrackPoint lastPoint = null;
+    private long startTime = 0;
+    private final Map<FlightMode, Long> flightModeTimes = new EnumMap<FlightMode, Long>(FlightMode.class);
+
+    @Override
+    public void inputTrackPoint(TrackPoint point) {
+        if (null == this.lastPoint) {
+            this.startTime = point.time;
+        } else if (null != this.lastPoint.flightMode) {
+            Long time = this.flightModeTimes.get(this.lastPoint.flightMode);
+            this.flightModeTimes.put(this.lastPoint.flightMode,
+                    (null == time ? 0 : time) + point.time - this.lastPoint.time);
+        }
+        this.lastPoint = point;
+    }
+
+    /**
+     * @return time between first and last point in ms
+     */
+    public long getDuration() {
+        return null == this.lastPoint ? 0 : this.lastPoint.time - this.startTime;
+    }
+
+    /**
+     * @return time in ms for each flight mode that was used
+     */
+    public Map<FlightMode, Long> getFlightModeTimes() {
+        return flightModeTimes;
+    }
+}
@@ -0,0 +1,26 @@
+package me.drton.flightplot.export;
+
+/**
+ * GeoJSON FeatureCollection of track parts.
+ */
+public class GeoJsonExportFormat implements ExportFormat {
+    @Override
+    public String getFormatName() {
+        return "GeoJSON Track (GeoJSON)";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".geojson";
+    }
+
+    @Override
+    public String getFileExtensionName() {
+        return "GeoJSON";
+    }
+
+    @Override
+    public TrackExporter getTrackExporter() {
+        return new GeoJsonTrackExporter();
+    }
+}
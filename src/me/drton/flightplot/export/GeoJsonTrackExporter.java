@@ -0,0 +1,149 @@
+package me.drton.flightplot.export;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * GeoJSON FeatureCollection, track is split to LineString features by flight mode. Each feature has properties
+ * "name", "flightMode" and "coordTimes" with ISO 8601 time of each coordinate. Statistics are written as foreign
+ * member "statistics" of the collection.
+ * <p/>
+ * Coordinates are streamed to the file, times of current feature are spooled to temporary file next to it and
+ * appended after the geometry, so memory usage doesn't depend on track length.
+ */
+public class GeoJsonTrackExporter extends AbstractTrackExporter {
+    private File file;
+    private File timesFile;
+    private TrackFileWriter timesWriter;
+    private boolean partStarted = false;
+    private FlightMode partFlightMode;
+    private boolean firstPart;
+    private boolean firstPoint;
+    private int nextPartNumber = 1;
+
+    @Override
+    public void start(File file, String title) throws IOException {
+        this.file = file;
+        super.start(file, title);
+    }
+
+    @Override
+    protected void writeStart() throws IOException {
+        writer.write("{\"type\":\"FeatureCollection\",\"name\":");
+        writer.write(JSONObject.quote(this.title));
+        writer.write(",\"features\":[\n");
+        this.firstPart = true;
+    }
+
+    @Override
+    protected void startTrackPart() throws IOException {
+        // Parts are started by points, see writePoint()
+    }
+
+    private void startPart(FlightMode flightMode) throws IOException {
+        if (null == this.timesFile) {
+            this.timesFile = File.createTempFile("times", ".tmp", this.file.getAbsoluteFile().getParentFile());
+        }
+        this.timesWriter = new TrackFileWriter(new FileOutputStream(this.timesFile));
+        if (!this.firstPart) {
+            writer.write(",\n");
+        }
+        writer.write("{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[\n");
+        this.partFlightMode = flightMode;
+        this.partStarted = true;
+        this.firstPart = false;
+        this.firstPoint = true;
+    }
+
+    @Override
+    protected void writePoint(TrackPoint point) throws IOException {
+        if (this.partStarted && point.flightMode != this.partFlightMode) {
+            endTrackPart();
+        }
+        if (!this.partStarted) {
+            startPart(point.flightMode);
+        }
+        if (!this.firstPoint) {
+            writer.write(",\n");
+            timesWriter.write(',');
+        }
+        writer.write('[');
+        writer.writeDecimal(point.lon, 10);
+        writer.write(',');
+        writer.writeDecimal(point.lat, 10);
+        writer.write(',');
+        writer.writeDecimal(point.alt, 2);
+        writer.write(']');
+        timesWriter.write('"');
+        timesWriter.writeTimestamp(point.time);
+        timesWriter.write('"');
+        this.firstPoint = false;
+    }
+
+    @Override
+    protected void endTrackPart() throws IOException {
+        if (!this.partStarted) {
+            return;
+        }
+        this.partStarted = false;
+        this.timesWriter.close();
+        this.timesWriter = null;
+        writer.write("\n]},\"properties\":{\"name\":\"");
+        writer.write(String.format("Part %d", this.nextPartNumber++));
+        writer.write("\",\"flightMode\":");
+        writer.write(null == this.partFlightMode ? "null" : "\"" + this.partFlightMode + "\"");
+        writer.write(",\"coordTimes\":[");
+        InputStream times = new FileInputStream(this.timesFile);
+        try {
+            writer.writeBytes(times);
+        } finally {
+            times.close();
+        }
+        writer.write("]}}");
+    }
+
+    @Override
+    protected void writeEnd() throws IOException {
+        writer.write("\n]");
+        if (null != this.statistics) {
+            writer.write(",\"statistics\":");
+            writer.write(this.statistics.toJSON().toString());
+        }
+        writer.write("}\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        try {
+            super.finish();
+        } finally {
+            deleteTimesFile();
+        }
+    }
+
+    @Override
+    public void abort() {
+        deleteTimesFile();
+        super.abort();
+    }
+
+    private void deleteTimesFile() {
+        if (null != this.timesWriter) {
+            try {
+                this.timesWriter.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            this.timesWriter = null;
+        }
+        if (null != this.timesFile && !this.timesFile.delete()) {
+            this.timesFile.deleteOnExit();
+        }
+        this.timesFile = null;
+    }
+}
@@ -20,7 +20,7 @@ public class GpxExportFormat implements ExportFormat {
     }
 
     @Override
-    public TrackExporter getTrackExporter(TrackReader trackReader) {
-        return new GpxTrackExporter(trackReader);
+    public TrackExporter getTrackExporter() {
+        return new GpxTrackExporter();
     }
 }
@@ -0,0 +1,26 @@
+package me.drton.flightplot.export;
+
+/**
+ * GPX track compressed with gzip.
+ */
+public class GpxGzipExportFormat implements ExportFormat {
+    @Override
+    public String getFormatName() {
+        return "Gzipped GPS Exchange Format (GPX.GZ)";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".gpx.gz";
+    }
+
+    @Override
+    public String getFileExtensionName() {
+        return "GPX.GZ";
+    }
+
+    @Override
+    public TrackExporter getTrackExporter() {
+        return new GpxGzipTrackExporter();
+    }
+}
@@ -0,0 +1,21 @@
+package me.drton.flightplot.export;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * GPX track compressed on the fly with gzip.
+ */
+public class GpxGzipTrackExporter extends GpxTrackExporter {
+    private static final int BUFFER_SIZE = 65536;
+
+    @Override
+    protected OutputStream openOutputStream(File file) throws IOException {
+        OutputStream fileOut = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+        return compressInBackground(new GZIPOutputStream(fileOut, BUFFER_SIZE), file);
+    }
+}
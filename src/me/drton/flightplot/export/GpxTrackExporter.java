@@ -1,23 +1,18 @@
 package me.drton.flightplot.export;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Locale;
+import java.util.Map;
 
 /**
  * Created by ada on 16.02.14.
  */
 public class GpxTrackExporter extends AbstractTrackExporter {
-
-    private final SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-
-    public GpxTrackExporter(TrackReader trackReader) {
-        super(trackReader);
-    }
+    private static final String STATISTICS_NAMESPACE = "urn:flightplot:statistics";
 
     protected void writeStart() throws IOException {
         writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
         writer.write("<gpx xmlns=\"http://www.topografix.com/GPX/1/1\" version=\"1.1\" creator=\"FlightPlot\" \n" +
+                "    xmlns:fp=\"" + STATISTICS_NAMESPACE + "\" \n" +
                 "    xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" \n" +
                 "    xsi:schemaLocation=\"http://www.topografix.com/GPX/1/1 http://www.topografix.com/GPX/1/1/gpx.xsd\">\n");
         writer.write("<metadata>\n");
@@ -31,10 +26,15 @@ public class GpxTrackExporter extends AbstractTrackExporter {
     }
 
     protected void writePoint(TrackPoint point) throws IOException {
-        writer.write(String.format(Locale.ROOT, "<trkpt lat=\"%.10f\" lon=\"%.10f\">\n", point.lat, point.lon));
-        writer.write(String.format(Locale.ROOT, "<ele>%.2f</ele>\n", point.alt));
-        writer.write(String.format("<time>%s</time>\n", dateFormatter.format(point.time)));
-        writer.write("</trkpt>\n");
+        writer.write("<trkpt lat=\"");
+        writer.writeDecimal(point.lat, 10);
+        writer.write("\" lon=\"");
+        writer.writeDecimal(point.lon, 10);
+        writer.write("\">\n<ele>");
+        writer.writeDecimal(point.alt, 2);
+        writer.write("</ele>\n<time>");
+        writer.writeTimestamp(point.time);
+        writer.write("</time>\n</trkpt>\n");
     }
 
     protected void endTrackPart() throws IOException {
@@ -43,6 +43,35 @@ public class GpxTrackExporter extends AbstractTrackExporter {
 
     protected void writeEnd() throws IOException {
         writer.write("</trk>\n");
+        if (null != this.statistics) {
+            writeStatistics();
+        }
         writer.write("</gpx>\n");
     }
+
+    private void writeStatistics() throws IOException {
+        DistanceAnalyzer distance = this.statistics.getDistanceAnalyzer();
+        AltitudeAnalyzer altitude = this.statistics.getAltitudeAnalyzer();
+        FlightModeTimeAnalyzer flightModeTime = this.statistics.getFlightModeTimeAnalyzer();
+        writer.write("<extensions>\n<fp:statistics>\n<fp:duration>");
+        writer.writeDecimal(flightModeTime.getDuration() / 1000.0, 3);
+        writer.write("</fp:duration>\n<fp:distance>");
+        writer.writeDecimal(distance.getDistance(), 2);
+        writer.write("</fp:distance>\n<fp:maxSpeed>");
+        writer.writeDecimal(distance.getMaxSpeed(), 2);
+        writer.write("</fp:maxSpeed>\n");
+        if (this.statistics.getPointsCount() > 0) {
+            writer.write("<fp:minAltitude>");
+            writer.writeDecimal(altitude.getMinAltitude(), 2);
+            writer.write("</fp:minAltitude>\n<fp:maxAltitude>");
+            writer.writeDecimal(altitude.getMaxAltitude(), 2);
+            writer.write("</fp:maxAltitude>\n");
+        }
+        for (Map.Entry<FlightMode, Long> entry : flightModeTime.getFlightModeTimes().entrySet()) {
+            writer.write("<fp:flightModeTime mode=\"" + entry.getKey() + "\">");
+            writer.writeDecimal(entry.getValue() / 1000.0, 3);
+            writer.write("</fp:flightModeTime>\n");
+        }
+        writer.write("</fp:statistics>\n</extensions>\n");
+    }
 }
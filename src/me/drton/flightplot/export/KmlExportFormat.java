@@ -20,7 +20,7 @@ public class KmlExportFormat implements ExportFormat {
     }
 
     @Override
-    public TrackExporter getTrackExporter(TrackReader trackReader) {
-        return new KmlTrackExporter(trackReader);
+    public TrackExporter getTrackExporter() {
+        return new KmlTrackExporter();
     }
 }
@@ -1,8 +1,6 @@
 package me.drton.flightplot.export;
 
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Locale;
 
 /**
  * Created by ada on 23.12.13.
@@ -14,11 +12,6 @@ public class KmlTrackExporter extends AbstractTrackExporter implements FlightMod
     private static final String LINE_STYLE_RED = "red";
 
     private int nextTrackNumber = 1;
-    private final SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-
-    public KmlTrackExporter(TrackReader trackReader) {
-        super(trackReader);
-    }
 
     @Override
     public void flightModeChanged(FlightMode newFlightMode) {
@@ -103,9 +96,15 @@ public class KmlTrackExporter extends AbstractTrackExporter implements FlightMod
     }
 
     protected void writePoint(TrackPoint point) throws IOException {
-        writer.write(String.format("<when>%s</when>\n", dateFormatter.format(point.time)));
-        writer.write(
-                String.format(Locale.ROOT, "<gx:coord>%.10f %.10f %.2f</gx:coord>\n", point.lon, point.lat, point.alt));
+        writer.write("<when>");
+        writer.writeTimestamp(point.time);
+        writer.write("</when>\n<gx:coord>");
+        writer.writeDecimal(point.lon, 10);
+        writer.write(' ');
+        writer.writeDecimal(point.lat, 10);
+        writer.write(' ');
+        writer.writeDecimal(point.alt, 2);
+        writer.write("</gx:coord>\n");
     }
 
     protected void endTrackPart() throws IOException {
@@ -114,6 +113,17 @@ public class KmlTrackExporter extends AbstractTrackExporter implements FlightMod
     }
 
     protected void writeEnd() throws IOException {
+        if (null != this.statistics) {
+            writer.write("<Placemark>\n");
+            writer.write("<name>Statistics</name>\n");
+            writer.write("<description>");
+            for (String line : this.statistics.getSummaryLines()) {
+                writer.write(line);
+                writer.write("\n");
+            }
+            writer.write("</description>\n");
+            writer.write("</Placemark>\n");
+        }
         writer.write("</Document>\n");
         writer.write("</kml>");
     }
@@ -0,0 +1,26 @@
+package me.drton.flightplot.export;
+
+/**
+ * KML track in zip archive.
+ */
+public class KmzExportFormat implements ExportFormat {
+    @Override
+    public String getFormatName() {
+        return "Compressed Google Earth Track (KMZ)";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return ".kmz";
+    }
+
+    @Override
+    public String getFileExtensionName() {
+        return "KMZ";
+    }
+
+    @Override
+    public TrackExporter getTrackExporter() {
+        return new KmzTrackExporter();
+    }
+}
@@ -0,0 +1,23 @@
+package me.drton.flightplot.export;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * KML track compressed on the fly to KMZ archive with single "doc.kml" entry.
+ */
+public class KmzTrackExporter extends KmlTrackExporter {
+    private static final String KML_ENTRY_NAME = "doc.kml";
+
+    @Override
+    protected OutputStream openOutputStream(File file) throws IOException {
+        ZipOutputStream zipOut = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        zipOut.putNextEntry(new ZipEntry(KML_ENTRY_NAME));
+        return compressInBackground(zipOut, file);
+    }
+}
@@ -0,0 +1,459 @@
+package me.drton.flightplot.export;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sequential scanner of raw messages of PX4 binary log. Formats of messages are read from FMT messages, other
+ * messages are not decoded, caller reads only fields it needs directly from buffer, all other messages are skipped
+ * by length.
+ * <p/>
+ * Seek by time uses sparse index of TIME messages: byte offset of every {@value #INDEX_INTERVAL}-th TIME message and
+ * its time. Index is built by one pass over the log on first use and shared by all scanners of the same file.
+ */
+public class PX4LogScanner {
+    private static final int HEAD1 = 0xA3;
+    private static final int HEAD2 = 0x95;
+    private static final int HEADER_LENGTH = 3;
+    private static final int FMT_TYPE = 0x80;
+    private static final int FMT_LENGTH = 89;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final Charset CHARSET = Charset.forName("US-ASCII");
+    private static final String TIME_MESSAGE = "TIME";
+    private static final String TIME_FIELD = "StartTime";
+    private static final int INDEX_INTERVAL = 64;
+    private static final int INDEX_CACHE_SIZE = 16;
+
+    /**
+     * Times and byte offsets of indexed TIME messages, with formats of the log, so scanner can start reading in the
+     * middle of the log.
+     */
+    private static class TimeIndex {
+        private MessageFormat[] formats;
+        private long[] times = new long[1024];
+        private long[] positions = new long[1024];
+        private int size = 0;
+
+        private void add(long time, long position) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            times[size] = time;
+            positions[size] = position;
+            size++;
+        }
+
+        /**
+         * @return index of the last entry with time not greater than given, or -1 if there is no such entry
+         */
+        private int find(long time) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (times[mid] <= time) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo - 1;
+        }
+    }
+
+    // Recently used indexes by file path, size and modification time
+    private static final Map<String, TimeIndex> timeIndexes = new LinkedHashMap<String, TimeIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TimeIndex> eldest) {
+            return size() > INDEX_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Format of message type.
+     */
+    public static class MessageFormat {
+        public final int type;
+        public final int length;
+        public final String name;
+        private final String format;
+        private final String[] labels;
+
+        private MessageFormat(int type, int length, String name, String format, String[] labels) {
+            this.type = type;
+            this.length = length;
+            this.name = name;
+            this.format = format;
+            this.labels = labels;
+        }
+
+        /**
+         * @return field with given label or null if message has no such field or field type is not supported
+         */
+        public Field getField(String label) {
+            int offset = HEADER_LENGTH;
+            for (int i = 0; i < format.length() && i < labels.length; i++) {
+                char fieldType = format.charAt(i);
+                int size = getFieldSize(fieldType);
+                if (size < 0) {
+                    return null;
+                }
+                if (labels[i].equals(label)) {
+                    return size > 8 ? null : new Field(fieldType, offset);
+                }
+                offset += size;
+            }
+            return null;
+        }
+
+        /**
+         * @return first of fields with given labels that exists
+         */
+        public Field getField(String[] labels) {
+            for (String label : labels) {
+                Field field = getField(label);
+                if (null != field) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Numeric field of message, reads value of current message from buffer of scanner.
+     */
+    public static class Field {
+        private final char type;
+        private final int offset;
+
+        private Field(char type, int offset) {
+            this.type = type;
+            this.offset = offset;
+        }
+
+        public long getLong(PX4LogScanner scanner) {
+            ByteBuffer buffer = scanner.buffer;
+            int position = scanner.messageStart + offset;
+            switch (type) {
+                case 'b':
+                    return buffer.get(position);
+                case 'B':
+                case 'M':
+                    return buffer.get(position) & 0xFF;
+                case 'h':
+                case 'c':
+                    return buffer.getShort(position);
+                case 'H':
+                case 'C':
+                    return buffer.getShort(position) & 0xFFFF;
+                case 'i':
+                case 'e':
+                case 'L':
+                    return buffer.getInt(position);
+                case 'I':
+                case 'E':
+                    return buffer.getInt(position) & 0xFFFFFFFFL;
+                case 'q':
+                case 'Q':
+                    return buffer.getLong(position);
+                case 'f':
+                    return (long) buffer.getFloat(position);
+                default:
+                    throw new IllegalStateException("Not a numeric field type: " + type);
+            }
+        }
+
+        /**
+         * @return value scaled the same way as by log reader: centi-units for 'c', 'C', 'e', 'E', degrees for 'L'
+         */
+        public double getDouble(PX4LogScanner scanner) {
+            switch (type) {
+                case 'f':
+                    return scanner.buffer.getFloat(scanner.messageStart + offset);
+                case 'c':
+                case 'C':
+                case 'e':
+                case 'E':
+                    return getLong(scanner) * 1e-2;
+                case 'L':
+                    return getLong(scanner) * 1e-7;
+                default:
+                    return getLong(scanner);
+            }
+        }
+    }
+
+    private static int getFieldSize(char fieldType) {
+        switch (fieldType) {
+            case 'b':
+            case 'B':
+            case 'M':
+                return 1;
+            case 'h':
+            case 'H':
+            case 'c':
+            case 'C':
+                return 2;
+            case 'i':
+            case 'I':
+            case 'e':
+            case 'E':
+            case 'L':
+            case 'f':
+            case 'n':
+                return 4;
+            case 'q':
+            case 'Q':
+                return 8;
+            case 'N':
+                return 16;
+            case 'Z':
+                return 64;
+            default:
+                return -1;
+        }
+    }
+
+    private final File file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final MessageFormat[] formats = new MessageFormat[256];
+    private long bufferPosition = 0;
+    private int messageStart = 0;
+    private TimeIndex timeIndex = null;
+
+    public PX4LogScanner(File file) throws IOException {
+        this.file = file;
+        this.channel = new FileInputStream(file).getChannel();
+        rewind();
+    }
+
+    /**
+     * Move to start of log, formats already read are kept.
+     */
+    public void rewind() {
+        setPosition(0);
+    }
+
+    private void setPosition(long position) {
+        buffer.clear();
+        buffer.limit(0);
+        bufferPosition = position;
+        messageStart = 0;
+    }
+
+    /**
+     * @return byte offset of the next message to read
+     */
+    public long getPosition() {
+        return bufferPosition + buffer.position();
+    }
+
+    /**
+     * @return size of log in bytes
+     */
+    public long getSize() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Move to the last indexed TIME message with time not greater than given, or to start of log. Messages up to
+     * the given time must be skipped by caller.
+     *
+     * @param time time in us
+     */
+    public void seek(long time) throws IOException {
+        TimeIndex index = getTimeIndex();
+        int i = index.find(time);
+        setPosition(i < 0 ? 0 : index.positions[i]);
+    }
+
+    /**
+     * @param time time in us
+     * @return byte offset of the first indexed TIME message with time greater than given, or size of log
+     */
+    public long getPositionAfter(long time) throws IOException {
+        TimeIndex index = getTimeIndex();
+        int i = index.find(time) + 1;
+        return i < index.size ? index.positions[i] : getSize();
+    }
+
+    /**
+     * @return true if time index of the log is already built, seek by time doesn't scan the log then
+     */
+    public boolean hasTimeIndex() {
+        if (null == timeIndex) {
+            TimeIndex index;
+            synchronized (timeIndexes) {
+                index = timeIndexes.get(getIndexKey());
+            }
+            if (null != index) {
+                setTimeIndex(index);
+            }
+        }
+        return null != timeIndex;
+    }
+
+    private TimeIndex getTimeIndex() throws IOException {
+        if (!hasTimeIndex()) {
+            TimeIndex index = buildTimeIndex();
+            synchronized (timeIndexes) {
+                timeIndexes.put(getIndexKey(), index);
+            }
+            setTimeIndex(index);
+        }
+        return timeIndex;
+    }
+
+    private String getIndexKey() {
+        return file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified();
+    }
+
+    private void setTimeIndex(TimeIndex index) {
+        timeIndex = index;
+        // Formats are defined at the start of the log, needed to read from the middle
+        for (int type = 0; type < formats.length; type++) {
+            if (null == formats[type]) {
+                formats[type] = index.formats[type];
+            }
+        }
+    }
+
+    private TimeIndex buildTimeIndex() throws IOException {
+        long position = getPosition();
+        rewind();
+        TimeIndex index = new TimeIndex();
+        boolean[] checkedTypes = new boolean[formats.length];
+        int timeType = -1;
+        Field timeField = null;
+        long count = 0;
+        while (true) {
+            int type = nextMessage();
+            if (type < 0) {
+                break;
+            }
+            if (!checkedTypes[type]) {
+                checkedTypes[type] = true;
+                if (TIME_MESSAGE.equals(formats[type].name)) {
+                    timeField = formats[type].getField(TIME_FIELD);
+                    if (null != timeField) {
+                        timeType = type;
+                    }
+                }
+            }
+            if (type == timeType && count++ % INDEX_INTERVAL == 0) {
+                index.add(timeField.getLong(this), bufferPosition + messageStart);
+            }
+        }
+        index.formats = formats.clone();
+        setPosition(position);
+        return index;
+    }
+
+    /**
+     * Move to next message of known format, FMT messages are handled internally and not returned. Message bytes are
+     * available in buffer until next call.
+     *
+     * @return type of message or -1 at end of log
+     */
+    public int nextMessage() throws IOException {
+        while (true) {
+            if (!ensureAvailable(HEADER_LENGTH)) {
+                return -1;
+            }
+            int start = buffer.position();
+            if ((buffer.get(start) & 0xFF) != HEAD1 || (buffer.get(start + 1) & 0xFF) != HEAD2) {
+                // Corrupted data, find next message header
+                buffer.position(start + 1);
+                continue;
+            }
+            int type = buffer.get(start + 2) & 0xFF;
+            int length = type == FMT_TYPE ? FMT_LENGTH : (null == formats[type] ? -1 : formats[type].length);
+            if (length < HEADER_LENGTH) {
+                buffer.position(start + 1);
+                continue;
+            }
+            if (!ensureAvailable(length)) {
+                return -1;
+            }
+            start = buffer.position();
+            buffer.position(start + length);
+            if (type == FMT_TYPE) {
+                readFormat(start);
+            } else {
+                messageStart = start;
+                return type;
+            }
+        }
+    }
+
+    /**
+     * @return format of message type or null if it's not defined yet
+     */
+    public MessageFormat getFormat(int type) {
+        return formats[type];
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readFormat(int start) {
+        int type = buffer.get(start + 3) & 0xFF;
+        int length = buffer.get(start + 4) & 0xFF;
+        String name = readString(start + 5, 4);
+        String format = readString(start + 9, 16);
+        String labels = readString(start + 25, 64);
+        if (type == FMT_TYPE) {
+            return;
+        }
+        formats[type] = new MessageFormat(type, length, name, format,
+                labels.length() > 0 ? labels.split(",") : new String[0]);
+    }
+
+    private String readString(int position, int maxLength) {
+        byte[] bytes = new byte[maxLength];
+        int length = 0;
+        while (length < maxLength) {
+            byte b = buffer.get(position + length);
+            if (b == 0) {
+                break;
+            }
+            bytes[length++] = b;
+        }
+        return new String(bytes, 0, length, CHARSET);
+    }
+
+    /**
+     * Make sure buffer has at least given number of bytes after current position, reads more data if needed.
+     *
+     * @return false if end of file reached
+     */
+    private boolean ensureAvailable(int count) throws IOException {
+        if (buffer.remaining() >= count) {
+            return true;
+        }
+        bufferPosition += buffer.position();
+        buffer.compact();
+        try {
+            while (buffer.position() < count) {
+                if (channel.read(buffer, bufferPosition + buffer.position()) < 0) {
+                    return false;
+                }
+            }
+        } finally {
+            buffer.flip();
+        }
+        return true;
+    }
+}
@@ -4,85 +4,219 @@ import me.drton.jmavlib.log.FormatErrorException;
 import me.drton.jmavlib.log.PX4LogReader;
 
 import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Created by ada on 23.12.13.
+ * Reads log file directly with own scanner: layouts of GPS, STAT and TIME messages are resolved once, only these
+ * messages are decoded to primitive fields, all other messages are skipped by length. Start of export range is
+ * found by time index of the scanner, progress is measured in bytes.
  */
 public class PX4TrackReader extends AbstractTrackReader {
-    private static final String GPS_TIME = "GPS.GPSTime";
-    private static final String GPS_LON = "GPS.Lon";
-    private static final String GPS_LAT = "GPS.Lat";
-    private static final String GPS_ALT = "GPS.Alt";
-    private static final String GPS_FIXTYPE[] = {"GPS.FixType", "GPS.Fix"};
-    private static final String STAT_MAINSTATE = "STAT.MainState";
+    private static final String TIME = "TIME";
+    private static final String TIME_START = "StartTime";
+    private static final String GPS = "GPS";
+    private static final String GPS_TIME = "GPSTime";
+    private static final String GPS_LON = "Lon";
+    private static final String GPS_LAT = "Lat";
+    private static final String GPS_ALT = "Alt";
+    private static final String GPS_FIXTYPE[] = {"FixType", "Fix"};
+    private static final String STAT = "STAT";
+    private static final String STAT_MAINSTATE = "MainState";
     private static final int REQUIRED_FIXTYPE = 3;
 
+    // Roles of message types, resolved on first message of each type
+    private static final byte ROLE_UNKNOWN = 0;
+    private static final byte ROLE_OTHER = 1;
+    private static final byte ROLE_TIME = 2;
+    private static final byte ROLE_GPS = 3;
+    private static final byte ROLE_STAT = 4;
+
+    private final PX4LogScanner scanner;
+    private final long logStartTime;
+    private final long logEndTime;
+    // Byte offsets of export range, for progress
+    private long startPosition = 0;
+    private long endPosition = 0;
+    private final byte[] roles = new byte[256];
+    private PX4LogScanner.Field timeField;
+    private PX4LogScanner.Field gpsTimeField;
+    private PX4LogScanner.Field gpsFixTypeField;
+    private PX4LogScanner.Field gpsLatField;
+    private PX4LogScanner.Field gpsLonField;
+    private PX4LogScanner.Field gpsAltField;
+    private PX4LogScanner.Field mainStateField;
+
+    // Time of current update, messages between two TIME messages are one update, -1 before first TIME message
+    private long updateTime = -1;
+    // Last GPS values received since last exported point
+    private boolean gpsUpdated = false;
+    private long gpsTime;
+    private long gpsFixType;
+    private double gpsLat;
+    private double gpsLon;
+    private float gpsAlt;
     private FlightMode lastFlightMode = null;
 
-    public PX4TrackReader(PX4LogReader reader) throws IOException, FormatErrorException {
-        super(reader);
+    /**
+     * @param reader  reader of the log, used for log start time
+     * @param logFile file of the log, read by own scanner
+     */
+    public PX4TrackReader(PX4LogReader reader, File logFile) throws IOException, FormatErrorException {
+        super(reader.getStartMicroseconds());
+        this.scanner = new PX4LogScanner(logFile);
+        this.logStartTime = reader.getStartMicroseconds();
+        this.logEndTime = reader.getStartMicroseconds() + reader.getSizeMicroseconds();
+        init();
     }
 
     @Override
     public TrackPoint readNextPoint() throws IOException, FormatErrorException {
-        Map<String, Object> data = new HashMap<String, Object>();
         while (true) {
-            try {
-                readUpdate(data);
-            } catch (EOFException e) {
-                break;  // End of file
+            int type = scanner.nextMessage();
+            if (type < 0) {
+                return null;  // End of file
             }
-            Long timeGPS = (Long) data.get(GPS_TIME);
-            FlightMode currentFlightMode = extractFlightMode(data);
-            /*
-            TODO: Is it necessary to hold flight mode here?
-            Missing flight mode will be compensated by FlightModeReader already
-            */
-            if (null != currentFlightMode) {
-                lastFlightMode = currentFlightMode;
+            byte role = roles[type];
+            if (ROLE_UNKNOWN == role) {
+                role = resolveRole(type);
             }
-            if (timeGPS != null) {
-                long time = timeGPS / 1000;
-                Integer fixType = (Integer) getValue(data, GPS_FIXTYPE);
-                Double lat = (Double) data.get(GPS_LAT);
-                Double lon = (Double) data.get(GPS_LON);
-                Float alt = (Float) data.get(GPS_ALT);
-                if (fixType != null && fixType >= REQUIRED_FIXTYPE && lat != null && lon != null && alt != null) {
-                    TrackPoint point = new TrackPoint(lat, lon, alt, time);
-                    point.flightMode = lastFlightMode;
-                    data.clear();
-                    return point;
-                }
+            switch (role) {
+                case ROLE_TIME:
+                    long time = timeField.getLong(scanner);
+                    TrackPoint point;
+                    try {
+                        point = finishUpdate();
+                    } catch (EOFException e) {
+                        return null;  // End of export range
+                    }
+                    updateTime = time;
+                    if (null != point) {
+                        return point;
+                    }
+                    break;
+                case ROLE_GPS:
+                    gpsUpdated = true;
+                    gpsTime = gpsTimeField.getLong(scanner);
+                    gpsFixType = gpsFixTypeField.getLong(scanner);
+                    gpsLat = gpsLatField.getDouble(scanner);
+                    gpsLon = gpsLonField.getDouble(scanner);
+                    gpsAlt = (float) gpsAltField.getDouble(scanner);
+                    break;
+                case ROLE_STAT:
+                    FlightMode flightMode = extractFlightMode((int) mainStateField.getLong(scanner));
+                    if (null != flightMode) {
+                        lastFlightMode = flightMode;
+                    }
+                    break;
             }
         }
-        return null;
     }
 
-    private Object getValue(Map<String, Object> data, String[] params) {
-        for (String paramName : params) {
-            if (null != data.get(paramName)) {
-                return data.get(paramName);
-            }
+    /**
+     * Called on end of update, when next TIME message is read.
+     *
+     * @return point if update is exported and GPS with required fix was received since last point
+     */
+    private TrackPoint finishUpdate() throws EOFException {
+        if (updateTime < 0) {
+            return null;
         }
-        return null;
+        if (!acceptUpdate(updateTime)) {
+            // Data before export start must not be exported
+            gpsUpdated = false;
+            return null;
+        }
+        if (!gpsUpdated) {
+            return null;
+        }
+        gpsUpdated = false;
+        if (gpsFixType < REQUIRED_FIXTYPE) {
+            return null;
+        }
+        TrackPoint point = new TrackPoint(gpsLat, gpsLon, gpsAlt, gpsTime / 1000);
+        point.flightMode = lastFlightMode;
+        return point;
     }
 
-    private FlightMode extractFlightMode(Map<String, Object> data) {
-        Integer flightMode = (Integer) data.get(STAT_MAINSTATE);
-        if (null != flightMode) {
-            switch (flightMode) {
-                case 0: // MAIN_STATE_MANUAL
-                    return FlightMode.MANUAL;
-                case 1: // MAIN_STATE_SEATBELT
-                case 2: // MAIN_STATE_EASY
-                    return FlightMode.STABILIZED;
-                case 3: // MAIN_STATE_AUTO
-                    return FlightMode.AUTO;
+    private byte resolveRole(int type) {
+        PX4LogScanner.MessageFormat format = scanner.getFormat(type);
+        byte role = ROLE_OTHER;
+        if (TIME.equals(format.name)) {
+            timeField = format.getField(TIME_START);
+            if (null != timeField) {
+                role = ROLE_TIME;
+            }
+        } else if (GPS.equals(format.name)) {
+            gpsTimeField = format.getField(GPS_TIME);
+            gpsFixTypeField = format.getField(GPS_FIXTYPE);
+            gpsLatField = format.getField(GPS_LAT);
+            gpsLonField = format.getField(GPS_LON);
+            gpsAltField = format.getField(GPS_ALT);
+            if (null != gpsTimeField && null != gpsFixTypeField && null != gpsLatField && null != gpsLonField &&
+                    null != gpsAltField) {
+                role = ROLE_GPS;
+            }
+        } else if (STAT.equals(format.name)) {
+            mainStateField = format.getField(STAT_MAINSTATE);
+            if (null != mainStateField) {
+                role = ROLE_STAT;
             }
         }
+        roles[type] = role;
+        return role;
+    }
+
+    @Override
+    protected void seekLog(long time) throws IOException {
+        // Index is built only to seek to export start, updates before export start are skipped by acceptUpdate()
+        if (time <= logStartTime) {
+            scanner.rewind();
+        } else {
+            scanner.seek(time);
+        }
+        startPosition = scanner.getPosition();
+        long endTime = getEndTime();
+        if (endTime >= logEndTime) {
+            endPosition = scanner.getSize();
+        } else if (scanner.hasTimeIndex()) {
+            endPosition = scanner.getPositionAfter(endTime);
+        } else {
+            // Estimate end of export range from time, log is written at roughly constant rate
+            double fraction = Math.max(0.0, (double) (endTime - logStartTime) / (logEndTime - logStartTime));
+            endPosition = (long) (scanner.getSize() * fraction);
+        }
+        updateTime = -1;
+        gpsUpdated = false;
+        // Flight mode is unknown until next STAT message
+        lastFlightMode = null;
+    }
+
+    @Override
+    public double getProgress() {
+        if (endPosition <= startPosition) {
+            return 0.0;
+        }
+        double progress = (double) (scanner.getPosition() - startPosition) / (endPosition - startPosition);
+        return Math.max(0.0, Math.min(1.0, progress));
+    }
+
+    @Override
+    public void close() throws IOException {
+        scanner.close();
+    }
+
+    private FlightMode extractFlightMode(int flightMode) {
+        switch (flightMode) {
+            case 0: // MAIN_STATE_MANUAL
+                return FlightMode.MANUAL;
+            case 1: // MAIN_STATE_SEATBELT
+            case 2: // MAIN_STATE_EASY
+                return FlightMode.STABILIZED;
+            case 3: // MAIN_STATE_AUTO
+                return FlightMode.AUTO;
+        }
         return null;
     }
 }
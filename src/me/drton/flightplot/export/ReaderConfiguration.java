@@ -12,19 +12,30 @@ public class ReaderConfiguration {
     private boolean exportChartRangeOnly;
     private final static String EXPORT_CHART_RANGE_ONLY_SETTING = "exportChartRangeOnly";
 
+    private double simplifyTolerance;
+    private final static String SIMPLIFY_TOLERANCE_SETTING = "simplifyTolerance";
+
     private long timeFromInSeconds;
     private long timeToInSeconds;
 
+    private long chartRangeFrom;
+    private long chartRangeTo;
+
     public void saveConfiguration(Preferences preferences) {
         preferences.putDouble(SAMPLES_PER_SECOND_SETTING, this.samplesPerSecond);
         preferences.putBoolean(EXPORT_CHART_RANGE_ONLY_SETTING, this.exportChartRangeOnly);
+        preferences.putDouble(SIMPLIFY_TOLERANCE_SETTING, this.simplifyTolerance);
     }
 
     public void loadConfiguration(Preferences preferences) {
         this.samplesPerSecond = preferences.getDouble(SAMPLES_PER_SECOND_SETTING, Double.MAX_VALUE);
         this.exportChartRangeOnly = preferences.getBoolean(EXPORT_CHART_RANGE_ONLY_SETTING, false);
+        this.simplifyTolerance = preferences.getDouble(SIMPLIFY_TOLERANCE_SETTING, 0.0);
     }
 
+    /**
+     * @return rate of resampled track, Double.MAX_VALUE if all points are exported
+     */
     public double getSamplesPerSecond() {
         return samplesPerSecond;
     }
@@ -33,6 +44,10 @@ public class ReaderConfiguration {
         this.samplesPerSecond = samplesPerSecond;
     }
 
+    public boolean isResampled() {
+        return samplesPerSecond > 0.0 && samplesPerSecond < Double.MAX_VALUE;
+    }
+
     public long getTimeFromInSeconds() {
         return timeFromInSeconds;
     }
@@ -56,4 +71,32 @@ public class ReaderConfiguration {
     public void setExportChartRangeOnly(boolean exportChartRangeOnly) {
         this.exportChartRangeOnly = exportChartRangeOnly;
     }
+
+    /**
+     * @return max distance of removed points from simplified track in meters, 0 if track is not simplified
+     */
+    public double getSimplifyTolerance() {
+        return simplifyTolerance;
+    }
+
+    public void setSimplifyTolerance(double simplifyTolerance) {
+        this.simplifyTolerance = simplifyTolerance;
+    }
+
+    /**
+     * Set exact range in us of native log time, used instead of range in seconds if export of chart range only is
+     * enabled.
+     */
+    public void setChartRange(long chartRangeFrom, long chartRangeTo) {
+        this.chartRangeFrom = chartRangeFrom;
+        this.chartRangeTo = chartRangeTo;
+    }
+
+    public long getChartRangeFrom() {
+        return chartRangeFrom;
+    }
+
+    public long getChartRangeTo() {
+        return chartRangeTo;
+    }
 }
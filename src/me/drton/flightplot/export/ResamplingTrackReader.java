@@ -0,0 +1,97 @@
+package me.drton.flightplot.export;
+
+import me.drton.jmavlib.log.FormatErrorException;
+
+import java.io.IOException;
+
+/**
+ * Resamples track of another reader to fixed rate. Points are produced at exact multiples of sample period by
+ * linear interpolation between two bracketing points of the source track, flight mode is taken from the earlier one.
+ * No points are produced in gaps of source track longer than {@link #MAX_GAP}.
+ */
+public class ResamplingTrackReader implements TrackReader {
+    /**
+     * Max time between source points in ms to interpolate between them.
+     */
+    public static final long MAX_GAP = 2000;
+
+    private final TrackReader reader;
+    private final double samplesPerSecond;
+    private TrackPoint prev = null;
+    private TrackPoint next = null;
+    private boolean started = false;
+    private long sampleIndex = 0;
+
+    /**
+     * @param reader           reader of source track
+     * @param samplesPerSecond rate of resampled track
+     */
+    public ResamplingTrackReader(TrackReader reader, double samplesPerSecond) {
+        this.reader = reader;
+        this.samplesPerSecond = samplesPerSecond;
+    }
+
+    @Override
+    public TrackPoint readNextPoint() throws IOException, FormatErrorException {
+        if (!started) {
+            started = true;
+            next = reader.readNextPoint();
+        }
+        while (null != next) {
+            long time = getSampleTime(sampleIndex);
+            if (time > next.time) {
+                prev = next;
+                next = reader.readNextPoint();
+            } else if (time == next.time) {
+                sampleIndex++;
+                return next;
+            } else if (null != prev && next.time - prev.time <= MAX_GAP) {
+                sampleIndex++;
+                return interpolate(prev, next, time);
+            } else {
+                // Start of track or gap, continue from first sample after next point
+                sampleIndex = (long) Math.ceil(next.time * samplesPerSecond / 1000.0);
+                while (getSampleTime(sampleIndex) < next.time) {
+                    sampleIndex++;
+                }
+            }
+        }
+        return null;
+    }
+
+    private long getSampleTime(long index) {
+        return Math.round(index * 1000.0 / samplesPerSecond);
+    }
+
+    private static TrackPoint interpolate(TrackPoint p1, TrackPoint p2, long time) {
+        double k = (double) (time - p1.time) / (p2.time - p1.time);
+        TrackPoint point = new TrackPoint(p1.lat + (p2.lat - p1.lat) * k, p1.lon + (p2.lon - p1.lon) * k,
+                (float) (p1.alt + (p2.alt - p1.alt) * k), time);
+        point.flightMode = p1.flightMode;
+        return point;
+    }
+
+    @Override
+    public void reset() throws IOException, FormatErrorException {
+        reader.reset();
+        prev = null;
+        next = null;
+        started = false;
+        sampleIndex = 0;
+    }
+
+    @Override
+    public void setConfiguration(ReaderConfiguration configuration) throws ConfigurationException {
+        reader.setConfiguration(configuration);
+    }
+
+    @Override
+    public double getProgress() {
+        return reader.getProgress();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,168 @@
+package me.drton.flightplot.export;
+
+import me.drton.jmavlib.log.FormatErrorException;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Removes redundant points from track of another reader using Douglas-Peucker simplification.
+ * Track is simplified in windows of limited size, so memory usage doesn't depend on track length. Last point of
+ * each window is first point of next one. Points where flight mode changes are always kept, so tracks split by
+ * flight mode are not changed at split points.
+ */
+public class SimplifyingTrackReader implements TrackReader {
+    private static final int WINDOW_SIZE = 2048;
+    private static final double EARTH_RADIUS = 6371000.0;
+
+    private final TrackReader reader;
+    private final double tolerance;
+    private final TrackPoint[] window = new TrackPoint[WINDOW_SIZE];
+    private int windowSize = 0;
+    private final boolean[] keep = new boolean[WINDOW_SIZE];
+    private final int[] stack = new int[WINDOW_SIZE * 2];
+    // Local coordinates of window points in meters
+    private final double[] x = new double[WINDOW_SIZE];
+    private final double[] y = new double[WINDOW_SIZE];
+    private final Deque<TrackPoint> output = new ArrayDeque<TrackPoint>();
+    private boolean finished = false;
+
+    /**
+     * @param reader    reader of full track
+     * @param tolerance max distance of removed points from simplified track in meters
+     */
+    public SimplifyingTrackReader(TrackReader reader, double tolerance) {
+        this.reader = reader;
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    public TrackPoint readNextPoint() throws IOException, FormatErrorException {
+        while (output.isEmpty() && !finished) {
+            TrackPoint point = reader.readNextPoint();
+            if (null == point) {
+                finished = true;
+                flushWindow(true);
+            } else {
+                if (windowSize > 0 && point.flightMode != window[windowSize - 1].flightMode) {
+                    flushWindow(true);
+                }
+                window[windowSize++] = point;
+                if (windowSize == WINDOW_SIZE) {
+                    flushWindow(false);
+                }
+            }
+        }
+        return output.pollFirst();
+    }
+
+    /**
+     * Simplify points in window and pass kept points to output.
+     *
+     * @param all if false last point is not passed to output but left in window as start of next window
+     */
+    private void flushWindow(boolean all) {
+        if (windowSize == 0) {
+            return;
+        }
+        simplify();
+        int end = all ? windowSize : windowSize - 1;
+        for (int i = 0; i < end; i++) {
+            if (keep[i]) {
+                output.addLast(window[i]);
+            }
+        }
+        TrackPoint last = window[windowSize - 1];
+        for (int i = 0; i < windowSize; i++) {
+            window[i] = null;
+        }
+        windowSize = 0;
+        if (!all) {
+            window[windowSize++] = last;
+        }
+    }
+
+    private void simplify() {
+        // Equirectangular projection around first point is precise enough for window size
+        TrackPoint origin = window[0];
+        double lonScale = Math.cos(Math.toRadians(origin.lat)) * EARTH_RADIUS;
+        for (int i = 0; i < windowSize; i++) {
+            x[i] = Math.toRadians(window[i].lat - origin.lat) * EARTH_RADIUS;
+            y[i] = Math.toRadians(window[i].lon - origin.lon) * lonScale;
+            keep[i] = false;
+        }
+        keep[0] = true;
+        keep[windowSize - 1] = true;
+        double tolerance2 = tolerance * tolerance;
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = windowSize - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            int maxIdx = -1;
+            double maxDist2 = tolerance2;
+            for (int i = first + 1; i < last; i++) {
+                double dist2 = distanceToSegment2(i, first, last);
+                if (dist2 > maxDist2) {
+                    maxDist2 = dist2;
+                    maxIdx = i;
+                }
+            }
+            if (maxIdx >= 0) {
+                keep[maxIdx] = true;
+                stack[top++] = first;
+                stack[top++] = maxIdx;
+                stack[top++] = maxIdx;
+                stack[top++] = last;
+            }
+        }
+    }
+
+    /**
+     * Squared 3D distance from point to segment between two other points.
+     */
+    private double distanceToSegment2(int p, int a, int b) {
+        double az = window[a].alt;
+        double dx = x[b] - x[a];
+        double dy = y[b] - y[a];
+        double dz = window[b].alt - az;
+        double px = x[p] - x[a];
+        double py = y[p] - y[a];
+        double pz = window[p].alt - az;
+        double len2 = dx * dx + dy * dy + dz * dz;
+        double t = len2 > 0.0 ? (px * dx + py * dy + pz * dz) / len2 : 0.0;
+        t = Math.max(0.0, Math.min(1.0, t));
+        double ex = px - t * dx;
+        double ey = py - t * dy;
+        double ez = pz - t * dz;
+        return ex * ex + ey * ey + ez * ez;
+    }
+
+    @Override
+    public void reset() throws IOException, FormatErrorException {
+        reader.reset();
+        for (int i = 0; i < windowSize; i++) {
+            window[i] = null;
+        }
+        windowSize = 0;
+        output.clear();
+        finished = false;
+    }
+
+    @Override
+    public void setConfiguration(ReaderConfiguration configuration) throws ConfigurationException {
+        reader.setConfiguration(configuration);
+    }
+
+    @Override
+    public double getProgress() {
+        return reader.getProgress();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -9,13 +9,39 @@ import java.io.IOException;
 public interface TrackExporter {
 
     /**
-     * Exports track to specified file, uses title if possible for current export format.
+     * Starts export to specified file, uses title if possible for current export format.
      *
      * @param file
      * @param title
      * @throws IOException
      */
-    public void exportToFile(File file, String title) throws IOException;
+    void start(File file, String title) throws IOException;
+
+    /**
+     * Exports next track point, points are passed in order of time.
+     *
+     * @param point
+     * @throws IOException
+     */
+    void exportPoint(TrackPoint point) throws IOException;
+
+    /**
+     * Finishes export and closes the file.
+     *
+     * @throws IOException
+     */
+    void finish() throws IOException;
+
+    /**
+     * Closes the file without finishing it, used if export failed.
+     */
+    void abort();
 
     void setConfiguration(ExporterConfiguration configuration);
+
+    /**
+     * Sets statistics of exported track, they are complete when export is finished and are written at the end
+     * of the file if format supports it.
+     */
+    void setStatistics(TrackStatistics statistics);
 }
@@ -0,0 +1,270 @@
+package me.drton.flightplot.export;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Buffered UTF-8 writer for track files with allocation free formatting of numbers and timestamps.
+ * Not thread safe.
+ */
+public class TrackFileWriter extends Writer {
+    private static final int BUFFER_SIZE = 65536;
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+    private final byte[] digits = new byte[20];
+    // Date part of last written timestamp, "yyyy-MM-ddT"
+    private long lastDay = Long.MIN_VALUE;
+    private final byte[] datePrefix = new byte[11];
+
+    public TrackFileWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    private void ensureSpace(int n) throws IOException {
+        if (position + n > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        ensureSpace(4);
+        if (c < 0x80) {
+            buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else {
+            // Surrogates are not combined here, see write(char[], int, int)
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void writeCodePoint(int cp) throws IOException {
+        if (cp < 0x10000) {
+            write(cp);
+        } else {
+            ensureSpace(4);
+            buffer[position++] = (byte) (0xF0 | (cp >> 18));
+            buffer[position++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            buffer[position++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (cp & 0x3F));
+        }
+    }
+
+    @Override
+    public void write(char[] chars, int off, int len) throws IOException {
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            char c = chars[i];
+            if (c < 0x80 && position < buffer.length) {
+                buffer[position++] = (byte) c;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                writeCodePoint(Character.toCodePoint(c, chars[++i]));
+            } else {
+                write(c);
+            }
+        }
+    }
+
+    @Override
+    public void write(String str) throws IOException {
+        write(str, 0, str.length());
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            char c = str.charAt(i);
+            if (c < 0x80 && position < buffer.length) {
+                buffer[position++] = (byte) c;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(str.charAt(i + 1))) {
+                writeCodePoint(Character.toCodePoint(c, str.charAt(++i)));
+            } else {
+                write(c);
+            }
+        }
+    }
+
+    /**
+     * Write value with fixed number of decimals, like String.format(Locale.ROOT, "%.Nf", value).
+     * Last digit may differ for ties at the limit of double precision.
+     */
+    public void writeDecimal(double value, int decimals) throws IOException {
+        if (decimals < 0 || decimals > 15) {
+            throw new IllegalArgumentException("Invalid number of decimals: " + decimals);
+        }
+        double abs = Math.abs(value);
+        if (Double.isNaN(value) || Double.isInfinite(value) || abs >= 1e15) {
+            // Rare, no need to be fast
+            write(String.format(java.util.Locale.ROOT, "%." + decimals + "f", value));
+            return;
+        }
+        // Integer and fractional parts are separated exactly, so precision is not lost on scaling
+        long intPart = (long) abs;
+        long fracPart = 0;
+        if (decimals > 0) {
+            fracPart = Math.round((abs - intPart) * POWERS_OF_TEN[decimals]);
+            if (fracPart >= POWERS_OF_TEN[decimals]) {
+                fracPart -= POWERS_OF_TEN[decimals];
+                intPart++;
+            }
+        } else {
+            intPart = Math.round(abs);
+        }
+        ensureSpace(digits.length * 2 + 2);
+        if (value < 0) {
+            buffer[position++] = '-';
+        }
+        writeLong(intPart, 1);
+        if (decimals > 0) {
+            buffer[position++] = '.';
+            writeLong(fracPart, decimals);
+        }
+    }
+
+    /**
+     * Write integer value.
+     */
+    public void writeLong(long value) throws IOException {
+        ensureSpace(digits.length + 1);
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                write(Long.toString(value));
+                return;
+            }
+            buffer[position++] = '-';
+            value = -value;
+        }
+        writeLong(value, 1);
+    }
+
+    private void writeLong(long value, int minDigits) {
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (n < minDigits) {
+            digits[n++] = '0';
+        }
+        while (n > 0) {
+            buffer[position++] = digits[--n];
+        }
+    }
+
+    /**
+     * Write UTC time in ISO 8601 format with milliseconds: "yyyy-MM-ddTHH:mm:ss.SSSZ".
+     *
+     * @param time unix time in milliseconds
+     */
+    public void writeTimestamp(long time) throws IOException {
+        long day = floorDiv(time, 86400000L);
+        int ms = (int) (time - day * 86400000L);
+        if (day != lastDay) {
+            formatDate(day);
+            lastDay = day;
+        }
+        ensureSpace(24);
+        System.arraycopy(datePrefix, 0, buffer, position, datePrefix.length);
+        position += datePrefix.length;
+        writeTwoDigits(ms / 3600000);
+        buffer[position++] = ':';
+        writeTwoDigits(ms / 60000 % 60);
+        buffer[position++] = ':';
+        writeTwoDigits(ms / 1000 % 60);
+        buffer[position++] = '.';
+        int millis = ms % 1000;
+        buffer[position++] = (byte) ('0' + millis / 100);
+        writeTwoDigits(millis % 100);
+        buffer[position++] = 'Z';
+    }
+
+    private void writeTwoDigits(int value) {
+        buffer[position++] = (byte) ('0' + value / 10);
+        buffer[position++] = (byte) ('0' + value % 10);
+    }
+
+    private static long floorDiv(long a, long b) {
+        long q = a / b;
+        if ((a % b != 0) && ((a < 0) != (b < 0))) {
+            q--;
+        }
+        return q;
+    }
+
+    /**
+     * Convert days since epoch to proleptic Gregorian date, see http://howardhinnant.github.io/date_algorithms.html
+     */
+    private void formatDate(long day) {
+        long z = day + 719468;
+        long era = floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int d = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int m = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long y = yoe + era * 400 + (m <= 2 ? 1 : 0);
+        int year = (int) Math.max(0, Math.min(9999, y));
+        datePrefix[0] = (byte) ('0' + year / 1000);
+        datePrefix[1] = (byte) ('0' + year / 100 % 10);
+        datePrefix[2] = (byte) ('0' + year / 10 % 10);
+        datePrefix[3] = (byte) ('0' + year % 10);
+        datePrefix[4] = '-';
+        datePrefix[5] = (byte) ('0' + m / 10);
+        datePrefix[6] = (byte) ('0' + m % 10);
+        datePrefix[7] = '-';
+        datePrefix[8] = (byte) ('0' + d / 10);
+        datePrefix[9] = (byte) ('0' + d % 10);
+        datePrefix[10] = 'T';
+    }
+
+    /**
+     * Write all bytes of stream as is, stream must contain UTF-8 text. Stream is not closed.
+     */
+    public void writeBytes(InputStream in) throws IOException {
+        flushBuffer();
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+}
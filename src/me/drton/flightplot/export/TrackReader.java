@@ -24,4 +24,14 @@ public interface TrackReader {
     void reset() throws IOException, FormatErrorException;
 
     void setConfiguration(ReaderConfiguration configuration) throws ConfigurationException;
+
+    /**
+     * @return part of configured export range already read, from 0 to 1
+     */
+    double getProgress();
+
+    /**
+     * Release resources used by reader, the log itself is not closed.
+     */
+    void close() throws IOException;
 }
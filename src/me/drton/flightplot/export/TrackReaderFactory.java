@@ -4,18 +4,45 @@ import me.drton.jmavlib.log.FormatErrorException;
 import me.drton.jmavlib.log.LogReader;
 import me.drton.jmavlib.log.PX4LogReader;
 
+import java.io.File;
 import java.io.IOException;
 
 /**
  * Created by ada on 24.12.13.
  */
 public class TrackReaderFactory {
-    public static TrackReader getTrackReader(LogReader reader) throws IOException, FormatErrorException {
+    /**
+     * @param logFile file of the log, track readers read it directly
+     */
+    public static TrackReader getTrackReader(LogReader reader, File logFile)
+            throws IOException, FormatErrorException {
         if (reader instanceof PX4LogReader) {
-            return new PX4TrackReader((PX4LogReader) reader);
+            return new PX4TrackReader((PX4LogReader) reader, logFile);
         } else {
             throw new UnsupportedOperationException(
                     String.format("No track reader for this %s available.", reader.getClass()));
         }
     }
+
+    /**
+     * Create configured track reader. Analyzer gets all points of the track before resampling and simplification.
+     *
+     * @param analyzer analyzer of read points, may be null
+     */
+    public static TrackReader createTrackReader(LogReader reader, File logFile, ReaderConfiguration configuration,
+                                                TrackAnalyzer analyzer)
+            throws IOException, FormatErrorException, ConfigurationException {
+        TrackReader trackReader = getTrackReader(reader, logFile);
+        trackReader.setConfiguration(configuration);
+        if (null != analyzer) {
+            trackReader = new AnalyzingTrackReader(trackReader, analyzer);
+        }
+        if (configuration.isResampled()) {
+            trackReader = new ResamplingTrackReader(trackReader, configuration.getSamplesPerSecond());
+        }
+        if (configuration.getSimplifyTolerance() > 0.0) {
+            trackReader = new SimplifyingTrackReader(trackReader, configuration.getSimplifyTolerance());
+        }
+        return trackReader;
+    }
 }
@@ -0,0 +1,117 @@
+package me.drton.flightplot.export;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Statistics of track calculated by set of analyzers while track is read: distance flown, max speed, altitude
+ * range and time spent in each flight mode.
+ */
+public class TrackStatistics implements TrackAnalyzer {
+    private final DistanceAnalyzer distanceAnalyzer = new DistanceAnalyzer();
+    private final AltitudeAnalyzer altitudeAnalyzer = new AltitudeAnalyzer();
+    private final FlightModeTimeAnalyzer flightModeTimeAnalyzer = new FlightModeTimeAnalyzer();
+    private final TrackAnalyzer[] analyzers = new TrackAnalyzer[]{
+            distanceAnalyzer, altitudeAnalyzer, flightModeTimeAnalyzer};
+    private long startTime = 0;
+    private long pointsCount = 0;
+
+    @Override
+    public void inputTrackPoint(TrackPoint point) {
+        if (pointsCount == 0) {
+            startTime = point.time;
+        }
+        pointsCount++;
+        for (TrackAnalyzer analyzer : analyzers) {
+            analyzer.inputTrackPoint(point);
+        }
+    }
+
+    public long getPointsCount() {
+        return pointsCount;
+    }
+
+    /**
+     * @return unix time of first point in milliseconds
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public DistanceAnalyzer getDistanceAnalyzer() {
+        return distanceAnalyzer;
+    }
+
+    public AltitudeAnalyzer getAltitudeAnalyzer() {
+        return altitudeAnalyzer;
+    }
+
+    public FlightModeTimeAnalyzer getFlightModeTimeAnalyzer() {
+        return flightModeTimeAnalyzer;
+    }
+
+    /**
+     * @return human readable statistics, one value per line
+     */
+    public List<String> getSummaryLines() {
+        List<String> lines = new ArrayList<String>();
+        lines.add(String.format(Locale.ROOT, "Duration: %.1f s", flightModeTimeAnalyzer.getDuration() / 1000.0));
+        lines.add(String.format(Locale.ROOT, "Distance: %.1f m", distanceAnalyzer.getDistance()));
+        lines.add(String.format(Locale.ROOT, "Max speed: %.1f m/s", distanceAnalyzer.getMaxSpeed()));
+        if (pointsCount > 0) {
+            lines.add(String.format(Locale.ROOT, "Min altitude: %.1f m", altitudeAnalyzer.getMinAltitude()));
+            lines.add(String.format(Locale.ROOT, "Max altitude: %.1f m", altitudeAnalyzer.getMaxAltitude()));
+        }
+        for (Map.Entry<FlightMode, Long> entry : flightModeTimeAnalyzer.getFlightModeTimes().entrySet()) {
+            lines.add(String.format(Locale.ROOT, "Time in %s: %.1f s", entry.getKey(), entry.getValue() / 1000.0));
+        }
+        return lines;
+    }
+
+    /**
+     * @return statistics as JSON object, distances in meters, speeds in m/s, times in seconds
+     */
+    public JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        json.put("startTime", dateFormat.format(startTime));
+        json.put("points", pointsCount);
+        json.put("duration", flightModeTimeAnalyzer.getDuration() / 1000.0);
+        json.put("distance", distanceAnalyzer.getDistance());
+        json.put("maxSpeed", distanceAnalyzer.getMaxSpeed());
+        if (pointsCount > 0) {
+            json.put("minAltitude", altitudeAnalyzer.getMinAltitude());
+            json.put("maxAltitude", altitudeAnalyzer.getMaxAltitude());
+        }
+        JSONObject flightModeTimes = new JSONObject();
+        for (Map.Entry<FlightMode, Long> entry : flightModeTimeAnalyzer.getFlightModeTimes().entrySet()) {
+            flightModeTimes.put(entry.getKey().name(), entry.getValue() / 1000.0);
+        }
+        json.put("flightModeTimes", flightModeTimes);
+        return json;
+    }
+
+    public void writeJSON(File file) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"));
+        try {
+            writer.write(toJSON().toString(2));
+            writer.write("\n");
+        } finally {
+            writer.close();
+        }
+    }
+}
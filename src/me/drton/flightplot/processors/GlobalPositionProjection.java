@@ -1,6 +1,6 @@
 package me.drton.flightplot.processors;
 
-import me.drton.jmavlib.geo.GlobalPositionProjector;
+import me.drton.flightplot.processors.tools.DerivedQuantities;
 import me.drton.jmavlib.geo.LatLonAlt;
 
 import java.util.HashMap;
@@ -10,7 +10,7 @@ import java.util.Map;
  * User: ton Date: 11.07.13 Time: 22:14
  */
 public class GlobalPositionProjection extends PlotProcessor {
-    private GlobalPositionProjector positionProjector = new GlobalPositionProjector();
+    private DerivedQuantities.GlobalProjection projection;
     private String[] param_Fields;
 
     @Override
@@ -24,11 +24,12 @@ public class GlobalPositionProjection extends PlotProcessor {
     @Override
     public void init() {
         super.init();
-        positionProjector.reset();
+        projection = null;
         param_Fields = ((String) parameters.get("Fields")).split(WHITESPACE_RE);
         String[] ref = ((String) parameters.get("Ref")).split(WHITESPACE_RE);
         if (ref.length >= 2) {
-            positionProjector.init(new LatLonAlt(Double.parseDouble(ref[0]), Double.parseDouble(ref[1]), 0.0));
+            projection = new DerivedQuantities.GlobalProjection(new String[]{param_Fields[0], param_Fields[1]},
+                    new LatLonAlt(Double.parseDouble(ref[0]), Double.parseDouble(ref[1]), 0.0));
         }
         addSeries("X");
         addSeries("Y");
@@ -40,11 +41,11 @@ public class GlobalPositionProjection extends PlotProcessor {
         Number latNum = (Number) update.get(param_Fields[0]);
         Number lonNum = (Number) update.get(param_Fields[1]);
         if (latNum != null && lonNum != null) {
-            LatLonAlt latLonAlt = new LatLonAlt(latNum.doubleValue(), lonNum.doubleValue(), 0.0);
-            if (!positionProjector.isInited()) {
-                positionProjector.init(latLonAlt);
+            if (projection == null) {
+                projection = new DerivedQuantities.GlobalProjection(new String[]{param_Fields[0], param_Fields[1]},
+                        new LatLonAlt(latNum.doubleValue(), lonNum.doubleValue(), 0.0));
             }
-            double[] xyz = positionProjector.project(latLonAlt);
+            double[] xyz = getDerivedQuantities().get(projection, time, update);
             addPoint(0, time, xyz[0]);
             addPoint(1, time, xyz[1]);
         }
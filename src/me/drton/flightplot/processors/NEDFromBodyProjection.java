@@ -1,7 +1,7 @@
 package me.drton.flightplot.processors;
 
+import me.drton.flightplot.processors.tools.DerivedQuantities;
 import me.drton.flightplot.processors.tools.LowPassFilter;
-import me.drton.jmavlib.conversion.RotationConversion;
 import org.la4j.matrix.Matrix;
 import org.la4j.matrix.dense.Basic2DMatrix;
 import org.la4j.vector.Vector;
@@ -22,6 +22,7 @@ public class NEDFromBodyProjection extends PlotProcessor {
     private double[] param_Att_Offsets;
     private boolean[] show;
     private LowPassFilter[] lowPassFilters;
+    private DerivedQuantities.RotationMatrix rotation;
     private Matrix r;
     private Vector v;
 
@@ -69,22 +70,17 @@ public class NEDFromBodyProjection extends PlotProcessor {
                 addSeries(axisName);
             }
         }
+        rotation = new DerivedQuantities.RotationMatrix(param_Fields_Att, param_Att_Offsets, param_Backward);
     }
 
     @Override
     public void process(double time, Map<String, Object> update) {
         int seriesIdx = 0;
-        Number roll = (Number) update.get(param_Fields_Att[0]);
-        Number pitch = (Number) update.get(param_Fields_Att[1]);
-        Number yaw = (Number) update.get(param_Fields_Att[2]);
         boolean act = false;
-        if (roll != null && pitch != null && yaw != null) {
+        Matrix rNew = getDerivedQuantities().get(rotation, time, update);
+        if (rNew != null) {
             // Update rotation matrix
-            r = RotationConversion.rotationMatrixByEulerAngles(roll.doubleValue() + param_Att_Offsets[0],
-                    pitch.doubleValue() + param_Att_Offsets[1], yaw.doubleValue() + param_Att_Offsets[2]);
-            if (param_Backward) {
-                r = r.transpose();
-            }
+            r = rNew;
             act = true;
         }
         for (int i = 0; i < 3; i++) {
@@ -1,24 +1,43 @@
 package me.drton.flightplot.processors;
 
+import me.drton.flightplot.processors.tools.DerivedQuantities;
 import org.jfree.data.xy.XYSeries;
 import org.jfree.data.xy.XYSeriesCollection;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * User: ton Date: 12.06.13 Time: 18:25
  */
 public abstract class PlotProcessor {
+    /**
+     * Receiver of output points, used to stream processor output without storing it in series.
+     */
+    public interface PointSink {
+        /**
+         * @param seriesIdx index of series in series collection
+         * @param time      time multiplied by time scale
+         * @param value     value
+         */
+        void addPoint(int seriesIdx, double time, double value);
+    }
+
     protected static final String WHITESPACE_RE = "[ \t]+";
     private double skipOut = 0.0;
     private double timeScale = 1.0;
     private XYSeriesCollection seriesCollection;
     private List<Double> lastUpdates;
     private List<Double> lastValues;
+    private DerivedQuantities derivedQuantities;
+    private PointSink pointSink = null;
+    private PointSink pointListener = null;
 
     private String title;
+    private String subplot = "";
     protected Map<String, Object> parameters;
 
     protected PlotProcessor() {
@@ -26,9 +45,39 @@ public abstract class PlotProcessor {
     }
 
     public void init() {
+        pointSink = null;
+        pointListener = null;
         seriesCollection = new XYSeriesCollection();
         lastUpdates = new ArrayList<Double>();
         lastValues = new ArrayList<Double>();
+        derivedQuantities = new DerivedQuantities();
+    }
+
+    /**
+     * Share derived quantities cache with other processors of the same processing pass, must be called after init().
+     */
+    public void setDerivedQuantities(DerivedQuantities derivedQuantities) {
+        this.derivedQuantities = derivedQuantities;
+    }
+
+    protected DerivedQuantities getDerivedQuantities() {
+        return derivedQuantities;
+    }
+
+    /**
+     * Pass all points to the sink instead of storing them in series, skipOut is not applied in this mode.
+     * Series are still created, so their titles are available. Must be called after init().
+     */
+    public void setPointSink(PointSink pointSink) {
+        this.pointSink = pointSink;
+    }
+
+    /**
+     * Pass all points to the listener before skipOut is applied, in addition to storing them in series.
+     * Must be called after init().
+     */
+    public void setPointListener(PointSink pointListener) {
+        this.pointListener = pointListener;
     }
 
     public void setSkipOut(double skipOut) {
@@ -47,6 +96,24 @@ public abstract class PlotProcessor {
         this.title = title;
     }
 
+    /**
+     * @return name of subplot to show series in when subplots are enabled, empty for own subplot
+     */
+    public String getSubplot() {
+        return subplot;
+    }
+
+    public void setSubplot(String subplot) {
+        this.subplot = subplot;
+    }
+
+    /**
+     * @return title of subplot to show series in when subplots are enabled: subplot name or own title
+     */
+    public String getSubplotTitle() {
+        return subplot.isEmpty() ? title : subplot;
+    }
+
     public abstract Map<String, Object> getDefaultParameters();
 
     public Map<String, Object> getParameters() {
@@ -71,6 +138,23 @@ public abstract class PlotProcessor {
         }
     }
 
+    /**
+     * Log fields used by the processor: all words of string parameters that are present in the log.
+     */
+    public Set<String> getUsedFields(Set<String> logFields) {
+        Set<String> fields = new HashSet<String>();
+        for (Object value : parameters.values()) {
+            if (value instanceof String) {
+                for (String word : ((String) value).split(WHITESPACE_RE)) {
+                    if (logFields.contains(word)) {
+                        fields.add(word);
+                    }
+                }
+            }
+        }
+        return fields;
+    }
+
     private static Object castValue(Object valueOld, Object valueNewObj) {
         String valueNewStr = valueNewObj.toString();
         Object valueNew = null;
@@ -111,6 +195,13 @@ public abstract class PlotProcessor {
     }
 
     protected void addPoint(int seriesIdx, double time, double value) {
+        if (pointSink != null) {
+            pointSink.addPoint(seriesIdx, time * timeScale, value);
+            return;
+        }
+        if (pointListener != null) {
+            pointListener.addPoint(seriesIdx, time * timeScale, value);
+        }
         Double lastUpdate = lastUpdates.get(seriesIdx);
         if (lastUpdate != null && time - lastUpdate < skipOut) {
             lastValues.set(seriesIdx, value);
@@ -1,7 +1,6 @@
 package me.drton.flightplot.processors;
 
-import me.drton.jmavlib.conversion.RotationConversion;
-import me.drton.jmavlib.geo.GlobalPositionProjector;
+import me.drton.flightplot.processors.tools.DerivedQuantities;
 import me.drton.jmavlib.geo.LatLonAlt;
 import me.drton.jmavlib.processing.DelayLine;
 import org.la4j.matrix.Matrix;
@@ -48,7 +47,10 @@ public class PositionEstimator extends PlotProcessor {
     private double[][] gps;     // [axis][order]
     private Vector acc;
     private Matrix rot;
-    private GlobalPositionProjector positionProjector;
+    private Matrix rotT;
+    private DerivedQuantities.RotationMatrix rotation;
+    private DerivedQuantities.RotationMatrix rotationT;
+    private DerivedQuantities.GlobalProjection gpsProjection;
     private Vector accBias;
     private DelayLine<double[][]> delayLineGPS;
     private boolean gpsInited;
@@ -91,6 +93,8 @@ public class PositionEstimator extends PlotProcessor {
         gpsInited = false;
         baroInited = false;
         rot = null;
+        rotT = null;
+        gpsProjection = null;
         est = new double[3][2];
         corrGPS = new double[3][2];
         corrBaro = 0.0;
@@ -106,11 +110,12 @@ public class PositionEstimator extends PlotProcessor {
         flowAng = new double[]{0.0, 0.0};
         */
         delayLineGPS = new DelayLine<double[][]>();
-        positionProjector = new GlobalPositionProjector();
         param_Fields_GPS = ((String) parameters.get("Fields GPS")).split(WHITESPACE_RE);
         param_Fields_Acc = ((String) parameters.get("Fields Acc")).split(WHITESPACE_RE);
         param_Fields_Att = ((String) parameters.get("Fields Att")).split(WHITESPACE_RE);
         param_Field_Baro = (String) parameters.get("Field Baro");
+        rotation = new DerivedQuantities.RotationMatrix(param_Fields_Att);
+        rotationT = new DerivedQuantities.RotationMatrix(param_Fields_Att, new double[]{0.0, 0.0, 0.0}, true);
         param_W_GPS = new double[3][2];
         param_W_GPS[0][0] = (Double) parameters.get("W XY GPS P");
         param_W_GPS[1][0] = param_W_GPS[0][0];
@@ -156,12 +161,10 @@ public class PositionEstimator extends PlotProcessor {
     public void process(double time, Map<String, Object> update) {
         boolean act = false;
         // Attitude
-        Number roll = (Number) update.get(param_Fields_Att[0]);
-        Number pitch = (Number) update.get(param_Fields_Att[1]);
-        Number yaw = (Number) update.get(param_Fields_Att[2]);
-        if (roll != null && pitch != null && yaw != null) {
-            rot = RotationConversion.rotationMatrixByEulerAngles(roll.doubleValue(), pitch.doubleValue(),
-                    yaw.doubleValue());
+        Matrix rotNew = getDerivedQuantities().get(rotation, time, update);
+        if (rotNew != null) {
+            rot = rotNew;
+            rotT = getDerivedQuantities().get(rotationT, time, update);
             act = true;
         }
         // Baro
@@ -192,12 +195,14 @@ public class PositionEstimator extends PlotProcessor {
             double alt = altNum.doubleValue();
             if (!gpsInited && baroInited) {
                 gpsInited = true;
-                positionProjector.init(new LatLonAlt(lat, lon, alt));
+                gpsProjection = new DerivedQuantities.GlobalProjection(
+                        new String[]{param_Fields_GPS[0], param_Fields_GPS[1], param_Fields_GPS[2]},
+                        new LatLonAlt(lat, lon, alt));
                 est[2][0] = -alt;
                 baroOffset = alt - baro;
             }
             if (gpsInited) {
-                double[] gpsProj = positionProjector.project(new LatLonAlt(lat, lon, alt));
+                double[] gpsProj = getDerivedQuantities().get(gpsProjection, time, update);
                 gps[0][0] = gpsProj[0];
                 gps[1][0] = gpsProj[1];
                 gps[2][0] = gpsProj[2];
@@ -283,7 +288,7 @@ public class PositionEstimator extends PlotProcessor {
                     accBiasCorrV.set(axis, -corrGPS[axis][0] * wPos - corrGPS[axis][1] * wVel);
                 }
                 accBiasCorrV.set(2, -corrBaro * param_W_Baro * param_W_Baro);
-                Vector b = rot.transpose().multiply(accBiasCorrV).multiply(param_W_Acc_Bias * dt);
+                Vector b = rotT.multiply(accBiasCorrV).multiply(param_W_Acc_Bias * dt);
                 Vector accNED = rot.multiply(acc);
                 accNED.set(2, accNED.get(2) + G);
                 accBias.addInPlace(b);
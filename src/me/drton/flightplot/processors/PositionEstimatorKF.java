@@ -1,7 +1,6 @@
 package me.drton.flightplot.processors;
 
-import me.drton.jmavlib.conversion.RotationConversion;
-import me.drton.jmavlib.geo.GlobalPositionProjector;
+import me.drton.flightplot.processors.tools.DerivedQuantities;
 import me.drton.jmavlib.geo.LatLonAlt;
 import me.drton.jmavlib.processing.DelayLine;
 import org.la4j.LinearAlgebra;
@@ -18,7 +17,7 @@ import java.util.Map;
 /**
  * User: ton Date: 30.05.14 Time: 23:49
  */
-public class PositionEstimatorKF extends PlotProcessor {
+public class PositionEstimatorKF extends PlotProcessor implements TunableProcessor {
     private static final double G = 9.81;
     private String[] param_Fields_GPS;
     private String param_Field_Baro;
@@ -54,6 +53,10 @@ public class PositionEstimatorKF extends PlotProcessor {
     private static final int BARO_OFFS_S_IDX = 9;
     private static final int BARO_O_IDX = 6;
 
+    // Observation groups for innovation consistency: GPS pos H, GPS pos V, GPS vel H, GPS vel V, baro
+    private static final int[] OBS_GROUP = new int[]{0, 0, 1, 2, 2, 3, 4};
+    private static final int OBS_GROUPS_N = 5;
+
     private Matrix I;         // unity matrix
     private Vector x;         // state
     private Vector y;         // innovation
@@ -70,7 +73,8 @@ public class PositionEstimatorKF extends PlotProcessor {
     private double gpsTimeout;
     private Vector acc;
     private Matrix rot;
-    private GlobalPositionProjector positionProjector = new GlobalPositionProjector();
+    private DerivedQuantities.RotationMatrix rotation;
+    private DerivedQuantities.GlobalProjection gpsProjection;
     private Vector accBias;
     private List<DelayLine.Tick<Vector>> xBuffer;
     private double bufferLen = 0.5;
@@ -80,6 +84,8 @@ public class PositionEstimatorKF extends PlotProcessor {
     private double[] offsets;
     private double[] scales;
     private LinearAlgebra.InverterFactory inverter = LinearAlgebra.InverterFactory.GAUSS_JORDAN;
+    private double[] nisSum;    // sum of normalized innovations squared per observation group
+    private int[] nisCount;
 
     @Override
     public Map<String, Object> getDefaultParameters() {
@@ -136,11 +142,14 @@ public class PositionEstimatorKF extends PlotProcessor {
         gpsLast = 0.0;
         gpsTimeout = 0.3;
         xBuffer = new ArrayList<DelayLine.Tick<Vector>>();
-        positionProjector.reset();
+        nisSum = new double[OBS_GROUPS_N];
+        nisCount = new int[OBS_GROUPS_N];
+        gpsProjection = null;
         param_Fields_GPS = ((String) parameters.get("Fields GPS")).split(WHITESPACE_RE);
         param_Fields_Acc = ((String) parameters.get("Fields Acc")).split(WHITESPACE_RE);
         param_Fields_Att = ((String) parameters.get("Fields Att")).split(WHITESPACE_RE);
         param_Field_Baro = (String) parameters.get("Field Baro");
+        rotation = new DerivedQuantities.RotationMatrix(param_Fields_Att);
         param_Var_Acc = (Double) parameters.get("Var Acc");
         param_Var_Acc_Bias = (Double) parameters.get("Var Acc Bias");
         param_Var_Baro = (Double) parameters.get("Var Baro");
@@ -189,12 +198,9 @@ public class PositionEstimatorKF extends PlotProcessor {
     public void process(double time, Map<String, Object> update) {
         boolean act = false;
         // Attitude
-        Number roll = (Number) update.get(param_Fields_Att[0]);
-        Number pitch = (Number) update.get(param_Fields_Att[1]);
-        Number yaw = (Number) update.get(param_Fields_Att[2]);
-        if (roll != null && pitch != null && yaw != null) {
-            rot = RotationConversion.rotationMatrixByEulerAngles(roll.doubleValue(), pitch.doubleValue(),
-                    yaw.doubleValue());
+        Matrix rotNew = getDerivedQuantities().get(rotation, time, update);
+        if (rotNew != null) {
+            rot = rotNew;
             act = true;
         }
 
@@ -231,11 +237,13 @@ public class PositionEstimatorKF extends PlotProcessor {
             double alt = altNum.doubleValue();
             if (!gpsInited && baroInited) {
                 gpsInited = true;
-                positionProjector.init(new LatLonAlt(lat, lon, alt));
+                gpsProjection = new DerivedQuantities.GlobalProjection(
+                        new String[]{param_Fields_GPS[0], param_Fields_GPS[1], param_Fields_GPS[2]},
+                        new LatLonAlt(lat, lon, alt));
                 gpsRefAlt = alt + z.get(2);
             }
             if (gpsInited) {
-                double[] gpsXYZ = positionProjector.project(new LatLonAlt(lat, lon, alt));
+                double[] gpsXYZ = getDerivedQuantities().get(gpsProjection, time, update);
                 z.set(0, gpsXYZ[0]);
                 z.set(1, gpsXYZ[1]);
                 z.set(2, -(alt - gpsRefAlt));
@@ -315,6 +323,7 @@ public class PositionEstimatorKF extends PlotProcessor {
                 // Update innovation
                 Vector y_new = z.subtract(H.multiply(x));
                 // GPS
+                boolean gpsCorrected = false;
                 if (gpsUpdated) {
                     Vector xGPS = getOldState(time - param_Delay_GPS);
                     if (xGPS != null) {
@@ -325,6 +334,7 @@ public class PositionEstimatorKF extends PlotProcessor {
                         R.set(0, 0, gpsEPH * gpsEPH);
                         R.set(1, 1, gpsEPH * gpsEPH);
                         R.set(2, 2, gpsEPV * gpsEPV);
+                        gpsCorrected = true;
                     }
                 }
                 // Baro
@@ -333,7 +343,7 @@ public class PositionEstimatorKF extends PlotProcessor {
                 }
 
                 // Correction
-                correct();
+                correct(gpsCorrected, baroUpdated);
 
                 // Store new state to buffer
                 xBuffer.add(new DelayLine.Tick<Vector>(time, x.copy()));
@@ -373,10 +383,21 @@ public class PositionEstimatorKF extends PlotProcessor {
         P = F.multiply(P).multiply(F.transpose()).add(Q);
     }
 
-    private void correct() {
+    private void correct(boolean gpsCorrected, boolean baroCorrected) {
         // Innovation covariance
         Matrix S = H.multiply(P).multiply(H.transpose()).add(R);
 
+        // Innovation consistency
+        for (int i = 0; i < OBS_GROUP.length; i++) {
+            if (i == BARO_O_IDX ? baroCorrected : gpsCorrected) {
+                double s = S.get(i, i);
+                if (s > 0.0) {
+                    nisSum[OBS_GROUP[i]] += y.get(i) * y.get(i) / s;
+                    nisCount[OBS_GROUP[i]]++;
+                }
+            }
+        }
+
         // Gain
         Matrix K = P.multiply(H.transpose()).multiply(S.withInverter(inverter).inverse());
 
@@ -384,4 +405,26 @@ public class PositionEstimatorKF extends PlotProcessor {
         x.addInPlace(K.multiply(y));
         P = I.subtract(K.multiply(H)).multiply(P);
     }
+
+    @Override
+    public String[] getTunableParameters() {
+        return new String[]{"Var Acc", "Var Baro", "Var GPS VH", "Var GPS VV"};
+    }
+
+    /**
+     * Innovation consistency cost: mean normalized innovation squared of each observation group should be 1.
+     */
+    @Override
+    public double getTuningCost() {
+        double cost = 0.0;
+        int groups = 0;
+        for (int g = 0; g < OBS_GROUPS_N; g++) {
+            if (nisCount[g] > 0) {
+                double e = Math.log(nisSum[g] / nisCount[g]);
+                cost += e * e;
+                groups++;
+            }
+        }
+        return groups > 0 ? cost / groups : Double.POSITIVE_INFINITY;
+    }
 }
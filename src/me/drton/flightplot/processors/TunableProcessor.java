@@ -0,0 +1,16 @@
+package me.drton.flightplot.processors;
+
+/**
+ * Processor which parameters can be tuned automatically by minimizing the cost accumulated during processing.
+ */
+public interface TunableProcessor {
+    /**
+     * Names of parameters that can be tuned, all of them must be positive Double parameters.
+     */
+    String[] getTunableParameters();
+
+    /**
+     * Cost accumulated since last init(), lower is better.
+     */
+    double getTuningCost();
+}
@@ -0,0 +1,136 @@
+package me.drton.flightplot.processors.tools;
+
+import me.drton.jmavlib.conversion.RotationConversion;
+import me.drton.jmavlib.geo.GlobalPositionProjector;
+import me.drton.jmavlib.geo.LatLonAlt;
+import org.la4j.matrix.Matrix;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of intermediate values derived from log fields, shared by all processors of one processing pass.
+ * Each quantity is calculated at most once per update timestamp, processors requesting equal quantities get the
+ * same (read-only) value.
+ */
+public class DerivedQuantities {
+    private final Map<Quantity<?>, Entry> entries = new HashMap<Quantity<?>, Entry>();
+
+    private static class Entry {
+        double time = Double.NaN;
+        Object value;
+    }
+
+    /**
+     * Quantity key, quantities with equal ids are considered equal and share cached values.
+     */
+    public static abstract class Quantity<T> {
+        private final String id;
+
+        protected Quantity(String id) {
+            this.id = id;
+        }
+
+        /**
+         * Calculate value from update.
+         *
+         * @return value or null if update doesn't contain required fields
+         */
+        protected abstract T calculate(Map<String, Object> update);
+
+        @Override
+        public boolean equals(Object o) {
+            return o != null && o.getClass() == getClass() && id.equals(((Quantity) o).id);
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return id;
+        }
+    }
+
+    /**
+     * Rotation matrix from euler angles fields, optionally with angle offsets and transposed.
+     */
+    public static class RotationMatrix extends Quantity<Matrix> {
+        private final String[] fields;
+        private final double[] offsets;
+        private final boolean transposed;
+
+        public RotationMatrix(String[] fields, double[] offsets, boolean transposed) {
+            super("RotationMatrix" + Arrays.toString(fields) + Arrays.toString(offsets) + transposed);
+            this.fields = fields;
+            this.offsets = offsets;
+            this.transposed = transposed;
+        }
+
+        public RotationMatrix(String[] fields) {
+            this(fields, new double[]{0.0, 0.0, 0.0}, false);
+        }
+
+        @Override
+        protected Matrix calculate(Map<String, Object> update) {
+            Number roll = (Number) update.get(fields[0]);
+            Number pitch = (Number) update.get(fields[1]);
+            Number yaw = (Number) update.get(fields[2]);
+            if (roll == null || pitch == null || yaw == null) {
+                return null;
+            }
+            Matrix r = RotationConversion.rotationMatrixByEulerAngles(roll.doubleValue() + offsets[0],
+                    pitch.doubleValue() + offsets[1], yaw.doubleValue() + offsets[2]);
+            return transposed ? r.transpose() : r;
+        }
+    }
+
+    /**
+     * Projection of global position fields (lat, lon and optional alt) to local XYZ around reference point.
+     */
+    public static class GlobalProjection extends Quantity<double[]> {
+        private final String[] fields;
+        private final GlobalPositionProjector projector = new GlobalPositionProjector();
+
+        public GlobalProjection(String[] fields, LatLonAlt reference) {
+            super("GlobalProjection" + Arrays.toString(fields) + "@" + reference.lat + "," + reference.lon + "," +
+                    reference.alt);
+            this.fields = fields;
+            projector.init(reference);
+        }
+
+        @Override
+        protected double[] calculate(Map<String, Object> update) {
+            Number lat = (Number) update.get(fields[0]);
+            Number lon = (Number) update.get(fields[1]);
+            Number alt = fields.length > 2 ? (Number) update.get(fields[2]) : Double.valueOf(0.0);
+            if (lat == null || lon == null || alt == null) {
+                return null;
+            }
+            return projector.project(new LatLonAlt(lat.doubleValue(), lon.doubleValue(), alt.doubleValue()));
+        }
+    }
+
+    /**
+     * Get value of quantity for the update, calculate it if it was not calculated for this timestamp yet.
+     * Returned value must not be modified.
+     *
+     * @return value or null if update doesn't contain required fields
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Quantity<T> quantity, double time, Map<String, Object> update) {
+        Entry entry = entries.get(quantity);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(quantity, entry);
+        }
+        if (entry.time != time) {
+            entry.value = quantity.calculate(update);
+            entry.time = time;
+        }
+        return (T) entry.value;
+    }
+}
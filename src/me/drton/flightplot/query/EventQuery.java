@@ -0,0 +1,207 @@
+package me.drton.flightplot.query;
+
+import java.io.IOException;
+import java.text.ParseException;
+
+/**
+ * Query of time intervals where condition over log fields is true, e.g. "BATT.V &lt; 10.5 &amp;&amp;
+ * STAT.MainState == 3". Conditions compare field with number using operators &lt;, &lt;=, &gt;, &gt;=, ==, != and
+ * are combined with &amp;&amp;, ||, ! and parentheses.
+ */
+public class EventQuery {
+    private interface Node {
+        IntervalList evaluate(LogIndex index) throws IOException;
+    }
+
+    private static class Condition implements Node {
+        final String field;
+        final LogIndex.Operator operator;
+        final double constant;
+
+        Condition(String field, LogIndex.Operator operator, double constant) {
+            this.field = field;
+            this.operator = operator;
+            this.constant = constant;
+        }
+
+        @Override
+        public IntervalList evaluate(LogIndex index) throws IOException {
+            return index.find(field, operator, constant);
+        }
+    }
+
+    private static class And implements Node {
+        final Node left;
+        final Node right;
+
+        And(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public IntervalList evaluate(LogIndex index) throws IOException {
+            IntervalList leftResult = left.evaluate(index);
+            if (leftResult.size() == 0) {
+                return leftResult;
+            }
+            return leftResult.and(right.evaluate(index));
+        }
+    }
+
+    private static class Or implements Node {
+        final Node left;
+        final Node right;
+
+        Or(Node left, Node right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public IntervalList evaluate(LogIndex index) throws IOException {
+            return left.evaluate(index).or(right.evaluate(index));
+        }
+    }
+
+    private static class Not implements Node {
+        final Node node;
+
+        Not(Node node) {
+            this.node = node;
+        }
+
+        @Override
+        public IntervalList evaluate(LogIndex index) throws IOException {
+            return node.evaluate(index).not(index.getStartTime(), index.getEndTime());
+        }
+    }
+
+    private final String text;
+    private final Node root;
+    private int position;
+
+    /**
+     * @throws ParseException if query has syntax error, error offset is position in query
+     */
+    public EventQuery(String text) throws ParseException {
+        this.text = text;
+        this.position = 0;
+        this.root = parseOr();
+        skipSpaces();
+        if (position < text.length()) {
+            throw new ParseException("Unexpected \"" + text.substring(position) + "\"", position);
+        }
+    }
+
+    /**
+     * @return intervals of the log where query is true
+     * @throws IllegalArgumentException if query contains field not present in the log
+     */
+    public IntervalList evaluate(LogIndex index) throws IOException {
+        return root.evaluate(index);
+    }
+
+    private Node parseOr() throws ParseException {
+        Node node = parseAnd();
+        while (consume("||")) {
+            node = new Or(node, parseAnd());
+        }
+        return node;
+    }
+
+    private Node parseAnd() throws ParseException {
+        Node node = parseUnary();
+        while (consume("&&")) {
+            node = new And(node, parseUnary());
+        }
+        return node;
+    }
+
+    private Node parseUnary() throws ParseException {
+        if (consume("!")) {
+            return new Not(parseUnary());
+        }
+        if (consume("(")) {
+            Node node = parseOr();
+            if (!consume(")")) {
+                throw error("Expected \")\"");
+            }
+            return node;
+        }
+        return parseCondition();
+    }
+
+    private Node parseCondition() throws ParseException {
+        String field = parseField();
+        LogIndex.Operator operator = null;
+        // Two-character operators must be checked first
+        for (LogIndex.Operator op : new LogIndex.Operator[]{LogIndex.Operator.LE, LogIndex.Operator.GE,
+                LogIndex.Operator.EQ, LogIndex.Operator.NE, LogIndex.Operator.LT, LogIndex.Operator.GT}) {
+            if (consume(op.getSymbol())) {
+                operator = op;
+                break;
+            }
+        }
+        if (null == operator) {
+            throw error("Expected comparison operator");
+        }
+        return new Condition(field, operator, parseNumber());
+    }
+
+    private String parseField() throws ParseException {
+        skipSpaces();
+        int start = position;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '[' || c == ']') {
+                position++;
+            } else {
+                break;
+            }
+        }
+        if (position == start || !Character.isLetter(text.charAt(start))) {
+            position = start;
+            throw error("Expected field name");
+        }
+        return text.substring(start, position);
+    }
+
+    private double parseNumber() throws ParseException {
+        skipSpaces();
+        int start = position;
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (Character.isDigit(c) || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E') {
+                position++;
+            } else {
+                break;
+            }
+        }
+        try {
+            return Double.parseDouble(text.substring(start, position));
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("Expected number");
+        }
+    }
+
+    private boolean consume(String token) {
+        skipSpaces();
+        if (text.startsWith(token, position)) {
+            position += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void skipSpaces() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    private ParseException error(String message) {
+        return new ParseException(message + " at position " + (position + 1), position);
+    }
+}
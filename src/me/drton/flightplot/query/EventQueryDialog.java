@@ -0,0 +1,177 @@
+package me.drton.flightplot.query;
+
+import me.drton.jmavlib.log.PX4LogReader;
+
+import javax.swing.*;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.text.ParseException;
+import java.util.Locale;
+
+/**
+ * Dialog to find time intervals of the log where query over log fields is true. Index of the log is built in
+ * background on first query and reused until other log is opened. Selecting result calls listener.
+ */
+public class EventQueryDialog extends JDialog {
+    public interface Listener {
+        /**
+         * @param start start of selected interval in us of native log time
+         * @param end   end of selected interval in us of native log time
+         */
+        void intervalSelected(long start, long end);
+    }
+
+    private final Listener listener;
+    private final JTextField queryField = new JTextField("BATT.V < 10.5 && STAT.MainState == 3");
+    private final JButton findButton = new JButton("Find");
+    private final DefaultListModel resultsModel = new DefaultListModel();
+    private final JList resultsList = new JList(resultsModel);
+    private final JLabel statusLabel = new JLabel(" ");
+    private String logFileName = null;
+    private LogIndex logIndex = null;
+    private IntervalList results = null;
+    private boolean running = false;
+
+    public EventQueryDialog(Listener listener) {
+        this.listener = listener;
+        setTitle("Find Events");
+        setModal(false);
+        JPanel queryPanel = new JPanel(new BorderLayout(5, 5));
+        queryPanel.add(new JLabel("Condition:"), BorderLayout.WEST);
+        queryPanel.add(queryField, BorderLayout.CENTER);
+        queryPanel.add(findButton, BorderLayout.EAST);
+        JPanel contentPane = new JPanel(new BorderLayout(5, 5));
+        contentPane.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        contentPane.add(queryPanel, BorderLayout.NORTH);
+        contentPane.add(new JScrollPane(resultsList), BorderLayout.CENTER);
+        contentPane.add(statusLabel, BorderLayout.SOUTH);
+        setContentPane(contentPane);
+        getRootPane().setDefaultButton(findButton);
+        ActionListener findListener = new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                runQuery();
+            }
+        };
+        findButton.addActionListener(findListener);
+        queryField.addActionListener(findListener);
+        resultsList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultsList.addListSelectionListener(new ListSelectionListener() {
+            @Override
+            public void valueChanged(ListSelectionEvent e) {
+                int i = resultsList.getSelectedIndex();
+                if (!e.getValueIsAdjusting() && i >= 0 && null != results && i < results.size()) {
+                    EventQueryDialog.this.listener.intervalSelected(results.getStart(i), results.getEnd(i));
+                }
+            }
+        });
+        setSize(500, 400);
+    }
+
+    /**
+     * Set log to query, index of previous log is deleted.
+     *
+     * @param logFileName log file or null if no log is opened
+     */
+    public void setLogFile(String logFileName) {
+        this.logFileName = logFileName;
+        if (null != logIndex) {
+            logIndex.close();
+            logIndex = null;
+        }
+        results = null;
+        resultsModel.clear();
+        statusLabel.setText(" ");
+    }
+
+    private void runQuery() {
+        if (running) {
+            return;
+        }
+        if (null == logFileName) {
+            statusLabel.setText("Log file must be opened first.");
+            return;
+        }
+        final EventQuery query;
+        try {
+            query = new EventQuery(queryField.getText());
+        } catch (ParseException e) {
+            statusLabel.setText("Error: " + e.getMessage());
+            queryField.setCaretPosition(Math.min(e.getErrorOffset(), queryField.getText().length()));
+            queryField.requestFocusInWindow();
+            return;
+        }
+        running = true;
+        findButton.setEnabled(false);
+        final String fileName = logFileName;
+        final LogIndex index = logIndex;
+        statusLabel.setText(null == index ? "Building log index..." : "Searching...");
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                LogIndex queryIndex = index;
+                IntervalList result = null;
+                String status;
+                try {
+                    if (null == queryIndex) {
+                        PX4LogReader reader = new PX4LogReader(fileName);
+                        try {
+                            File indexFile = File.createTempFile("flightplot_index", ".fpcol");
+                            indexFile.deleteOnExit();
+                            queryIndex = LogIndex.build(reader, indexFile);
+                        } finally {
+                            reader.close();
+                        }
+                    }
+                    long t0 = System.nanoTime();
+                    result = query.evaluate(queryIndex);
+                    status = String.format(Locale.ROOT, "Found %d intervals, total %.3f s, in %.3f s",
+                            result.size(), result.getTotalLength() * 1e-6, (System.nanoTime() - t0) * 1e-9);
+                } catch (IllegalArgumentException e) {
+                    status = "Error: " + e.getMessage();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    status = "Error: " + e;
+                }
+                final LogIndex builtIndex = queryIndex;
+                final IntervalList finalResult = result;
+                final String finalStatus = status;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        onQueryFinished(fileName, builtIndex, finalResult, finalStatus);
+                    }
+                });
+            }
+        }, "Event query").start();
+    }
+
+    private void onQueryFinished(String fileName, LogIndex index, IntervalList result, String status) {
+        running = false;
+        findButton.setEnabled(true);
+        if (!fileName.equals(logFileName)) {
+            // Other log was opened meanwhile
+            if (null != index) {
+                index.close();
+            }
+            return;
+        }
+        logIndex = index;
+        statusLabel.setText(status);
+        if (null == result) {
+            return;
+        }
+        results = result;
+        resultsModel.clear();
+        for (int i = 0; i < result.size(); i++) {
+            long start = result.getStart(i) - index.getStartTime();
+            long end = result.getEnd(i) - index.getStartTime();
+            resultsModel.addElement(String.format(Locale.ROOT, "%.3f - %.3f s  (%.3f s)",
+                    start * 1e-6, end * 1e-6, (end - start) * 1e-6));
+        }
+    }
+}
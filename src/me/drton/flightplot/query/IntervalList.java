@@ -0,0 +1,107 @@
+package me.drton.flightplot.query;
+
+import java.util.Arrays;
+
+/**
+ * Sorted list of disjoint time intervals [start, end) in us. Intervals must be added in order of time, touching
+ * and overlapping intervals are merged.
+ */
+public class IntervalList {
+    private long[] starts = new long[16];
+    private long[] ends = new long[16];
+    private int size = 0;
+
+    /**
+     * Add interval, start must not be less than start of last interval. Empty intervals are ignored.
+     */
+    public void add(long start, long end) {
+        if (end <= start) {
+            return;
+        }
+        if (size > 0 && start <= ends[size - 1]) {
+            ends[size - 1] = Math.max(ends[size - 1], end);
+            return;
+        }
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getStart(int i) {
+        return starts[i];
+    }
+
+    public long getEnd(int i) {
+        return ends[i];
+    }
+
+    /**
+     * @return total length of all intervals in us
+     */
+    public long getTotalLength() {
+        long length = 0;
+        for (int i = 0; i < size; i++) {
+            length += ends[i] - starts[i];
+        }
+        return length;
+    }
+
+    /**
+     * @return intervals contained in both lists
+     */
+    public IntervalList and(IntervalList other) {
+        IntervalList result = new IntervalList();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            result.add(Math.max(starts[i], other.starts[j]), Math.min(ends[i], other.ends[j]));
+            if (ends[i] < other.ends[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return intervals contained in any of lists
+     */
+    public IntervalList or(IntervalList other) {
+        IntervalList result = new IntervalList();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && starts[i] <= other.starts[j])) {
+                result.add(starts[i], ends[i]);
+                i++;
+            } else {
+                result.add(other.starts[j], other.ends[j]);
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return intervals of range [from, to) not contained in this list
+     */
+    public IntervalList not(long from, long to) {
+        IntervalList result = new IntervalList();
+        long t = from;
+        for (int i = 0; i < size; i++) {
+            result.add(t, Math.min(starts[i], to));
+            t = Math.max(t, ends[i]);
+        }
+        result.add(t, to);
+        return result;
+    }
+}
@@ -0,0 +1,256 @@
+package me.drton.flightplot.query;
+
+import me.drton.flightplot.LogColumnsWriter;
+import me.drton.flightplot.export.ColumnarFileReader;
+import me.drton.flightplot.export.ColumnarFileWriter;
+import me.drton.jmavlib.log.FormatErrorException;
+import me.drton.jmavlib.log.LogReader;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Columnar copy of all numeric log fields in memory-mapped file for fast queries. Each field value holds from time
+ * of its update until the next update of the field, last value holds until the end of the log.
+ * Values of each field are split to blocks with min/max summary, calculated while the index is written, so blocks
+ * that can't match condition are skipped without reading values.
+ */
+public class LogIndex {
+    public static final int BLOCK_SIZE = 4096;
+
+    /**
+     * Comparison operators of conditions.
+     */
+    public enum Operator {
+        LT("<"), LE("<="), GT(">"), GE(">="), EQ("=="), NE("!=");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        /**
+         * @return result of comparison, false if value is NaN
+         */
+        boolean matches(double value, double constant) {
+            switch (this) {
+                case LT:
+                    return value < constant;
+                case LE:
+                    return value <= constant;
+                case GT:
+                    return value > constant;
+                case GE:
+                    return value >= constant;
+                case EQ:
+                    return value == constant;
+                default:
+                    return value < constant || value > constant;
+            }
+        }
+
+        /**
+         * @return true if no value in range [min, max] matches
+         */
+        boolean matchesNone(double min, double max, double constant) {
+            switch (this) {
+                case LT:
+                    return !(min < constant);
+                case LE:
+                    return !(min <= constant);
+                case GT:
+                    return !(max > constant);
+                case GE:
+                    return !(max >= constant);
+                case EQ:
+                    return !(min <= constant && constant <= max);
+                default:
+                    return min == constant && max == constant;
+            }
+        }
+
+        /**
+         * @return true if all values in range [min, max] match
+         */
+        boolean matchesAll(double min, double max, double constant) {
+            switch (this) {
+                case LT:
+                    return max < constant;
+                case LE:
+                    return max <= constant;
+                case GT:
+                    return min > constant;
+                case GE:
+                    return min >= constant;
+                case EQ:
+                    return min == constant && max == constant;
+                default:
+                    return constant < min || constant > max;
+            }
+        }
+    }
+
+    private static class Field {
+        final LongBuffer times;
+        final DoubleBuffer values;
+        final int size;
+        final LogColumnsWriter.BlockSummary summary;
+
+        Field(LongBuffer times, DoubleBuffer values, LogColumnsWriter.BlockSummary summary) {
+            this.times = times;
+            this.values = values;
+            this.size = values.limit();
+            this.summary = summary;
+        }
+    }
+
+    private final File file;
+    private final ColumnarFileReader reader;
+    private final long startTime;
+    private final long endTime;
+    private final Map<String, LogColumnsWriter.BlockSummary> summaries;
+    private final Map<String, Field> fields = new HashMap<String, Field>();
+
+    private LogIndex(File file, long startTime, long endTime, Map<String, LogColumnsWriter.BlockSummary> summaries)
+            throws IOException {
+        this.file = file;
+        this.reader = new ColumnarFileReader(file);
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.summaries = summaries;
+    }
+
+    /**
+     * Read whole log and write index to file.
+     *
+     * @param logReader log reader, will be positioned at the end of the log after this call
+     * @param file      file for index, deleted by close()
+     */
+    public static LogIndex build(LogReader logReader, File file) throws IOException, FormatErrorException {
+        ColumnarFileWriter writer = new ColumnarFileWriter(file);
+        boolean finished = false;
+        LogColumnsWriter columnsWriter = new LogColumnsWriter(writer, BLOCK_SIZE);
+        try {
+            logReader.seek(0);
+            Map<String, Object> data = new HashMap<String, Object>();
+            while (true) {
+                long t;
+                data.clear();
+                try {
+                    t = logReader.readUpdate(data);
+                } catch (EOFException e) {
+                    break;
+                }
+                columnsWriter.add(t, data);
+            }
+            finished = true;
+        } finally {
+            if (finished) {
+                writer.close();
+            } else {
+                writer.abort();
+                file.delete();
+            }
+        }
+        long startTime = logReader.getStartMicroseconds();
+        return new LogIndex(file, startTime, startTime + logReader.getSizeMicroseconds(),
+                columnsWriter.getBlockSummaries());
+    }
+
+    /**
+     * @return log start time in us
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return log end time in us
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public boolean containsField(String name) {
+        return reader.getColumnNames().contains(name) && !name.endsWith(LogColumnsWriter.TIME_SUFFIX);
+    }
+
+    private synchronized Field getField(String name) throws IOException {
+        Field field = fields.get(name);
+        if (null == field) {
+            if (!containsField(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            field = new Field(reader.getLongColumn(LogColumnsWriter.getTimeColumn(name)),
+                    reader.getDoubleColumn(name), summaries.get(name));
+            fields.put(name, field);
+        }
+        return field;
+    }
+
+    /**
+     * @return intervals where value of field compared with constant is true
+     */
+    public IntervalList find(String fieldName, Operator operator, double constant) throws IOException {
+        Field field = getField(fieldName);
+        IntervalList result = new IntervalList();
+        // Start of current matching run, -1 if value doesn't match
+        long runStart = -1;
+        LogColumnsWriter.BlockSummary summary = field.summary;
+        for (int b = 0; b < summary.getBlocksCount(); b++) {
+            int start = b * BLOCK_SIZE;
+            int end = Math.min(field.size, start + BLOCK_SIZE);
+            double min = summary.getMin(b);
+            double max = summary.getMax(b);
+            if (Double.isNaN(min) || operator.matchesNone(min, max, constant)) {
+                if (runStart >= 0) {
+                    result.add(runStart, field.times.get(start));
+                    runStart = -1;
+                }
+            } else if (!summary.hasNaN(b) && operator.matchesAll(min, max, constant)) {
+                if (runStart < 0) {
+                    runStart = field.times.get(start);
+                }
+            } else {
+                for (int i = start; i < end; i++) {
+                    boolean matches = operator.matches(field.values.get(i), constant);
+                    if (matches && runStart < 0) {
+                        runStart = field.times.get(i);
+                    } else if (!matches && runStart >= 0) {
+                        result.add(runStart, field.times.get(i));
+                        runStart = -1;
+                    }
+                }
+            }
+        }
+        if (runStart >= 0) {
+            result.add(runStart, endTime);
+        }
+        return result;
+    }
+
+    /**
+     * Close and delete index file.
+     */
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        // Mapped file may be not deletable until mapping is garbage collected
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
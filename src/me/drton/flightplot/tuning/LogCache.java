@@ -0,0 +1,128 @@
+package me.drton.flightplot.tuning;
+
+import me.drton.flightplot.processors.PlotProcessor;
+import me.drton.jmavlib.log.FormatErrorException;
+import me.drton.jmavlib.log.LogReader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Decoded log updates kept in memory, so the log can be processed many times without reading it again.
+ * Only requested numeric fields are stored, updates without any of them are dropped. Each field is stored as
+ * primitive columns of values and indexes of updates containing the field.
+ */
+public class LogCache {
+    private final Set<String> fields;
+    private final String[] fieldNames;
+    private double[] times = new double[1024];
+    private int size = 0;
+    private int[][] fieldUpdates;
+    private double[][] fieldValues;
+    private int[] fieldSizes;
+
+    private LogCache(Set<String> fields) {
+        this.fields = fields;
+        this.fieldNames = fields.toArray(new String[fields.size()]);
+        this.fieldUpdates = new int[fieldNames.length][];
+        this.fieldValues = new double[fieldNames.length][];
+        this.fieldSizes = new int[fieldNames.length];
+        for (int f = 0; f < fieldNames.length; f++) {
+            fieldUpdates[f] = new int[1024];
+            fieldValues[f] = new double[1024];
+        }
+    }
+
+    /**
+     * Read whole log and cache all values of specified fields.
+     *
+     * @param reader log reader, will be positioned at the end of the log after this call
+     * @param fields fields to cache
+     */
+    public static LogCache read(LogReader reader, Set<String> fields) throws IOException, FormatErrorException {
+        LogCache cache = new LogCache(new HashSet<String>(fields));
+        Map<String, Integer> fieldIds = new HashMap<String, Integer>();
+        for (int f = 0; f < cache.fieldNames.length; f++) {
+            fieldIds.put(cache.fieldNames[f], f);
+        }
+        reader.seek(0);
+        Map<String, Object> data = new HashMap<String, Object>();
+        while (true) {
+            long t;
+            data.clear();
+            try {
+                t = reader.readUpdate(data);
+            } catch (EOFException e) {
+                break;
+            }
+            boolean cached = false;
+            for (Map.Entry<String, Object> entry : data.entrySet()) {
+                Integer f = fieldIds.get(entry.getKey());
+                if (f != null && entry.getValue() instanceof Number) {
+                    cache.addValue(f, ((Number) entry.getValue()).doubleValue());
+                    cached = true;
+                }
+            }
+            if (cached) {
+                if (cache.size == cache.times.length) {
+                    cache.times = Arrays.copyOf(cache.times, cache.size * 2);
+                }
+                cache.times[cache.size++] = t * 1e-6;
+            }
+        }
+        cache.trim();
+        return cache;
+    }
+
+    private void addValue(int f, double value) {
+        int n = fieldSizes[f];
+        if (n == fieldValues[f].length) {
+            fieldUpdates[f] = Arrays.copyOf(fieldUpdates[f], n * 2);
+            fieldValues[f] = Arrays.copyOf(fieldValues[f], n * 2);
+        }
+        // Value belongs to the update being read, its index is the current size
+        fieldUpdates[f][n] = size;
+        fieldValues[f][n] = value;
+        fieldSizes[f] = n + 1;
+    }
+
+    private void trim() {
+        times = Arrays.copyOf(times, size);
+        for (int f = 0; f < fieldNames.length; f++) {
+            fieldUpdates[f] = Arrays.copyOf(fieldUpdates[f], fieldSizes[f]);
+            fieldValues[f] = Arrays.copyOf(fieldValues[f], fieldSizes[f]);
+        }
+    }
+
+    /**
+     * @return true if all specified fields are available in this cache
+     */
+    public boolean containsFields(Set<String> requestedFields) {
+        return fields.containsAll(requestedFields);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Pass all cached updates to processor in order of time. Update map is reused, values are Double.
+     * Can be called from several threads at once.
+     */
+    public void process(PlotProcessor processor) {
+        int[] cursors = new int[fieldNames.length];
+        Map<String, Object> update = new HashMap<String, Object>();
+        for (int i = 0; i < size; i++) {
+            update.clear();
+            for (int f = 0; f < fieldNames.length; f++) {
+                int c = cursors[f];
+                if (c < fieldSizes[f] && fieldUpdates[f][c] == i) {
+                    update.put(fieldNames[f], fieldValues[f][c]);
+                    cursors[f] = c + 1;
+                }
+            }
+            processor.process(times[i], update);
+        }
+    }
+}
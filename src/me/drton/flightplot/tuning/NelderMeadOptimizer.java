@@ -0,0 +1,176 @@
+package me.drton.flightplot.tuning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Nelder-Mead simplex minimizer which evaluates candidate points concurrently.
+ * On each iteration reflection, expansion and both contractions are evaluated speculatively in parallel, shrink
+ * points are evaluated in parallel too.
+ */
+public class NelderMeadOptimizer {
+    private static final double ALPHA = 1.0;    // reflection
+    private static final double GAMMA = 2.0;    // expansion
+    private static final double RHO = 0.5;      // contraction
+    private static final double SIGMA = 0.5;    // shrink
+
+    public interface CostFunction {
+        double evaluate(double[] x) throws Exception;
+    }
+
+    public interface ProgressListener {
+        void progress(int iteration, double[] bestX, double bestCost);
+    }
+
+    private final CostFunction costFunction;
+    private final ExecutorService executor;
+    private int maxIterations = 100;
+    private double tolerance = 1e-6;
+    private volatile boolean canceled = false;
+    private ProgressListener progressListener;
+
+    public NelderMeadOptimizer(CostFunction costFunction, ExecutorService executor) {
+        this.costFunction = costFunction;
+        this.executor = executor;
+    }
+
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    public void cancel() {
+        canceled = true;
+    }
+
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    /**
+     * Minimize cost function.
+     *
+     * @param x0    initial point
+     * @param steps initial simplex size in each dimension
+     * @return best point found
+     */
+    public double[] minimize(double[] x0, double[] steps) throws InterruptedException, ExecutionException {
+        int n = x0.length;
+        double[][] simplex = new double[n + 1][];
+        simplex[0] = x0.clone();
+        for (int i = 0; i < n; i++) {
+            simplex[i + 1] = x0.clone();
+            simplex[i + 1][i] += steps[i];
+        }
+        double[] costs = evaluate(Arrays.asList(simplex));
+        for (int iteration = 0; iteration < maxIterations && !canceled; iteration++) {
+            sort(simplex, costs);
+            if (progressListener != null) {
+                progressListener.progress(iteration, simplex[0], costs[0]);
+            }
+            if (Math.abs(costs[n] - costs[0]) <= tolerance) {
+                break;
+            }
+            double[] centroid = new double[n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    centroid[j] += simplex[i][j] / n;
+                }
+            }
+            double[] worst = simplex[n];
+            double[] reflected = combine(centroid, worst, ALPHA);
+            double[] expanded = combine(centroid, worst, GAMMA);
+            double[] contractedOut = combine(centroid, worst, ALPHA * RHO);
+            double[] contractedIn = combine(centroid, worst, -RHO);
+            double[] c = evaluate(Arrays.asList(reflected, expanded, contractedOut, contractedIn));
+            double costR = c[0];
+            if (costR < costs[0]) {
+                if (c[1] < costR) {
+                    simplex[n] = expanded;
+                    costs[n] = c[1];
+                } else {
+                    simplex[n] = reflected;
+                    costs[n] = costR;
+                }
+            } else if (costR < costs[n - 1]) {
+                simplex[n] = reflected;
+                costs[n] = costR;
+            } else if (costR < costs[n] && c[2] <= costR) {
+                simplex[n] = contractedOut;
+                costs[n] = c[2];
+            } else if (costR >= costs[n] && c[3] < costs[n]) {
+                simplex[n] = contractedIn;
+                costs[n] = c[3];
+            } else {
+                // Shrink towards the best point
+                List<double[]> shrunk = new ArrayList<double[]>();
+                for (int i = 1; i <= n; i++) {
+                    simplex[i] = combine(simplex[0], simplex[i], -SIGMA);
+                    shrunk.add(simplex[i]);
+                }
+                double[] cs = evaluate(shrunk);
+                System.arraycopy(cs, 0, costs, 1, n);
+            }
+        }
+        sort(simplex, costs);
+        return simplex[0];
+    }
+
+    /**
+     * Point on the line from centroid through worst point: centroid + k * (centroid - worst)
+     */
+    private static double[] combine(double[] centroid, double[] worst, double k) {
+        double[] res = new double[centroid.length];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = centroid[i] + k * (centroid[i] - worst[i]);
+        }
+        return res;
+    }
+
+    private double[] evaluate(List<double[]> points) throws InterruptedException, ExecutionException {
+        List<Callable<Double>> tasks = new ArrayList<Callable<Double>>();
+        for (final double[] point : points) {
+            tasks.add(new Callable<Double>() {
+                @Override
+                public Double call() throws Exception {
+                    double cost = costFunction.evaluate(point);
+                    return Double.isNaN(cost) ? Double.POSITIVE_INFINITY : cost;
+                }
+            });
+        }
+        List<Future<Double>> futures = executor.invokeAll(tasks);
+        double[] costs = new double[points.size()];
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = futures.get(i).get();
+        }
+        return costs;
+    }
+
+    private static void sort(double[][] simplex, double[] costs) {
+        // Insertion sort, simplex is small
+        for (int i = 1; i < costs.length; i++) {
+            double c = costs[i];
+            double[] p = simplex[i];
+            int j = i - 1;
+            while (j >= 0 && costs[j] > c) {
+                costs[j + 1] = costs[j];
+                simplex[j + 1] = simplex[j];
+                j--;
+            }
+            costs[j + 1] = c;
+            simplex[j + 1] = p;
+        }
+    }
+}
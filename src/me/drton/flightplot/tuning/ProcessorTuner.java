@@ -0,0 +1,157 @@
+package me.drton.flightplot.tuning;
+
+import me.drton.flightplot.processors.PlotProcessor;
+import me.drton.flightplot.processors.TunableProcessor;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Tunes parameters of TunableProcessor on cached log data.
+ * Each candidate parameters set is evaluated on separate processor instance, candidates are evaluated concurrently
+ * on all available cores.
+ */
+public class ProcessorTuner implements Runnable {
+    private final PlotProcessor processor;
+    private LogCache logCache = null;
+    private final String[] tunableParameters;
+    private final Map<String, Object> baseParameters;
+    private NelderMeadOptimizer optimizer;
+    private volatile String statusMessage = "";
+    private volatile Map<String, Object> bestParameters = null;
+    private volatile double bestCost = Double.NaN;
+    private Runnable progressCallback;
+    private Runnable finishedCallback;
+
+    public ProcessorTuner(PlotProcessor processor) {
+        if (!(processor instanceof TunableProcessor)) {
+            throw new IllegalArgumentException("Processor " + processor.getProcessorType() + " is not tunable");
+        }
+        this.processor = processor;
+        this.tunableParameters = ((TunableProcessor) processor).getTunableParameters();
+        this.baseParameters = new HashMap<String, Object>(processor.getParameters());
+    }
+
+    /**
+     * Log fields that must be cached to evaluate the processor.
+     */
+    public Set<String> getRequiredFields(Set<String> logFields) {
+        return processor.getUsedFields(logFields);
+    }
+
+    public void setLogCache(LogCache logCache) {
+        this.logCache = logCache;
+    }
+
+    @Override
+    public void run() {
+        if (logCache == null) {
+            statusMessage = "Error: no log data";
+            if (finishedCallback != null) {
+                finishedCallback.run();
+            }
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ProcessorTuner");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            // Optimize in logarithmic space to keep parameters positive
+            double[] x0 = new double[tunableParameters.length];
+            double[] steps = new double[tunableParameters.length];
+            for (int i = 0; i < x0.length; i++) {
+                x0[i] = Math.log((Double) baseParameters.get(tunableParameters[i]));
+                steps[i] = Math.log(2.0);
+            }
+            optimizer = new NelderMeadOptimizer(new NelderMeadOptimizer.CostFunction() {
+                @Override
+                public double evaluate(double[] x) throws Exception {
+                    return evaluateCost(x);
+                }
+            }, executor);
+            optimizer.setProgressListener(new NelderMeadOptimizer.ProgressListener() {
+                @Override
+                public void progress(int iteration, double[] bestX, double cost) {
+                    bestParameters = formatParameters(bestX);
+                    bestCost = cost;
+                    statusMessage = String.format(Locale.ROOT, "iteration %d, cost %.6f", iteration, cost);
+                    if (progressCallback != null) {
+                        progressCallback.run();
+                    }
+                }
+            });
+            double[] best = optimizer.minimize(x0, steps);
+            bestParameters = formatParameters(best);
+            bestCost = evaluateCost(best);
+            statusMessage = String.format(Locale.ROOT, "%s, cost %.6f", optimizer.isCanceled() ? "canceled" : "done",
+                    bestCost);
+        } catch (Exception e) {
+            statusMessage = "Error: " + e;
+            e.printStackTrace();
+        } finally {
+            executor.shutdownNow();
+        }
+        if (finishedCallback != null) {
+            finishedCallback.run();
+        }
+    }
+
+    public void cancel() {
+        if (optimizer != null) {
+            optimizer.cancel();
+        }
+    }
+
+    private Map<String, Object> formatParameters(double[] x) {
+        Map<String, Object> params = new HashMap<String, Object>();
+        for (int i = 0; i < x.length; i++) {
+            params.put(tunableParameters[i], Math.exp(x[i]));
+        }
+        return params;
+    }
+
+    private double evaluateCost(double[] x) throws Exception {
+        PlotProcessor candidate = processor.getClass().newInstance();
+        candidate.setParameters(baseParameters);
+        candidate.setParameters(formatParameters(x));
+        candidate.init();
+        // Only cost is needed, don't collect series
+        candidate.setSkipOut(Double.MAX_VALUE);
+        logCache.process(candidate);
+        return ((TunableProcessor) candidate).getTuningCost();
+    }
+
+    public String getStatusMessage() {
+        return statusMessage;
+    }
+
+    /**
+     * @return best parameters found so far or null if nothing was evaluated yet
+     */
+    public Map<String, Object> getBestParameters() {
+        return bestParameters;
+    }
+
+    public double getBestCost() {
+        return bestCost;
+    }
+
+    public void setProgressCallback(Runnable progressCallback) {
+        this.progressCallback = progressCallback;
+    }
+
+    public void setFinishedCallback(Runnable finishedCallback) {
+        this.finishedCallback = finishedCallback;
+    }
+}